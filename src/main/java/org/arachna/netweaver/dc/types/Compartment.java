@@ -1,8 +1,13 @@
 package org.arachna.netweaver.dc.types;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -61,10 +66,31 @@ public final class Compartment {
      */
     private final Set<DevelopmentComponent> components = new LinkedHashSet<DevelopmentComponent>();
 
+    /**
+     * {@link DevelopmentComponent}s contained in this compartment mapped by their name.
+     */
+    private final Map<String, List<DevelopmentComponent>> componentsByName = new HashMap<String, List<DevelopmentComponent>>();
+
+    /**
+     * {@link DevelopmentComponent}s contained in this compartment mapped by their type.
+     */
+    private final Map<DevelopmentComponentType, List<DevelopmentComponent>> componentsByType =
+        new EnumMap<DevelopmentComponentType, List<DevelopmentComponent>>(DevelopmentComponentType.class);
+
+    /**
+     * order the {@link DevelopmentComponent}s contained in this compartment were added in.
+     */
+    private final Map<DevelopmentComponent, Long> insertionOrder = new IdentityHashMap<DevelopmentComponent, Long>();
+
+    /**
+     * sequence number of the next {@link DevelopmentComponent} added to this compartment.
+     */
+    private long nextSequenceNumber;
+
     /**
      * Type of compartment {@link CompartmentState}.
      */
-    private CompartmentState state = CompartmentState.Source;
+    private volatile CompartmentState state = CompartmentState.Source;
 
     /**
      * URL of DTR server.
@@ -130,7 +156,7 @@ public final class Compartment {
      *
      * @param compartment used compartment.
      */
-    public void add(final Compartment compartment) {
+    public synchronized void add(final Compartment compartment) {
         if (compartment != null) {
             usedCompartments.add(compartment);
         }
@@ -141,7 +167,7 @@ public final class Compartment {
      *
      * @param compartmentName name of used compartment.
      */
-    public void addUsedCompartment(final String compartmentName) {
+    public synchronized void addUsedCompartment(final String compartmentName) {
         if (!StringUtils.isEmpty(compartmentName)) {
             usedCompartments.add(Compartment.create(compartmentName, CompartmentState.Archive));
         }
@@ -153,7 +179,7 @@ public final class Compartment {
      * @param usedCompartments the compartments needed to build development components
      *                         contained in this compartment.
      */
-    public void set(final Collection<Compartment> usedCompartments) {
+    public synchronized void set(final Collection<Compartment> usedCompartments) {
         this.usedCompartments.clear();
 
         if (usedCompartments != null) {
@@ -177,9 +203,14 @@ public final class Compartment {
      *
      * @param component development component to add.
      */
-    public void add(final DevelopmentComponent component) {
+    public synchronized void add(final DevelopmentComponent component) {
         component.setCompartment(this);
-        components.add(component);
+
+        if (components.add(component)) {
+            insertionOrder.put(component, Long.valueOf(nextSequenceNumber++));
+            addToIndex(componentsByName, component.getName(), component);
+            addToIndex(componentsByType, component.getType(), component);
+        }
     }
 
     /**
@@ -187,16 +218,114 @@ public final class Compartment {
      *
      * @param component development component to remove.
      */
-    public void remove(final DevelopmentComponent component) {
-        if (components.remove(component)) {
-            component.setCompartment(null);
+    public synchronized void remove(final DevelopmentComponent component) {
+        final DevelopmentComponent member = getMember(component);
+
+        if (member == null) {
+            return;
         }
 
-        for (final DevelopmentComponent dc : components) {
-            if (dc.equals(component)) {
-                components.remove(component);
-                Logger.getLogger(getClass().getName()).fine(
-                        String.format("Removing component %s from %s.", component, this));
+        insertionOrder.remove(member);
+
+        if (!components.remove(member)) {
+            // the hash code of the component changed since it was added (its name, vendor or type were updated).
+            for (final Iterator<DevelopmentComponent> dcs = components.iterator(); dcs.hasNext();) {
+                if (dcs.next() == member) {
+                    dcs.remove();
+                    Logger.getLogger(getClass().getName()).fine(
+                            String.format("Removing component %s from %s.", member, this));
+                }
+            }
+        }
+
+        removeFromIndex(componentsByName, member.getName(), member);
+        removeFromIndex(componentsByType, member.getType(), member);
+        member.setCompartment(null);
+        component.setCompartment(null);
+    }
+
+    /**
+     * Find the development component contained in this compartment that is the given one or equal to it.
+     *
+     * @param component development component to look for.
+     * @return the contained development component or <code>null</code> if there is none.
+     */
+    private DevelopmentComponent getMember(final DevelopmentComponent component) {
+        if (insertionOrder.containsKey(component)) {
+            return component;
+        }
+
+        final List<DevelopmentComponent> dcs = componentsByName.get(component.getName());
+
+        if (dcs != null) {
+            for (final DevelopmentComponent dc : dcs) {
+                if (dc.equals(component)) {
+                    return dc;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Update the indexes of development components after the name or type of the given development component changed.
+     *
+     * @param component development component whose name or type changed.
+     * @param oldName   name of development component before the change.
+     * @param oldType   type of development component before the change.
+     */
+    synchronized void update(final DevelopmentComponent component, final String oldName, final DevelopmentComponentType oldType) {
+        if (insertionOrder.containsKey(component)) {
+            removeFromIndex(componentsByName, oldName, component);
+            removeFromIndex(componentsByType, oldType, component);
+            addToIndex(componentsByName, component.getName(), component);
+            addToIndex(componentsByType, component.getType(), component);
+        }
+    }
+
+    /**
+     * Add the given development component to the given index.
+     *
+     * @param index     index to add development component to.
+     * @param key       key to add development component under.
+     * @param component development component to add.
+     * @param <K>       type of key.
+     */
+    private static <K> void addToIndex(final Map<K, List<DevelopmentComponent>> index, final K key,
+                                       final DevelopmentComponent component) {
+        List<DevelopmentComponent> dcs = index.get(key);
+
+        if (dcs == null) {
+            dcs = new ArrayList<DevelopmentComponent>(1);
+            index.put(key, dcs);
+        }
+
+        dcs.add(component);
+    }
+
+    /**
+     * Remove the given development component from the given index.
+     *
+     * @param index     index to remove development component from.
+     * @param key       key the development component was added under.
+     * @param component development component to remove.
+     * @param <K>       type of key.
+     */
+    private static <K> void removeFromIndex(final Map<K, List<DevelopmentComponent>> index, final K key,
+                                            final DevelopmentComponent component) {
+        final List<DevelopmentComponent> dcs = index.get(key);
+
+        if (dcs != null) {
+            for (final Iterator<DevelopmentComponent> i = dcs.iterator(); i.hasNext();) {
+                if (i.next() == component) {
+                    i.remove();
+                    break;
+                }
+            }
+
+            if (dcs.isEmpty()) {
+                index.remove(key);
             }
         }
     }
@@ -217,8 +346,8 @@ public final class Compartment {
      *
      * @return collection of compartments used by this compartment.
      */
-    public Collection<Compartment> getUsedCompartments() {
-        return Collections.unmodifiableCollection(usedCompartments);
+    public synchronized Collection<Compartment> getUsedCompartments() {
+        return Collections.unmodifiableCollection(new ArrayList<Compartment>(usedCompartments));
     }
 
     /**
@@ -333,8 +462,8 @@ public final class Compartment {
      *
      * @return the components
      */
-    public Collection<DevelopmentComponent> getDevelopmentComponents() {
-        return Collections.unmodifiableCollection(components);
+    public synchronized Collection<DevelopmentComponent> getDevelopmentComponents() {
+        return Collections.unmodifiableCollection(new ArrayList<DevelopmentComponent>(components));
     }
 
     /**
@@ -344,11 +473,15 @@ public final class Compartment {
      * @return a collection of development components matching the given filter
      * expression.
      */
-    public Collection<DevelopmentComponent> getDevelopmentComponents(final IDevelopmentComponentFilter filter) {
+    public synchronized Collection<DevelopmentComponent> getDevelopmentComponents(final IDevelopmentComponentFilter filter) {
         if (filter == null) {
             throw new IllegalArgumentException("Filter expression must not be null!");
         }
 
+        if (filter instanceof DevelopmentComponentByTypeFilter) {
+            return getDevelopmentComponents(((DevelopmentComponentByTypeFilter)filter).getTypes());
+        }
+
         final Collection<DevelopmentComponent> matchingDCs = new LinkedList<DevelopmentComponent>();
 
         for (final DevelopmentComponent component : components) {
@@ -360,6 +493,36 @@ public final class Compartment {
         return matchingDCs;
     }
 
+    /**
+     * Get development components of the given types using the type index. The development components are returned in the order they were
+     * added to this compartment.
+     *
+     * @param types types of development components to return.
+     * @return a collection of development components of the given types.
+     */
+    private Collection<DevelopmentComponent> getDevelopmentComponents(final Collection<DevelopmentComponentType> types) {
+        final List<DevelopmentComponent> matchingDCs = new ArrayList<DevelopmentComponent>();
+
+        for (final DevelopmentComponentType type : types) {
+            final List<DevelopmentComponent> dcs = componentsByType.get(type);
+
+            if (dcs != null) {
+                matchingDCs.addAll(dcs);
+            }
+        }
+
+        if (types.size() > 1) {
+            Collections.sort(matchingDCs, new Comparator<DevelopmentComponent>() {
+                @Override
+                public int compare(final DevelopmentComponent first, final DevelopmentComponent second) {
+                    return insertionOrder.get(first).compareTo(insertionOrder.get(second));
+                }
+            });
+        }
+
+        return matchingDCs;
+    }
+
     /**
      * Get {@link CompartmentState} of this component.
      *
@@ -470,17 +633,10 @@ public final class Compartment {
      * @return the DC matching the given dc name or <code>null</code>, when none
      * could be found.
      */
-    public DevelopmentComponent getDevelopmentComponent(final String dcName) {
-        DevelopmentComponent component = null;
-
-        for (final DevelopmentComponent dc : components) {
-            if (dc.getName().equals(dcName)) {
-                component = dc;
-                break;
-            }
-        }
+    public synchronized DevelopmentComponent getDevelopmentComponent(final String dcName) {
+        final List<DevelopmentComponent> dcs = componentsByName.get(dcName);
 
-        return component;
+        return dcs == null ? null : dcs.get(0);
     }
 
     /**
@@ -523,7 +679,7 @@ public final class Compartment {
      *
      * @param variant the new build variant to be registered.
      */
-    public void add(final BuildVariant variant) {
+    public synchronized void add(final BuildVariant variant) {
         final BuildVariant original = buildVariants.get(variant.getName());
 
         if (original != null) {
@@ -540,7 +696,7 @@ public final class Compartment {
      *
      * @return collection of build variants registered to this compartment.
      */
-    public Collection<BuildVariant> getBuildVariants() {
-        return buildVariants.values();
+    public synchronized Collection<BuildVariant> getBuildVariants() {
+        return new ArrayList<BuildVariant>(buildVariants.values());
     }
 }
\ No newline at end of file
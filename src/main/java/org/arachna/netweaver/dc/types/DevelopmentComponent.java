@@ -3,100 +3,113 @@ package org.arachna.netweaver.dc.types;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * A NetWeaver development component.
  *
+ * Development components may be populated and updated from multiple threads. Public parts, references and using DCs are kept in
+ * concurrent sets, folders (few, ordered) in copy on write sets. Iterating them never throws a
+ * {@link java.util.ConcurrentModificationException} but may or may not reflect concurrent modifications. Methods replacing the content of
+ * a collection are synchronized with each other.
+ *
  * @author Dirk Weigenand
  */
 public final class DevelopmentComponent {
     /**
      * name of development component.
      */
-    private String name;
+    private volatile String name;
 
     /**
      * vendor name.
      */
-    private String vendor;
+    private volatile String vendor;
 
     /**
      * type of this development component.
      */
-    private DevelopmentComponentType type;
+    private volatile DevelopmentComponentType type;
 
     /**
      * shot description of a development component.
      */
-    private String caption = "";
+    private volatile String caption = "";
 
     /**
      * compartment this development component belongs to.
      */
-    private Compartment compartment;
+    private volatile Compartment compartment;
 
     /**
      * description of development component.
      */
-    private String description = "";
+    private volatile String description = "";
 
     /**
      * determines whether this DC has to be rebuilt.
      */
-    private boolean needsRebuild;
+    private volatile boolean needsRebuild;
 
     /**
      * indicates whether this development component is deprecated.
      */
-    private boolean isDeprecated;
+    private volatile boolean isDeprecated;
 
     /**
      * contains the public parts of this development component if any.
      */
-    private final Set<PublicPart> publicParts = new HashSet<PublicPart>();
+    private final Set<PublicPart> publicParts = Collections.newSetFromMap(new ConcurrentHashMap<PublicPart, Boolean>());
 
     /**
      * contains references to development components used by this development component.
      */
-    private final Set<PublicPartReference> usedComponents = new HashSet<PublicPartReference>();
+    private final Set<PublicPartReference> usedComponents =
+        Collections.newSetFromMap(new ConcurrentHashMap<PublicPartReference, Boolean>());
 
     /**
      * build plugin used to build this development component.
      */
-    private PublicPartReference buildPlugin;
+    private volatile PublicPartReference buildPlugin;
 
     /**
      * collection of development components that use this DC.
      */
-    private final Set<DevelopmentComponent> usingComponents = new LinkedHashSet<DevelopmentComponent>();
+    private final Set<DevelopmentComponent> usingComponents =
+        Collections.newSetFromMap(new ConcurrentHashMap<DevelopmentComponent, Boolean>());
+
+    /**
+     * registry this development component is registered with. It is notified of changes to the references to other development
+     * components (may be <code>null</code>).
+     */
+    private transient volatile DevelopmentComponentFactory registry;
 
     /**
      * folders containing sources.
      */
-    private final Set<String> sourceFolders = new LinkedHashSet<String>();
+    private final Set<String> sourceFolders = new CopyOnWriteArraySet<String>();
 
     /**
      * folders containing test sources.
      */
-    private final Set<String> testSourceFolders = new LinkedHashSet<String>();
+    private final Set<String> testSourceFolders = new CopyOnWriteArraySet<String>();
 
     /**
      * folders containing resources.
      */
-    private final Set<String> resourceFolders = new LinkedHashSet<String>();
+    private final Set<String> resourceFolders = new CopyOnWriteArraySet<String>();
 
     /**
      * folder the class files for this development component were generated to during the last build.
      */
-    private String outputFolder = "";
+    private volatile String outputFolder = "";
 
     /**
      * Encoding of source files.
      */
-    private String sourceEncoding;
+    private volatile String sourceEncoding;
 
     /**
      * Create an instance of a development component with the given name, vendor and DC type.
@@ -147,8 +160,10 @@ public final class DevelopmentComponent {
      *
      * @param reference reference to public part of other development component this DC references.
      */
-    public void add(final PublicPartReference reference) {
-        usedComponents.add(reference);
+    public synchronized void add(final PublicPartReference reference) {
+        if (usedComponents.add(reference) && registry != null) {
+            registry.referenceAdded(this, reference);
+        }
     }
 
     /**
@@ -158,7 +173,9 @@ public final class DevelopmentComponent {
      */
     public void addAll(final Collection<PublicPartReference> references) {
         if (references != null) {
-            usedComponents.addAll(references);
+            for (final PublicPartReference reference : references) {
+                add(reference);
+            }
         }
     }
 
@@ -217,6 +234,26 @@ public final class DevelopmentComponent {
         return Collections.unmodifiableCollection(usingComponents);
     }
 
+    /**
+     * Remove the given development component from the development components using this one.
+     *
+     * @param component
+     *            the development component no longer using this DC.
+     */
+    void removeUsingDC(final DevelopmentComponent component) {
+        usingComponents.remove(component);
+    }
+
+    /**
+     * Set the registry to notify of changes to the references to other development components.
+     *
+     * @param registry
+     *            registry this development component is registered with (may be <code>null</code>).
+     */
+    void setRegistry(final DevelopmentComponentFactory registry) {
+        this.registry = registry;
+    }
+
     /**
      * Get public parts of this DC. The returned collection is sorted by {@link PublicPartByNameComparator}.
      *
@@ -232,7 +269,7 @@ public final class DevelopmentComponent {
      *
      * @param publicParts public parts to set.
      */
-    public void setPublicParts(final Collection<PublicPart> publicParts) {
+    public synchronized void setPublicParts(final Collection<PublicPart> publicParts) {
         this.publicParts.clear();
 
         if (publicParts != null) {
@@ -253,7 +290,9 @@ public final class DevelopmentComponent {
      * @param name the name to set
      */
     public void setName(final String name) {
+        final String oldName = this.name;
         this.name = name;
+        updateCompartment(oldName, type);
     }
 
     /**
@@ -267,7 +306,25 @@ public final class DevelopmentComponent {
      * @param type the type to set
      */
     public void setType(final DevelopmentComponentType type) {
+        final DevelopmentComponentType oldType = this.type;
         this.type = type;
+        updateCompartment(name, oldType);
+    }
+
+    /**
+     * Notify the compartment this development component belongs to that its name or type changed.
+     *
+     * @param oldName name before the change.
+     * @param oldType type before the change.
+     */
+    private void updateCompartment(final String oldName, final DevelopmentComponentType oldType) {
+        final Compartment owner = compartment;
+
+        final boolean nameChanged = name == null ? oldName != null : !name.equals(oldName);
+
+        if (owner != null && (nameChanged || type != oldType)) {
+            owner.update(this, oldName, oldType);
+        }
     }
 
     /**
@@ -337,7 +394,7 @@ public final class DevelopmentComponent {
      *
      * @param sourceFolders the source folders to set for this DC. If the given collection is null the DC will have no source folders afterwards.
      */
-    public void setSourceFolders(final Set<String> sourceFolders) {
+    public synchronized void setSourceFolders(final Set<String> sourceFolders) {
         this.sourceFolders.clear();
 
         if (sourceFolders != null) {
@@ -447,7 +504,11 @@ public final class DevelopmentComponent {
      *
      * @param usedComponents references to public parts of development components used by this development components.
      */
-    public void setUsedComponents(final Collection<PublicPartReference> usedComponents) {
+    public synchronized void setUsedComponents(final Collection<PublicPartReference> usedComponents) {
+        if (registry != null) {
+            registry.referencesRemoved(this);
+        }
+
         this.usedComponents.clear();
         addAll(usedComponents);
     }
@@ -530,7 +591,7 @@ public final class DevelopmentComponent {
      *
      * @param testSourceFolders folders containing test classes.
      */
-    public void setTestSourceFolders(final Set<String> testSourceFolders) {
+    public synchronized void setTestSourceFolders(final Set<String> testSourceFolders) {
         this.testSourceFolders.clear();
 
         if (testSourceFolders != null) {
@@ -561,7 +622,7 @@ public final class DevelopmentComponent {
      *
      * @param resourceFolders source folders containing resources.
      */
-    public void setResourceFolders(final Set<String> resourceFolders) {
+    public synchronized void setResourceFolders(final Set<String> resourceFolders) {
         this.resourceFolders.clear();
 
         if (resourceFolders != null) {
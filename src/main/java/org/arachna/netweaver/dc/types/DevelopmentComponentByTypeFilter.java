@@ -47,4 +47,13 @@ public final class DevelopmentComponentByTypeFilter implements IDevelopmentCompo
     public boolean accept(final DevelopmentComponent component) {
         return dcTypes.contains(component.getType());
     }
+
+    /**
+     * Returns the types of development components accepted by this filter.
+     * 
+     * @return the types of development components accepted by this filter.
+     */
+    Collection<DevelopmentComponentType> getTypes() {
+        return dcTypes;
+    }
 }
@@ -6,18 +6,47 @@ package org.arachna.netweaver.dc.types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Factory/registry for {@link DevelopmentComponent} objects.
  *
+ * The registry can be fed from multiple threads (e.g. when reading DC lists or resolving activities in parallel). Looking up development
+ * components does not lock, the registered development components are kept in concurrent maps. Creating a development component if it
+ * is absent is atomic: creating, removing and maintaining the relations between development components is synchronized on the registry.
+ * A development component may become visible to lookups shortly before its using DCs have been updated.
+ *
+ * The relation to the development components using a registered development component is maintained incrementally. Registered
+ * development components notify the registry when references to public parts are added. References to development components not (yet)
+ * registered are kept in a reverse index from vendor and name to the using development components until the referenced component is
+ * created.
+ *
+ * Development components are kept in a two level map from vendor to name to development component. Looking up a development component
+ * by vendor and name or by a {@link PublicPartReference} thus does not allocate a composite key.
+ *
  * @author Dirk Weigenand
  */
 public final class DevelopmentComponentFactory {
     /**
-     * maps 'vendor:component.name' to development components.
+     * maps vendor to a map of component name to development components.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, DevelopmentComponent>> componentMap =
+        new ConcurrentHashMap<String, ConcurrentMap<String, DevelopmentComponent>>();
+
+    /**
+     * number of registered development components (only updated while holding the lock on this registry).
+     */
+    private volatile int size;
+
+    /**
+     * maps vendor and name of development components not registered yet to the registered development components referencing them.
      */
-    private final Map<String, DevelopmentComponent> componentMap = new HashMap<String, DevelopmentComponent>();
+    private final Map<String, Map<String, Set<DevelopmentComponent>>> unresolvedUsingDCs =
+        new HashMap<String, Map<String, Set<DevelopmentComponent>>>();
 
     /**
      * Default constructor.
@@ -36,11 +65,131 @@ public final class DevelopmentComponentFactory {
     public DevelopmentComponentFactory(final DevelopmentConfiguration developmentConfiguration) {
         for (final Compartment compartment : developmentConfiguration.getCompartments()) {
             for (final DevelopmentComponent component : compartment.getDevelopmentComponents()) {
-                componentMap.put(createComponentKey(component.getName(), component.getVendor()), component);
+                register(component);
             }
         }
     }
 
+    /**
+     * Register the given development component. Development components already referencing it are added to its using DCs, the
+     * development components it references get it added to their using DCs.
+     *
+     * @param component
+     *            development component to register.
+     */
+    private synchronized void register(final DevelopmentComponent component) {
+        ConcurrentMap<String, DevelopmentComponent> components = componentMap.get(component.getVendor());
+
+        if (components == null) {
+            components = new ConcurrentHashMap<String, DevelopmentComponent>();
+            componentMap.put(component.getVendor(), components);
+        }
+
+        if (components.put(component.getName(), component) == null) {
+            size++;
+        }
+
+        component.setRegistry(this);
+
+        final Set<DevelopmentComponent> usingDCs = removeUnresolvedUsingDCs(component.getVendor(), component.getName());
+
+        if (usingDCs != null) {
+            for (final DevelopmentComponent usingDC : usingDCs) {
+                component.addUsingDC(usingDC);
+            }
+        }
+
+        for (final PublicPartReference reference : component.getUsedDevelopmentComponents()) {
+            referenceAdded(component, reference);
+        }
+    }
+
+    /**
+     * Update the reverse index with a reference added to the given development component.
+     *
+     * @param component
+     *            registered development component the reference was added to.
+     * @param reference
+     *            the added reference.
+     */
+    synchronized void referenceAdded(final DevelopmentComponent component, final PublicPartReference reference) {
+        final DevelopmentComponent usedDC = get(reference);
+
+        if (usedDC != null) {
+            usedDC.addUsingDC(component);
+        }
+        else {
+            Map<String, Set<DevelopmentComponent>> unresolved = unresolvedUsingDCs.get(reference.getVendor());
+
+            if (unresolved == null) {
+                unresolved = new HashMap<String, Set<DevelopmentComponent>>();
+                unresolvedUsingDCs.put(reference.getVendor(), unresolved);
+            }
+
+            Set<DevelopmentComponent> usingDCs = unresolved.get(reference.getComponentName());
+
+            if (usingDCs == null) {
+                usingDCs = new LinkedHashSet<DevelopmentComponent>();
+                unresolved.put(reference.getComponentName(), usingDCs);
+            }
+
+            usingDCs.add(component);
+        }
+    }
+
+    /**
+     * Remove the given development component from the using DCs of all development components it references.
+     *
+     * @param component
+     *            registered development component whose references are about to be removed.
+     */
+    synchronized void referencesRemoved(final DevelopmentComponent component) {
+        for (final PublicPartReference reference : component.getUsedDevelopmentComponents()) {
+            final DevelopmentComponent usedDC = get(reference);
+
+            if (usedDC != null) {
+                usedDC.removeUsingDC(component);
+            }
+            else {
+                final Map<String, Set<DevelopmentComponent>> unresolved = unresolvedUsingDCs.get(reference.getVendor());
+                final Set<DevelopmentComponent> usingDCs = unresolved == null ? null : unresolved.get(reference.getComponentName());
+
+                if (usingDCs != null) {
+                    usingDCs.remove(component);
+
+                    if (usingDCs.isEmpty()) {
+                        removeUnresolvedUsingDCs(reference.getVendor(), reference.getComponentName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the registered development components referencing the development component with the given vendor and name from the reverse
+     * index of unresolved references.
+     *
+     * @param vendor
+     *            vendor of referenced development component.
+     * @param name
+     *            name of referenced development component.
+     * @return the development components referencing the development component or <code>null</code> if there are none.
+     */
+    private Set<DevelopmentComponent> removeUnresolvedUsingDCs(final String vendor, final String name) {
+        final Map<String, Set<DevelopmentComponent>> unresolved = unresolvedUsingDCs.get(vendor);
+        Set<DevelopmentComponent> usingDCs = null;
+
+        if (unresolved != null) {
+            usingDCs = unresolved.remove(name);
+
+            if (unresolved.isEmpty()) {
+                unresolvedUsingDCs.remove(vendor);
+            }
+        }
+
+        return usingDCs;
+    }
+
     /**
      * Create and register a {@link DevelopmentComponent}.
      *
@@ -56,8 +205,14 @@ public final class DevelopmentComponentFactory {
         DevelopmentComponent component = this.get(vendor, name);
 
         if (null == component) {
-            component = new DevelopmentComponent(name, vendor, type);
-            componentMap.put(createComponentKey(name, vendor), component);
+            synchronized (this) {
+                component = this.get(vendor, name);
+
+                if (null == component) {
+                    component = new DevelopmentComponent(name, vendor, type);
+                    register(component);
+                }
+            }
         }
 
         return component;
@@ -91,19 +246,6 @@ public final class DevelopmentComponentFactory {
         return component;
     }
 
-    /**
-     * Create the key for storing a development component in the registry.
-     *
-     * @param name
-     *            name to use as part of the key.
-     * @param vendor
-     *            vendor to use as part of the key.
-     * @return the concatenation of the given vendor, ':' and the given component name.
-     */
-    private String createComponentKey(final String name, final String vendor) {
-        return vendor + ":" + name;
-    }
-
     /**
      * Create and register a development component. If the development component is already registered the existing object will be returned.
      *
@@ -118,13 +260,16 @@ public final class DevelopmentComponentFactory {
     }
 
     /**
-     * Return all registered development components.
+     * Return all registered development components. Development components created or removed concurrently may or may not be contained.
      *
      * @return a collection of all registered development components.
      */
     public Collection<DevelopmentComponent> getAll() {
-        final Collection<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>(componentMap.size());
-        components.addAll(componentMap.values());
+        final Collection<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>(size);
+
+        for (final ConcurrentMap<String, DevelopmentComponent> vendorComponents : componentMap.values()) {
+            components.addAll(vendorComponents.values());
+        }
 
         return components;
     }
@@ -132,35 +277,31 @@ public final class DevelopmentComponentFactory {
     /**
      * Update the using DCs for all registered DCs.
      *
-     * For each registered development component the list of public parts it references will be iterated. The respective development
-     * component will be looked up and the currently worked on DC will be added to its using DCs.
+     * The using DCs are maintained incrementally when development components are created or removed or references are added to them.
+     * This method only adds relations for references that were added to development components before they were registered with this
+     * factory. It visits every reference once, i.e. takes time proportional to the number of references.
      */
-    public void updateUsingDCs() {
-        for (final DevelopmentComponent component : componentMap.values()) {
-            this.updateUsingDCs(component);
+    public synchronized void updateUsingDCs() {
+        for (final ConcurrentMap<String, DevelopmentComponent> vendorComponents : componentMap.values()) {
+            for (final DevelopmentComponent component : vendorComponents.values()) {
+                for (final PublicPartReference reference : component.getUsedDevelopmentComponents()) {
+                    final DevelopmentComponent usedDC = get(reference);
+
+                    if (usedDC != null) {
+                        usedDC.addUsingDC(component);
+                    }
+                }
+            }
         }
     }
 
     /**
-     * Updates the using DCs for the given DC.
+     * Create a snapshot of the dependency graph of the registered development components.
      *
-     * @param root
-     *            development component whose using DCs are to be updated.
+     * @return a read optimized snapshot of the dependency graph of the registered development components.
      */
-    private void updateUsingDCs(final DevelopmentComponent root) {
-        for (final DevelopmentComponent dc : componentMap.values()) {
-            final Collection<PublicPartReference> references = dc.getUsedDevelopmentComponents();
-
-            for (final PublicPartReference reference : references) {
-                if (reference.references(root)) {
-                    root.addUsingDC(dc);
-
-                    if (dc.getUsingDevelopmentComponents().isEmpty()) {
-                        this.updateUsingDCs(dc);
-                    }
-                }
-            }
-        }
+    public synchronized DevelopmentComponentGraph createGraph() {
+        return new DevelopmentComponentGraph(this, getAll());
     }
 
     /**
@@ -173,7 +314,9 @@ public final class DevelopmentComponentFactory {
      * @return the development component asked for or <code>null</code> if it is not registered.
      */
     public DevelopmentComponent get(final String vendor, final String name) {
-        return componentMap.get(createComponentKey(name, vendor));
+        final ConcurrentMap<String, DevelopmentComponent> components = componentMap.get(vendor);
+
+        return components == null ? null : components.get(name);
     }
 
     /**
@@ -184,7 +327,7 @@ public final class DevelopmentComponentFactory {
      * @return the development component asked for or <code>null</code> if it is not registered.
      */
     public DevelopmentComponent get(final PublicPartReference ppRef) {
-        return componentMap.get(createComponentKey(ppRef.getComponentName(), ppRef.getVendor()));
+        return get(ppRef.getVendor(), ppRef.getComponentName());
     }
 
     /**
@@ -193,8 +336,40 @@ public final class DevelopmentComponentFactory {
      * @param component
      *            the development component to be removed from this registry.
      */
-    public void remove(final DevelopmentComponent component) {
-        componentMap.remove(createComponentKey(component.getName(), component.getVendor()));
+    public synchronized void remove(final DevelopmentComponent component) {
+        final ConcurrentMap<String, DevelopmentComponent> components = componentMap.get(component.getVendor());
+        final DevelopmentComponent registered = components == null ? null : components.remove(component.getName());
+
+        if (registered != null) {
+            size--;
+
+            if (components.isEmpty()) {
+                componentMap.remove(component.getVendor());
+            }
+
+            referencesRemoved(registered);
+            registered.setRegistry(null);
+
+            if (!registered.getUsingDevelopmentComponents().isEmpty()) {
+                final Set<DevelopmentComponent> usingDCs = new LinkedHashSet<DevelopmentComponent>();
+
+                for (final DevelopmentComponent usingDC : registered.getUsingDevelopmentComponents()) {
+                    if (usingDC == get(usingDC.getVendor(), usingDC.getName())) {
+                        usingDCs.add(usingDC);
+                    }
+                }
+
+                Map<String, Set<DevelopmentComponent>> unresolved = unresolvedUsingDCs.get(component.getVendor());
+
+                if (unresolved == null) {
+                    unresolved = new HashMap<String, Set<DevelopmentComponent>>();
+                    unresolvedUsingDCs.put(component.getVendor(), unresolved);
+                }
+
+                unresolved.put(component.getName(), usingDCs);
+            }
+        }
+
         final Compartment compartment = component.getCompartment();
 
         if (compartment != null) {
@@ -0,0 +1,285 @@
+/**
+ *
+ */
+package org.arachna.netweaver.dc.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read optimized snapshot of the dependency graph of the development components registered with a {@link DevelopmentComponentFactory}.
+ *
+ * Every development component is identified by a dense integer id (<code>0</code> to <code>size() - 1</code>). The used and using
+ * relations are stored in compressed sparse row format: for each relation one array holds the ids of the related development components
+ * grouped by development component, a second array holds the offset of each group. Traversals thus work on arrays of integers instead of
+ * looking up development components by vendor and name.
+ *
+ * Used relations are determined from the public part references of the development components. References to development components
+ * that are not registered are ignored. The using relation is the inverse of the used relation. The snapshot does not change when
+ * development components or references are added or removed later.
+ *
+ * @author Dirk Weigenand
+ */
+public final class DevelopmentComponentGraph {
+    /**
+     * development components mapped by their id.
+     */
+    private final DevelopmentComponent[] components;
+
+    /**
+     * ids of development components mapped by development component.
+     */
+    private final Map<DevelopmentComponent, Integer> ids;
+
+    /**
+     * offsets of the used development components of each development component into {@link #used}. The used development components of
+     * the development component with id <code>i</code> are stored from <code>usedOffsets[i]</code> to <code>usedOffsets[i + 1]</code>.
+     */
+    private final int[] usedOffsets;
+
+    /**
+     * ids of used development components grouped by using development component.
+     */
+    private final int[] used;
+
+    /**
+     * offsets of the using development components of each development component into {@link #using}.
+     */
+    private final int[] usingOffsets;
+
+    /**
+     * ids of using development components grouped by used development component.
+     */
+    private final int[] using;
+
+    /**
+     * Create a snapshot of the dependency graph of the given development components.
+     *
+     * @param registry
+     *            registry to resolve public part references with.
+     * @param registered
+     *            development components registered with the given registry.
+     */
+    DevelopmentComponentGraph(final DevelopmentComponentFactory registry, final Collection<DevelopmentComponent> registered) {
+        final int size = registered.size();
+        components = new DevelopmentComponent[size];
+        ids = new HashMap<DevelopmentComponent, Integer>(size * 2);
+
+        int id = 0;
+
+        for (final DevelopmentComponent component : registered) {
+            components[id] = component;
+            ids.put(component, Integer.valueOf(id));
+            id++;
+        }
+
+        usedOffsets = new int[size + 1];
+        final int[] visited = new int[size];
+        int[] usedIds = new int[size];
+        int edges = 0;
+
+        for (int i = 0; i < size; i++) {
+            usedOffsets[i] = edges;
+
+            for (final PublicPartReference reference : components[i].getUsedDevelopmentComponents()) {
+                final Integer usedId = ids.get(registry.get(reference));
+
+                // visited holds the id (plus one) of the development component whose used DCs were collected last.
+                if (usedId != null && visited[usedId.intValue()] != i + 1) {
+                    visited[usedId.intValue()] = i + 1;
+
+                    if (edges == usedIds.length) {
+                        usedIds = Arrays.copyOf(usedIds, Math.max(1, 2 * edges));
+                    }
+
+                    usedIds[edges++] = usedId.intValue();
+                }
+            }
+        }
+
+        usedOffsets[size] = edges;
+        used = Arrays.copyOf(usedIds, edges);
+
+        usingOffsets = new int[size + 1];
+        using = new int[used.length];
+
+        for (final int usedId : used) {
+            usingOffsets[usedId + 1]++;
+        }
+
+        for (int i = 0; i < size; i++) {
+            usingOffsets[i + 1] += usingOffsets[i];
+        }
+
+        final int[] next = new int[size];
+        System.arraycopy(usingOffsets, 0, next, 0, size);
+
+        for (int i = 0; i < size; i++) {
+            for (int edge = usedOffsets[i]; edge < usedOffsets[i + 1]; edge++) {
+                using[next[used[edge]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of development components in this graph.
+     *
+     * @return number of development components in this graph.
+     */
+    public int size() {
+        return components.length;
+    }
+
+    /**
+     * Returns the id of the given development component.
+     *
+     * @param component
+     *            development component.
+     * @return id of the given development component or <code>-1</code> when it is not part of this graph.
+     */
+    public int getId(final DevelopmentComponent component) {
+        final Integer id = ids.get(component);
+
+        return id == null ? -1 : id.intValue();
+    }
+
+    /**
+     * Returns the development component with the given id.
+     *
+     * @param id
+     *            id of development component.
+     * @return the development component with the given id.
+     */
+    public DevelopmentComponent getComponent(final int id) {
+        return components[id];
+    }
+
+    /**
+     * Returns the number of development components used by the development component with the given id.
+     *
+     * @param id
+     *            id of development component.
+     * @return number of development components used by the development component with the given id.
+     */
+    public int getUsedCount(final int id) {
+        return usedOffsets[id + 1] - usedOffsets[id];
+    }
+
+    /**
+     * Returns the id of a development component used by the development component with the given id.
+     *
+     * @param id
+     *            id of development component.
+     * @param index
+     *            index of the used development component (<code>0</code> to <code>getUsedCount(id) - 1</code>).
+     * @return id of the used development component.
+     */
+    public int getUsed(final int id, final int index) {
+        return used[usedOffsets[id] + index];
+    }
+
+    /**
+     * Returns the number of development components using the development component with the given id.
+     *
+     * @param id
+     *            id of development component.
+     * @return number of development components using the development component with the given id.
+     */
+    public int getUsingCount(final int id) {
+        return usingOffsets[id + 1] - usingOffsets[id];
+    }
+
+    /**
+     * Returns the id of a development component using the development component with the given id.
+     *
+     * @param id
+     *            id of development component.
+     * @param index
+     *            index of the using development component (<code>0</code> to <code>getUsingCount(id) - 1</code>).
+     * @return id of the using development component.
+     */
+    public int getUsing(final int id, final int index) {
+        return using[usingOffsets[id] + index];
+    }
+
+    /**
+     * Determine the ids of the given development components and all development components using them directly or transitively.
+     *
+     * @param roots
+     *            development components to start from. Development components not part of this graph are ignored.
+     * @return ids of the given development components and all development components using them.
+     */
+    public BitSet getUsingClosure(final Collection<DevelopmentComponent> roots) {
+        final BitSet closure = new BitSet(components.length);
+        final int[] stack = new int[components.length];
+        int top = 0;
+
+        for (final DevelopmentComponent root : roots) {
+            final int id = getId(root);
+
+            if (id != -1 && !closure.get(id)) {
+                closure.set(id);
+                stack[top++] = id;
+            }
+
+            while (top > 0) {
+                final int current = stack[--top];
+
+                for (int edge = usingOffsets[current]; edge < usingOffsets[current + 1]; edge++) {
+                    if (!closure.get(using[edge])) {
+                        closure.set(using[edge]);
+                        stack[top++] = using[edge];
+                    }
+                }
+            }
+        }
+
+        return closure;
+    }
+
+    /**
+     * Determine the ids of the development components directly used by the given development components.
+     *
+     * @param components
+     *            development components whose used development components are requested. Development components not part of this graph
+     *            are ignored.
+     * @return ids of the development components used by the given development components.
+     */
+    public BitSet getUsed(final Collection<DevelopmentComponent> components) {
+        final BitSet usedIds = new BitSet(this.components.length);
+
+        for (final DevelopmentComponent component : components) {
+            final int id = getId(component);
+
+            if (id != -1) {
+                for (int edge = usedOffsets[id]; edge < usedOffsets[id + 1]; edge++) {
+                    usedIds.set(used[edge]);
+                }
+            }
+        }
+
+        return usedIds;
+    }
+
+    /**
+     * Returns the development components with the given ids in the order of their ids.
+     *
+     * @param idSet
+     *            ids of development components.
+     * @return development components with the given ids.
+     */
+    public List<DevelopmentComponent> getComponents(final BitSet idSet) {
+        final List<DevelopmentComponent> result = new ArrayList<DevelopmentComponent>(idSet.cardinality());
+
+        for (int id = idSet.nextSetBit(0); id >= 0; id = idSet.nextSetBit(id + 1)) {
+            result.add(components[id]);
+        }
+
+        return result;
+    }
+}
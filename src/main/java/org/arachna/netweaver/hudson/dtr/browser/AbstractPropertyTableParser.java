@@ -0,0 +1,72 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for parsers of DTR detail pages (resources, activities). Collects the values of the property table, i.e. the first table
+ * following the horizontal rule below the page's header.
+ *
+ * @author Dirk Weigenand
+ */
+abstract class AbstractPropertyTableParser extends AbstractResourceParser {
+    /**
+     * texts of the data cells of the property table (property names and values alternating).
+     */
+    private final List<String> values = new ArrayList<String>();
+
+    /**
+     * number of the property table (<code>-1</code> as long as it has not been found).
+     */
+    private int propertyTable = -1;
+
+    /**
+     * Collects the cells of the property table.
+     *
+     * @param row
+     *            a table row read from the report.
+     */
+    @Override
+    public void row(final HtmlTableRow row) {
+        if (propertyTable == -1 && row.isAfterRule() && row.getTableDepth() == 1) {
+            propertyTable = row.getTableNumber();
+        }
+
+        if (propertyTable == row.getTableNumber()) {
+            for (final HtmlTableRow.Cell cell : row.getCells()) {
+                values.add(cell.getText());
+            }
+        }
+    }
+
+    /**
+     * Verifies that the property table contains the expected count of cells and updates the parsed object.
+     */
+    @Override
+    final void parseInternal() {
+        if (values.size() < getExpectedNodeLen()) {
+            throw new IllegalStateException(String.format("%s did not find expected count of properties (%d < %d)!", getClass()
+                .getSimpleName(), values.size(), getExpectedNodeLen()));
+        }
+
+        parseInternal(values);
+    }
+
+    /**
+     * Extracts the texts of the property table's cells.
+     *
+     * @param values
+     *            texts of the property table's data cells (property names and values alternating).
+     */
+    abstract void parseInternal(List<String> values);
+
+    /**
+     * Return the minimum count of cells one can expect in the property table.
+     *
+     * @return minimum count of cells in the property table.
+     */
+    abstract int getExpectedNodeLen();
+}
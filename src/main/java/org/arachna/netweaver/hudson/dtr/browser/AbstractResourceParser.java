@@ -5,83 +5,70 @@ package org.arachna.netweaver.hudson.dtr.browser;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
-
-import org.jaxen.JaxenException;
-import org.jaxen.dom.DOMXPath;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 
 /**
  * Base class for resource parsers. Implements logic common to all parsers extracting information read from the DTR.
- * 
+ *
+ * The report is scanned using a {@link HtmlReportScanner}. Subclasses receive links and table rows as they are read and should override
+ * {@link #link(String, String)} and/or {@link #row(HtmlTableRow)} accordingly.
+ *
  * @author Dirk Weigenand
  */
-abstract class AbstractResourceParser {
+abstract class AbstractResourceParser implements HtmlReportHandler {
+    /**
+     * scanner reading the report currently being parsed.
+     */
+    private HtmlReportScanner scanner;
+
     /**
      * Parses the given <code>InputStream</code> and updates the activities details.
-     * 
+     *
      * @param content
      *            of the activities detail HTML page.
      */
     final void parse(final InputStream content) {
-        final Document document = JTidyHelper.getDocument(content);
-
         try {
-            content.close();
-            final DOMXPath xPath = new DOMXPath(getXPath());
-
-            final List selectedNodes = xPath.selectNodes(document);
-
-            if (selectedNodes.size() < getExpectedNodeLen()) {
-                throw new IllegalStateException(String.format("%s did not yield expected node count!", getXPath()));
+            try {
+                scanner = new HtmlReportScanner(this);
+                scanner.scan(content);
+            }
+            finally {
+                scanner = null;
+                content.close();
             }
-
-            parseInternal(selectedNodes);
-        }
-        catch (final JaxenException e) {
-            throw new IllegalStateException(e);
         }
         catch (final IOException e) {
             throw new IllegalStateException(e);
         }
+
+        parseInternal();
     }
 
     /**
-     * Extracts the node's value as text at the given index.
-     * 
-     * @param nodes
-     *            a list of {@link Node} objects representing a XPath selection result.
-     * @param index
-     *            index into the list of nodes
-     * 
-     * @return node's value as text at the given index.
+     * {@inheritDoc}
      */
-    protected final String nodeValueAt(final List<Object> nodes, final int index) {
-        final Node textNode = ((Node)nodes.get(index)).getFirstChild();
-
-        return textNode == null ? "" : textNode.getNodeValue();
+    public void link(final String href, final String text) {
     }
 
     /**
-     * Extract resources from the given list of nodes.
-     * 
-     * @param nodes
-     *            list of selected nodes
+     * {@inheritDoc}
      */
-    abstract void parseInternal(List nodes);
+    public void row(final HtmlTableRow row) {
+    }
 
     /**
-     * Get the XPath to use extracting resources.
-     * 
-     * @return XPath to use extracting resources.
+     * Stop scanning the report when the information needed has been read. The
+     * remainder of the report is skipped.
      */
-    abstract String getXPath();
+    void stopScanning() {
+        if (scanner != null) {
+            scanner.stop();
+        }
+    }
 
     /**
-     * Return the minimum count of nodes one can expect when applying the XPath expression returned by {@see #getXPath()}.
-     * 
-     * @return minimum count of nodes selected by getXPath().
+     * Called after the report has been scanned completely. Does nothing by default.
      */
-    abstract int getExpectedNodeLen();
+    void parseInternal() {
+    }
 }
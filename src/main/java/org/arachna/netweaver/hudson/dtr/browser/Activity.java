@@ -55,6 +55,12 @@ public final class Activity {
      */
     private final Map<String, String> activityUrlParams = new LinkedHashMap<String, String>();
 
+    /**
+     * Maps workspaces (paths without leading or trailing '/') this activity was integrated into to the respective integration sequence
+     * numbers.
+     */
+    private final Map<String, Integer> integrationSequenceNumbers = new LinkedHashMap<String, Integer>();
+
     /**
      * Create an instance of an <code>Activity</code> using the principal that created it, its description and checkin date. Also contains
      * the relative URL where the content of the activity can be browsed.
@@ -185,6 +191,49 @@ public final class Activity {
         }
     }
 
+    /**
+     * Register the integration of this activity into the given workspace.
+     * 
+     * @param workspace
+     *            path of workspace this activity was integrated into.
+     * @param integrationSequenceNumber
+     *            the integration sequence number in the given workspace.
+     */
+    void addIntegration(final String workspace, final Integer integrationSequenceNumber) {
+        integrationSequenceNumbers.put(normalizeWorkspace(workspace), integrationSequenceNumber);
+    }
+
+    /**
+     * Returns the integration sequence number of this activity in the given workspace.
+     * 
+     * @param workspace
+     *            path of workspace (leading or trailing '/' are ignored).
+     * @return the integration sequence number of this activity in the given workspace or <code>null</code> when it is not known.
+     */
+    public Integer getIntegrationSequenceNumber(final String workspace) {
+        return integrationSequenceNumbers.get(normalizeWorkspace(workspace));
+    }
+
+    /**
+     * Returns the integration sequence numbers of this activity mapped by the path of the workspace it was integrated into.
+     *
+     * @return unmodifiable map of integration sequence numbers mapped by workspace path.
+     */
+    Map<String, Integer> getIntegrationSequenceNumbers() {
+        return Collections.unmodifiableMap(integrationSequenceNumbers);
+    }
+
+    /**
+     * Remove leading and trailing '/' from the given workspace path.
+     * 
+     * @param workspace
+     *            path of workspace.
+     * @return the workspace path without leading and trailing '/'.
+     */
+    private static String normalizeWorkspace(final String workspace) {
+        return StringUtils.strip(workspace, "/");
+    }
+
     /**
      * Return an unmodifiable collection of this activity's resources.
      * 
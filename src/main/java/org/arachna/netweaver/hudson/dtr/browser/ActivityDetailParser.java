@@ -4,22 +4,33 @@
 package org.arachna.netweaver.hudson.dtr.browser;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Parser for an activity detail HTML page.
  * 
  * @author Dirk Weigenand
  */
-final class ActivityDetailParser extends AbstractResourceParser {
+final class ActivityDetailParser extends AbstractPropertyTableParser {
     /**
      * index of long description in details table.
      */
     private static final int LONG_DESCRIPTION = 15;
 
     /**
-     * XPath expression for selecting the <td>s of the activity's properties.
+     * index of cell containing the workspace of an integration.
      */
-    private static final String XPATH = "/html/body/table[3]/tr/td";
+    private static final int INTEGRATION_WORKSPACE = 0;
+
+    /**
+     * index of cell containing the integration sequence number of an integration.
+     */
+    private static final int INTEGRATION_SEQUENCE_NUMBER = 1;
+
+    /**
+     * Pattern matching integration sequence numbers.
+     */
+    private static final Pattern ISN_PATTERN = Pattern.compile("^\\d+$");
 
     /**
      * {@link Activity} to update.
@@ -37,19 +48,35 @@ final class ActivityDetailParser extends AbstractResourceParser {
     }
 
     /**
-     * Updates the activity's long description.
+     * Collects the property table and registers the integrations listed in the table nested into the property table with the
+     * activity.
      * 
-     * @param nodes
-     *            list of nodes containing an activity's details.
+     * @param row
+     *            a table row read from the report.
      */
     @Override
-    void parseInternal(final List nodes) {
-        activity.setDescription(nodeValueAt(nodes, LONG_DESCRIPTION));
+    public void row(final HtmlTableRow row) {
+        super.row(row);
+
+        if (row.getTableDepth() > 1 && row.isAfterRule() && row.size() > INTEGRATION_SEQUENCE_NUMBER) {
+            final HtmlTableRow.Link workspace = row.getCell(INTEGRATION_WORKSPACE).getFirstLink();
+            final String isn = row.getCell(INTEGRATION_SEQUENCE_NUMBER).getText();
+
+            if (workspace != null && workspace.getText().startsWith("/ws/") && ISN_PATTERN.matcher(isn).matches()) {
+                activity.addIntegration(workspace.getText(), Integer.valueOf(isn));
+            }
+        }
     }
 
+    /**
+     * Updates the activity's long description.
+     * 
+     * @param values
+     *            texts of the property table cells containing an activity's details.
+     */
     @Override
-    String getXPath() {
-        return XPATH;
+    void parseInternal(final List<String> values) {
+        activity.setDescription(values.get(LONG_DESCRIPTION));
     }
 
     /**
@@ -57,6 +84,6 @@ final class ActivityDetailParser extends AbstractResourceParser {
      */
     @Override
     int getExpectedNodeLen() {
-        return LONG_DESCRIPTION;
+        return LONG_DESCRIPTION + 1;
     }
 }
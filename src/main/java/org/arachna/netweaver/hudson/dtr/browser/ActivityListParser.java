@@ -6,12 +6,11 @@ package org.arachna.netweaver.hudson.dtr.browser;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-
-import org.jaxen.JaxenException;
-import org.jaxen.dom.DOMXPath;
-import org.w3c.dom.Node;
+import java.util.Set;
 
 /**
  * Parser for a DTR activity list.
@@ -28,10 +27,29 @@ final class ActivityListParser extends AbstractResourceParser {
     static final String ACTIVITY_DATE_FORMAT = "dd.MM.yyyy HH:mm:ss z";
 
     /**
-     * XPath expression for extracting activities.
+     * prefix of links to details of an activity.
      */
-    private static final String XPATH =
-        "//a[starts-with(@href, '/dtr/system-tools/reports/ResourceDetails?') and contains(@href, 'path=/act/')]/../..";
+    private static final String ACTIVITY_LINK_PREFIX = "/dtr/system-tools/reports/ResourceDetails?";
+
+    /**
+     * marker for links to details of an activity.
+     */
+    private static final String ACTIVITY_PATH_MARKER = "path=/act/";
+
+    /**
+     * index of cell containing the link to the activity and its short description.
+     */
+    private static final int ACTIVITY_CELL = 0;
+
+    /**
+     * index of cell containing the link to the activity's principal.
+     */
+    private static final int PRINCIPAL_CELL = 2;
+
+    /**
+     * index of cell containing the activity's check in date.
+     */
+    private static final int CHECK_IN_DATE_CELL = 3;
 
     /**
      * List of extracted activities.
@@ -49,35 +67,24 @@ final class ActivityListParser extends AbstractResourceParser {
     };
 
     /**
-     * date parser for check in times.
+     * paths of activities already known. Scanning stops at the first known activity (may be empty).
      */
-    private final SimpleDateFormat dateParser = new SimpleDateFormat(ACTIVITY_DATE_FORMAT);
+    private final Set<String> knownActivities = new HashSet<String>();
 
     /**
-     * XPath for matching check in dates.
+     * whether scanning should stop after the first activity has been read.
      */
-    private DOMXPath checkInDateXPath;
+    private boolean stopAtFirstActivity;
 
     /**
-     * XPath for matching the short description of an activity.
-     */
-    private DOMXPath commentXPath;
-
-    /**
-     * XPath for matching the principal of an activity.
-     */
-    private DOMXPath principalXPath;
-
-    /**
-     * XPath for matching check in dates.
+     * date parser for check in times.
      */
-    private DOMXPath activityXPath;
+    private final SimpleDateFormat dateParser = new SimpleDateFormat(ACTIVITY_DATE_FORMAT);
 
     /**
      * Create an instance of an {@link ActivityListParser}.
      */
     ActivityListParser() {
-        setUpXPaths();
     }
 
     /**
@@ -94,138 +101,125 @@ final class ActivityListParser extends AbstractResourceParser {
         }
 
         this.activityFilter = activityFilter;
-        setUpXPaths();
     }
 
     /**
-     * Initialize XPath expression used later on to extract details of activities.
+     * Create an instance of an {@link ActivityListParser} that reads at most the first activity of the list.
+     * 
+     * The DTR lists activities ordered by their last modification, most recent first. When the first activity is not accepted by the
+     * given filter, none of the following activities would be either. So reading the first activity is sufficient to determine whether
+     * there are any activities matching the filter (e.g. when polling).
+     * 
+     * @param activityFilter
+     *            the {@link ActivityFilter} to be used.
+     * @param stopAtFirstActivity
+     *            whether scanning should stop after the first activity has been read.
      */
-    private void setUpXPaths() {
-        try {
-            commentXPath = new DOMXPath("td[1]/a");
-            principalXPath = new DOMXPath("td[3]/a");
-            checkInDateXPath = new DOMXPath("td[4]/text()");
-            activityXPath = new DOMXPath("td[1]/a/@href");
-        }
-        catch (final JaxenException e) {
-            throw new IllegalStateException(e);
-        }
+    ActivityListParser(final ActivityFilter activityFilter, final boolean stopAtFirstActivity) {
+        this(activityFilter);
+        this.stopAtFirstActivity = stopAtFirstActivity;
     }
 
     /**
-     * Create an instance of an {@link Activity} from the given {@link org.w3c.dom.Node}.
+     * Create an instance of an {@link ActivityListParser} that reads only activities newer than the given ones.
      * 
-     * @param node
-     *            the node the activity's data should be read from.
-     * @return the activity extracted from the given node.
-     * @throws JaxenException
-     *             when there was an error evaluating the XPath expressions used to extract the data
-     * @throws ParseException
-     *             when there was an error parsing the activity's date.
+     * The DTR lists activities ordered by their last modification, most recent first. So scanning stops at the first activity already
+     * contained in the given collection and the remainder of the list is skipped.
+     * 
+     * @param activityFilter
+     *            the {@link ActivityFilter} to be used.
+     * @param knownActivities
+     *            activities already read from the activity list.
      */
-    private Activity createActivity(final Node node) throws JaxenException, ParseException {
-    	if ("".equals(checkInDateXPath.stringValueOf(node))) {
-    		// filter empty dates
-    		return null;
-    	}
-    	
-        return new Activity(getActivityUrl(node), getPrincipal(node), getComment(node), getCheckInDate(node));
-    }
+    ActivityListParser(final ActivityFilter activityFilter, final Collection<Activity> knownActivities) {
+        this(activityFilter);
 
-    /**
-     * Get the short description from the given node.
-     * 
-     * @param node
-     *            the node the short description should be read from.
-     * @return the short description extracted from the given node.
-     * @throws JaxenException
-     *             when there was an error evaluating the XPath expressions used to extract the data
-     */
-    private String getComment(final Node node) throws JaxenException {
-        return commentXPath.stringValueOf(node);
+        for (final Activity activity : knownActivities) {
+            this.knownActivities.add(activity.getActivityPath());
+        }
     }
 
     /**
-     * Get the check in date from the given node.
+     * Create an instance of an {@link Activity} from the given table row.
      * 
-     * @param node
-     *            the node the activity's check in date should be read from.
-     * @return the check in date extracted from the given node.
-     * @throws JaxenException
-     *             when there was an error evaluating the XPath expressions used to extract the data
+     * @param row
+     *            the table row the activity's data should be read from.
+     * @return the activity extracted from the given row or <code>null</code> if the row does not describe an activity.
      * @throws ParseException
      *             when there was an error parsing the activity's date.
      */
-    private Date getCheckInDate(final Node node) throws JaxenException, ParseException {
-        return dateParser.parse(checkInDateXPath.stringValueOf(node));
+    private Activity createActivity(final HtmlTableRow row) throws ParseException {
+        if (row.size() <= CHECK_IN_DATE_CELL) {
+            return null;
+        }
+
+        final HtmlTableRow.Link activityLink = row.getCell(ACTIVITY_CELL).getFirstLink();
+
+        if (activityLink == null || !isActivityLink(activityLink.getHref())) {
+            return null;
+        }
+
+        final String checkInDate = row.getCell(CHECK_IN_DATE_CELL).getText();
+
+        if ("".equals(checkInDate)) {
+            // filter empty dates
+            return null;
+        }
+
+        return new Activity(activityLink.getHref(), getPrincipal(row), activityLink.getText(), dateParser.parse(checkInDate));
     }
 
     /**
-     * Get the UME principal's name of the activity from the given node.
+     * Determines whether the given link target points to the details of an activity.
      * 
-     * @param node
-     *            the node the UME princiapl's name should be read from.
-     * @return the UME principal's name extracted from the given node.
-     * @throws JaxenException
-     *             when there was an error evaluating the XPath expressions used to extract the data
-     */
-    private Principal getPrincipal(final Node node) throws JaxenException {
-        return new Principal(principalXPath.stringValueOf(node).replace("/principals/", ""));
+     * @param href
+     *            link target to examine.
+     * @return <code>true</code> when the link points to the details of an activity, <code>false</code> otherwise.
+     */
+    private boolean isActivityLink(final String href) {
+        return href.startsWith(ACTIVITY_LINK_PREFIX) && href.contains(ACTIVITY_PATH_MARKER);
     }
 
     /**
-     * Get the activity's url from the given node.
+     * Get the UME principal's name of the activity from the given row.
      * 
-     * @param node
-     *            the node the activity's url should be read from.
-     * @return the activity's url extracted from the given node.
-     * @throws JaxenException
-     *             when there was an error evaluating the XPath expressions used to extract the data
-     */
-    private String getActivityUrl(final Node node) throws JaxenException {
-        return activityXPath.stringValueOf(node);
+     * @param row
+     *            the row the UME principal's name should be read from.
+     * @return the UME principal's name extracted from the given row.
+     */
+    private Principal getPrincipal(final HtmlTableRow row) {
+        final HtmlTableRow.Link principalLink = row.getCell(PRINCIPAL_CELL).getFirstLink();
+
+        return new Principal(principalLink == null ? "" : principalLink.getText().replace("/principals/", ""));
     }
 
     /**
-     * Extract activities from the given {@link java.io.InputStream}.
+     * Extract an activity from the given table row and add it to the list of activities if it is accepted by the {@link ActivityFilter}.
+     * Scanning stops at the first known activity or, when configured, after the first activity.
      * 
-     * @param nodes
-     *            extracted from activity list.
+     * @param row
+     *            table row read from activity list.
      */
     @Override
-    void parseInternal(final List nodes) {
-        Node node;
-        Activity activity;
-
+    public void row(final HtmlTableRow row) {
         try {
-            for (final Object returnValue : nodes) {
-                node = (Node)returnValue;
-                activity = createActivity(node);
+            final Activity activity = createActivity(row);
+
+            if (activity != null) {
+                final boolean known = knownActivities.contains(activity.getActivityPath());
 
-                if (activity != null && activityFilter.accept(activity)) {
+                if (!known && activityFilter.accept(activity)) {
                     activities.add(activity);
                 }
+
+                if (known || stopAtFirstActivity) {
+                    stopScanning();
+                }
             }
         }
         catch (final ParseException e) {
             throw new IllegalStateException(e);
         }
-        catch (final JaxenException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
-    @Override
-    String getXPath() {
-        return XPATH;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    int getExpectedNodeLen() {
-        return 0;
     }
 
     /**
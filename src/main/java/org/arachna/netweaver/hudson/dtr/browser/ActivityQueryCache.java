@@ -0,0 +1,207 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short lived cache for the activity lists read from the DTR's activity query report.
+ *
+ * A poll reading the activities of a compartment is usually followed by a checkout reading the same list again. Entries are keyed by
+ * the URL of the activity query (i.e. track, compartment and integration sequence number) and remember the date activities were read
+ * after. A cached list is used by queries for activities checked in after the same or a later date only, so the checkout benefits from
+ * a poll even when both use different dates. It lets the next query read only the activities added since (see
+ * {@link ActivityListParser#ActivityListParser(ActivityFilter, java.util.Collection)}). Refreshing an entry this way keeps its original
+ * time of creation, so every entry expires after the configured time to live.
+ *
+ * Only the data read from the activity list and the integration sequence numbers of the activities are cached. Every lookup returns
+ * new {@link Activity} objects, so details and resources added to activities by a checkout never leak into other queries.
+ *
+ * @author Dirk Weigenand
+ */
+final class ActivityQueryCache {
+    /**
+     * Name of system property configuring the time in seconds cached activity lists are valid (<code>0</code> disables the cache).
+     */
+    static final String TTL_PROPERTY = "nwdibuild.dtr.activity.cache.ttl";
+
+    /**
+     * default time in seconds cached activity lists are valid.
+     */
+    private static final int DEFAULT_TTL = 300;
+
+    /**
+     * cached activity lists mapped by URL of activity query.
+     */
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Utility class, no instances.
+     */
+    private ActivityQueryCache() {
+    }
+
+    /**
+     * Returns the activities cached for the given query that were checked in after the given date.
+     *
+     * @param queryUrl
+     *            URL of activity query (identifies track, compartment and integration sequence number).
+     * @param since
+     *            date after which activities are to be read (may be <code>null</code>).
+     * @return new activities created from the cached data or <code>null</code> when there is no (valid) entry for the given query
+     *         covering the given date.
+     */
+    static List<Activity> get(final String queryUrl, final Date since) {
+        purge();
+
+        final Entry entry = ENTRIES.get(queryUrl);
+
+        return entry == null || !entry.covers(since) ? null : entry.getActivities(new ActivityCheckinDateFilter(since));
+    }
+
+    /**
+     * Cache the given activities. An entry for the same query covering the given date is refreshed, i.e. keeps its time of creation.
+     *
+     * @param queryUrl
+     *            URL of activity query (identifies track, compartment and integration sequence number).
+     * @param since
+     *            date after which the activities were read (may be <code>null</code>).
+     * @param activities
+     *            activities read from the activity query report.
+     */
+    static void put(final String queryUrl, final Date since, final List<Activity> activities) {
+        if (getTimeToLive() > 0) {
+            final Entry previous = ENTRIES.get(queryUrl);
+            final long created = previous == null || !previous.covers(since) ? System.currentTimeMillis() : previous.created;
+
+            ENTRIES.put(queryUrl, new Entry(created, since, activities));
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    /**
+     * Remove expired entries.
+     */
+    private static void purge() {
+        final long expired = System.currentTimeMillis() - getTimeToLive();
+
+        for (final Iterator<Entry> entries = ENTRIES.values().iterator(); entries.hasNext();) {
+            if (entries.next().created <= expired) {
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds cached activity lists are valid.
+     *
+     * @return time in milliseconds cached activity lists are valid.
+     */
+    private static long getTimeToLive() {
+        return TimeUnit.SECONDS.toMillis(Integer.getInteger(TTL_PROPERTY, DEFAULT_TTL));
+    }
+
+    /**
+     * Cached activity list.
+     *
+     * @author Dirk Weigenand
+     */
+    private static final class Entry {
+        /**
+         * time this entry was created.
+         */
+        private final long created;
+
+        /**
+         * date after which the cached activities were read (<code>null</code> when they were not filtered by date).
+         */
+        private final Date since;
+
+        /**
+         * the cached activities.
+         */
+        private final List<Activity> activities = new ArrayList<Activity>();
+
+        /**
+         * Create an entry for the given activities.
+         *
+         * @param created
+         *            time this entry was created.
+         * @param since
+         *            date after which the activities were read (may be <code>null</code>).
+         * @param activities
+         *            activities read from the activity query report.
+         */
+        Entry(final long created, final Date since, final List<Activity> activities) {
+            this.created = created;
+            this.since = since == null ? null : new Date(since.getTime());
+
+            for (final Activity activity : activities) {
+                this.activities.add(copy(activity));
+            }
+        }
+
+        /**
+         * Determine whether this entry contains all activities checked in after the given date.
+         *
+         * @param date
+         *            date after which activities are to be read (may be <code>null</code>).
+         * @return <code>true</code> when the cached activities were read after the same or an earlier date, <code>false</code>
+         *         otherwise.
+         */
+        boolean covers(final Date date) {
+            return since == null || date != null && !date.before(since);
+        }
+
+        /**
+         * Returns copies of the cached activities accepted by the given filter.
+         *
+         * @param filter
+         *            filter for the cached activities.
+         * @return copies of the cached activities accepted by the given filter.
+         */
+        List<Activity> getActivities(final ActivityFilter filter) {
+            final List<Activity> copies = new ArrayList<Activity>(activities.size());
+
+            for (final Activity activity : activities) {
+                if (filter.accept(activity)) {
+                    copies.add(copy(activity));
+                }
+            }
+
+            return Collections.unmodifiableList(copies);
+        }
+
+        /**
+         * Copy the data read from the activity list and the integration sequence numbers of the given activity.
+         *
+         * @param activity
+         *            activity to copy.
+         * @return copy of the given activity.
+         */
+        private static Activity copy(final Activity activity) {
+            final Activity copy =
+                new Activity(activity.getActivityUrl(), activity.getPrincipal(), activity.getComment(), activity.getCheckInTime());
+
+            for (final Map.Entry<String, Integer> integration : activity.getIntegrationSequenceNumbers().entrySet()) {
+                copy.addIntegration(integration.getKey(), integration.getValue());
+            }
+
+            return copy;
+        }
+    }
+}
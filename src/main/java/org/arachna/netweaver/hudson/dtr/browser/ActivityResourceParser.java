@@ -3,13 +3,11 @@
  */
 package org.arachna.netweaver.hudson.dtr.browser;
 
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
-import org.w3c.dom.Node;
 
 /**
  * A parser for {@link ActivityResource}s. Parses a DTR HTML report of a specific activity and returns the found resources.
@@ -18,10 +16,14 @@ import org.w3c.dom.Node;
  */
 public final class ActivityResourceParser extends AbstractResourceParser {
     /**
-     * XPath expression to extract resources.
+     * prefix of links to resource details.
      */
-    private static final String XPATH =
-        "//a[starts-with(@href, '/dtr/system-tools/reports/ResourceDetails?') and contains(@href, 'path=/vh/')]";
+    private static final String RESOURCE_LINK_PREFIX = "/dtr/system-tools/reports/ResourceDetails?";
+
+    /**
+     * marker for links to details of version history resources.
+     */
+    private static final String RESOURCE_PATH_MARKER = "path=/vh/";
 
     /**
      * Pattern matching the resources ID.
@@ -74,39 +76,36 @@ public final class ActivityResourceParser extends AbstractResourceParser {
         this.activity = activity;
     }
 
-    @Override
-    String getXPath() {
-        return XPATH;
-    }
-
     /**
-     * Parses a DTR HTML report of a specific activity and updates the activity with the found resources.
+     * Create a {@link ActivityResource} from the given link if it points to the details of a resource belonging to a development
+     * component.
      * 
-     * @param nodes
-     *            DOM nodes representing the extracted resources.
+     * @param href
+     *            target of link.
+     * @param text
+     *            text of link (the path of the resource).
      */
     @Override
-    public void parseInternal(final List nodes) {
-        for (final Object returnValue : nodes) {
-            addResource((Node)returnValue);
+    public void link(final String href, final String text) {
+        if (href.startsWith(RESOURCE_LINK_PREFIX) && href.contains(RESOURCE_PATH_MARKER)) {
+            addResource(text, href);
         }
     }
 
     /**
-     * Create a {@link ActivityResource} from the given <code>Node</code>.
+     * Create a {@link ActivityResource} from the given resource path and link target.
      * 
-     * @param node
-     *            node to extract the <code>ActivityResource</code> from.
+     * @param resourcePath
+     *            path of resource.
+     * @param href
+     *            link to resource details.
      */
-    private void addResource(final Node node) {
-        final String resourcePath = node.getChildNodes().item(0).getNodeValue();
-
+    private void addResource(final String resourcePath, final String href) {
         if (isResourcePathDevelopmentComponentResource(resourcePath)) {
             final DevelopmentComponent component =
                 developmentComponentFactory.create(getVendor(resourcePath), getDevelopmentComponentName(resourcePath));
             final ActivityResource resource =
-                new ActivityResource(activity, component, getResourcePath(resourcePath), getResourceId(node.getAttributes()
-                    .getNamedItem("href").getNodeValue()));
+                new ActivityResource(activity, component, getResourcePath(resourcePath), getResourceId(href));
             activity.add(resource);
         }
     }
@@ -181,12 +180,4 @@ public final class ActivityResourceParser extends AbstractResourceParser {
 
         return matcher.group(1);
     }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    int getExpectedNodeLen() {
-        return 0;
-    }
 }
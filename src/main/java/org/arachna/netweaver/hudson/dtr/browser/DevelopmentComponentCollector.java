@@ -4,9 +4,20 @@
 package org.arachna.netweaver.hudson.dtr.browser;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,6 +28,11 @@ import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
 /**
  * Collector for development components from activities.
  * 
+ * When created with a parallelism greater than one, activities and their
+ * resources are resolved using a pool of worker threads. The set of collected
+ * development components is still assembled in the order of the given
+ * activities and their resources.
+ * 
  * @author Dirk Weigenand
  */
 final class DevelopmentComponentCollector {
@@ -25,7 +41,7 @@ final class DevelopmentComponentCollector {
      * gleaned from prior activities (the respective DC was probably deleted).
      */
     private static final String RESOURCE_NOT_FOUND_IN_X_PATH_EXPRESSION_FOR_RESOURCE_EXTRACTION =
-        "Resource read from %s\ndoes not match current XPath expression for resource extraction:\n%s\n";
+        "Resource read from %s\ndoes not match the expected layout for resource extraction:\n%s\n";
 
     /**
      * error message when an error occurred computing the associated development
@@ -56,6 +72,13 @@ final class DevelopmentComponentCollector {
      */
     private static final Logger LOGGER = Logger.getLogger(DevelopmentComponentCollector.class.getName());
 
+    /**
+     * error message when resolving activities in parallel was interrupted or
+     * failed unexpectedly.
+     */
+    private static final String ERROR_RESOLVING_ACTIVITIES_IN_PARALLEL =
+        "There was an error resolving the given set of activities in parallel.";
+
     /**
      * DtrHttpClient for browsing the DTR.
      */
@@ -71,6 +94,59 @@ final class DevelopmentComponentCollector {
      */
     private final DevelopmentComponentFactory dcFactory;
 
+    /**
+     * number of threads to use for resolving activities and resources.
+     */
+    private final int parallelism;
+
+    /**
+     * cache for details of resources (may be <code>null</code>).
+     */
+    private final ResourceDetailsCache resourceDetailsCache;
+
+    /**
+     * number of resource details found in cache.
+     */
+    private final AtomicInteger cacheHits = new AtomicInteger();
+
+    /**
+     * number of resource details not found in cache.
+     */
+    private final AtomicInteger cacheMisses = new AtomicInteger();
+
+    /**
+     * resolution of resource details (the resource whose details were read)
+     * mapped by resource id. Ensures that the details of every resource are
+     * read at most once per run.
+     */
+    private final ConcurrentMap<String, FutureTask<ActivityResource>> resolvedResources =
+        new ConcurrentHashMap<String, FutureTask<ActivityResource>>();
+
+    /**
+     * development components already known to be affected by the activities
+     * collected in this run.
+     */
+    private final Set<DevelopmentComponent> affectedComponents = Collections
+        .newSetFromMap(new ConcurrentHashMap<DevelopmentComponent, Boolean>());
+
+    /**
+     * number of resources whose details were not read because their
+     * development component was already known to be affected.
+     */
+    private final AtomicInteger skippedResources = new AtomicInteger();
+
+    /**
+     * number of resources whose details were already read for another
+     * resource with the same id in this run.
+     */
+    private final AtomicInteger duplicateResources = new AtomicInteger();
+
+    /**
+     * whether the details of every resource are needed (e.g. for the change
+     * log) or only the affected development components.
+     */
+    private boolean resourceDetailsNeeded = true;
+
     /**
      * Create an instance of a <code>DevelopmentComponentCollector</code> with
      * the list of given activities.
@@ -86,9 +162,59 @@ final class DevelopmentComponentCollector {
      */
     public DevelopmentComponentCollector(final DtrHttpClient dtrHttpClient, final String dtrUrl,
         final DevelopmentComponentFactory dcFactory) {
+        this(dtrHttpClient, dtrUrl, dcFactory, 1);
+    }
+
+    /**
+     * Create an instance of a <code>DevelopmentComponentCollector</code> that
+     * resolves activities using the given number of threads.
+     * 
+     * @param dtrHttpClient
+     *            HTTP-Client for querying the DTR. Must support the given
+     *            number of concurrent requests.
+     * @param dtrUrl
+     *            URL of DTR server.
+     * @param dcFactory
+     *            registry for {@link DevelopmentComponent} objects. Used to
+     *            create and register development components that are related to
+     *            an activity in the DTR.
+     * @param parallelism
+     *            number of threads to use for resolving activities and their
+     *            resources (values less than one are treated as one).
+     */
+    public DevelopmentComponentCollector(final DtrHttpClient dtrHttpClient, final String dtrUrl,
+        final DevelopmentComponentFactory dcFactory, final int parallelism) {
+        this(dtrHttpClient, dtrUrl, dcFactory, parallelism, null);
+    }
+
+    /**
+     * Create an instance of a <code>DevelopmentComponentCollector</code> that
+     * resolves activities using the given number of threads and looks up
+     * resource details in the given cache before querying the DTR.
+     * 
+     * @param dtrHttpClient
+     *            HTTP-Client for querying the DTR. Must support the given
+     *            number of concurrent requests.
+     * @param dtrUrl
+     *            URL of DTR server.
+     * @param dcFactory
+     *            registry for {@link DevelopmentComponent} objects. Used to
+     *            create and register development components that are related to
+     *            an activity in the DTR.
+     * @param parallelism
+     *            number of threads to use for resolving activities and their
+     *            resources (values less than one are treated as one).
+     * @param resourceDetailsCache
+     *            cache for details of resources (may be <code>null</code>).
+     */
+    public DevelopmentComponentCollector(final DtrHttpClient dtrHttpClient, final String dtrUrl,
+        final DevelopmentComponentFactory dcFactory, final int parallelism,
+        final ResourceDetailsCache resourceDetailsCache) {
         this.dtrHttpClient = dtrHttpClient;
         this.dtrUrl = dtrUrl;
         this.dcFactory = dcFactory;
+        this.parallelism = Math.max(1, parallelism);
+        this.resourceDetailsCache = resourceDetailsCache;
     }
 
     /**
@@ -104,14 +230,321 @@ final class DevelopmentComponentCollector {
         final Set<DevelopmentComponent> components = new LinkedHashSet<DevelopmentComponent>();
 
         if (activities != null) {
+            if (parallelism > 1 && activities.size() > 1) {
+                components.addAll(collectInParallel(activities));
+            }
+            else {
+                for (final Activity activity : activities) {
+                    components.addAll(calculateAffectedDevelopmentComponents(activity));
+                }
+            }
+
+            if (resourceDetailsCache != null) {
+                resourceDetailsCache.flush();
+            }
+
+            LOGGER.log(Level.FINE, String.format("Resource details read once for %d duplicate and skipped for %d resources.",
+                duplicateResources.get(), skippedResources.get()));
+        }
+
+        return components;
+    }
+
+    /**
+     * Configure whether the details of every resource are needed. When they
+     * are not needed, the details of resources belonging to development
+     * components already known to be affected are not read from the DTR.
+     * Those resources will report default values for their creation date,
+     * last modification, sequence number and deletion state.
+     * 
+     * @param resourceDetailsNeeded
+     *            <code>true</code> when the details of every resource are
+     *            needed (the default), <code>false</code> otherwise.
+     */
+    void setResourceDetailsNeeded(final boolean resourceDetailsNeeded) {
+        this.resourceDetailsNeeded = resourceDetailsNeeded;
+    }
+
+    /**
+     * Returns the number of resource details found in the cache.
+     * 
+     * @return number of resource details found in the cache.
+     */
+    int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of resource details that had to be read from the DTR
+     * because they were not found in the cache.
+     * 
+     * @return number of resource details not found in the cache.
+     */
+    int getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Update the given resource with its details and return the development
+     * component it belongs to.
+     * 
+     * The details of resources with the same id are read only once per run.
+     * When resource details are not needed, resources of development
+     * components already known to be affected are not updated at all.
+     * 
+     * @param resource
+     *            resource to update.
+     * @param queryURL
+     *            URL of the resource's details in the DTR.
+     * @return the development component the given resource belongs to.
+     * @throws IOException
+     *             when reading the DTR report fails
+     */
+    private DevelopmentComponent resolveResourceDetails(final ActivityResource resource, final String queryURL)
+        throws IOException {
+        final DevelopmentComponent component = resource.getDevelopmentComponent();
+
+        if (!resourceDetailsNeeded && affectedComponents.contains(component)) {
+            skippedResources.incrementAndGet();
+            return component;
+        }
+
+        final FutureTask<ActivityResource> resolution =
+            new FutureTask<ActivityResource>(new Callable<ActivityResource>() {
+                public ActivityResource call() throws IOException {
+                    updateResourceDetails(resource, queryURL);
+                    return resource;
+                }
+            });
+        FutureTask<ActivityResource> previous = resolvedResources.putIfAbsent(resource.getId(), resolution);
+
+        if (previous == null) {
+            previous = resolution;
+            resolution.run();
+        }
+
+        final ActivityResource resolved = getResolvedResource(previous);
+
+        if (resolved != resource) {
+            duplicateResources.incrementAndGet();
+            resource.setCreationDate(resolved.getCreationDate());
+            resource.setLastModified(resolved.getLastModified());
+            resource.setSequenceNumber(resolved.getSequenceNumber());
+            resource.setDeleted(resolved.isDeleted());
+        }
+
+        affectedComponents.add(component);
+
+        return component;
+    }
+
+    /**
+     * Wait for the given resolution of resource details and return the
+     * resolved resource.
+     * 
+     * @param resolution
+     *            resolution of resource details.
+     * @return the resource whose details were read.
+     * @throws IOException
+     *             when reading the DTR report failed
+     */
+    private ActivityResource getResolvedResource(final FutureTask<ActivityResource> resolution) throws IOException {
+        try {
+            return resolution.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Update the given resource with its details. The details are taken from
+     * the cache if possible, otherwise they are read from the DTR and added to
+     * the cache when they could be parsed.
+     * 
+     * @param resource
+     *            resource to update.
+     * @param queryURL
+     *            URL of the resource's details in the DTR.
+     * @throws IOException
+     *             when reading the DTR report fails
+     */
+    private void updateResourceDetails(final ActivityResource resource, final String queryURL) throws IOException {
+        if (resourceDetailsCache != null && resourceDetailsCache.update(dtrUrl, resource)) {
+            cacheHits.incrementAndGet();
+        }
+        else {
+            final ResourceDetailsParser parser = new ResourceDetailsParser(resource);
+            parser.parse(dtrHttpClient.getContent(queryURL));
+
+            if (resourceDetailsCache != null) {
+                cacheMisses.incrementAndGet();
+
+                if (parser.isParsed()) {
+                    resourceDetailsCache.put(dtrUrl, resource);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collect development components associated to the given list of
+     * activities using a pool of worker threads.
+     * 
+     * First the details and resources of all activities are read in parallel.
+     * Afterwards the details of all resources are read in parallel. The
+     * resulting development components are added in the order of the given
+     * activities and their resources so the result does not depend on the
+     * order the requests complete in.
+     * 
+     * @param activities
+     *            list of activities the associated development components are
+     *            to be looked up
+     * @return the set of associated development components
+     */
+    private Set<DevelopmentComponent> collectInParallel(final List<Activity> activities) {
+        final Set<DevelopmentComponent> components = new LinkedHashSet<DevelopmentComponent>();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, activities.size()));
+
+        try {
+            final List<Future<Boolean>> activityResults = new ArrayList<Future<Boolean>>(activities.size());
+
             for (final Activity activity : activities) {
-                components.addAll(calculateAffectedDevelopmentComponents(activity));
+                activityResults.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() {
+                        return resolveActivity(activity);
+                    }
+                }));
+            }
+
+            final List<Future<DevelopmentComponent>> resourceResults = new ArrayList<Future<DevelopmentComponent>>();
+
+            for (int i = 0; i < activities.size(); i++) {
+                if (getResult(activityResults.get(i), Boolean.FALSE)) {
+                    for (final ActivityResource resource : activities.get(i).getResources()) {
+                        resourceResults.add(executor.submit(new Callable<DevelopmentComponent>() {
+                            public DevelopmentComponent call() {
+                                return resolveResource(resource);
+                            }
+                        }));
+                    }
+                }
             }
+
+            for (final Future<DevelopmentComponent> result : resourceResults) {
+                final DevelopmentComponent component = getResult(result, null);
+
+                if (component != null) {
+                    components.add(component);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
         }
 
         return components;
     }
 
+    /**
+     * Wait for the given result of resolving an activity or resource. Failures
+     * are logged and the given default value is returned instead, so that a
+     * single activity cannot abort collecting the others.
+     * 
+     * @param result
+     *            result of resolving an activity or resource.
+     * @param defaultValue
+     *            value to return when resolving failed or was interrupted.
+     * @param <T>
+     *            type of result.
+     * @return the result or the given default value.
+     */
+    private <T> T getResult(final Future<T> result, final T defaultValue) {
+        T value = defaultValue;
+
+        try {
+            value = result.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, ERROR_RESOLVING_ACTIVITIES_IN_PARALLEL, e);
+        }
+        catch (final ExecutionException e) {
+            LOGGER.log(Level.SEVERE, ERROR_CALCULATING_AFFECTED_DEVELOPMENT_COMPONENTS, e.getCause());
+        }
+
+        return value;
+    }
+
+    /**
+     * Read details and resources of the given activity from the DTR.
+     * 
+     * @param activity
+     *            activity to update.
+     * @return <code>true</code> when the activity could be read successfully,
+     *         <code>false</code> otherwise.
+     */
+    private boolean resolveActivity(final Activity activity) {
+        boolean resolved = false;
+
+        try {
+            updateActivityDetails(activity);
+            createActivityResources(activity);
+            resolved = true;
+        }
+        catch (final IllegalStateException e) {
+            LOGGER.log(Level.SEVERE, ERROR_CALCULATING_AFFECTED_DEVELOPMENT_COMPONENTS, e);
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_CALCULATING_AFFECTED_DEVELOPMENT_COMPONENTS, e);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Read the details of the given resource from the DTR and return the
+     * development component it belongs to.
+     * 
+     * @param resource
+     *            resource to update.
+     * @return the development component the given resource belongs to or
+     *         <code>null</code> if the resource could not be read (e.g. because
+     *         it was deleted).
+     */
+    private DevelopmentComponent resolveResource(final ActivityResource resource) {
+        DevelopmentComponent component = null;
+        final String queryURL = String.format(RESOURCE_DETAIL_QUERY_TEMPLATE, dtrUrl, resource.getId());
+
+        try {
+            component = resolveResourceDetails(resource, queryURL);
+        }
+        catch (final IllegalStateException ise) {
+            // This means that the resource was deleted from the DTR.
+            LOGGER.log(Level.FINE,
+                String.format(RESOURCE_NOT_FOUND_IN_X_PATH_EXPRESSION_FOR_RESOURCE_EXTRACTION, queryURL, ise.getMessage()));
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_CALCULATING_AFFECTED_DEVELOPMENT_COMPONENTS, e);
+        }
+
+        return component;
+    }
+
     /**
      * Calculate the set of development components affected by the given
      * activity. The affected components will have their
@@ -133,8 +566,7 @@ final class DevelopmentComponentCollector {
                 final String queryURL = String.format(RESOURCE_DETAIL_QUERY_TEMPLATE, dtrUrl, resource.getId());
 
                 try {
-                    new ResourceDetailsParser(resource).parse(dtrHttpClient.getContent(queryURL));
-                    components.add(resource.getDevelopmentComponent());
+                    components.add(resolveResourceDetails(resource, queryURL));
                 }
                 catch (final IllegalStateException ise) {
                     // This means that the resource was deleted from the DTR.
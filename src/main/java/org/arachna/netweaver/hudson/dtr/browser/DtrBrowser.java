@@ -3,10 +3,23 @@
  */
 package org.arachna.netweaver.hudson.dtr.browser;
 
+import hudson.init.Terminator;
+
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.http.client.ClientProtocolException;
 import org.arachna.netweaver.dc.types.Compartment;
@@ -33,16 +46,85 @@ public final class DtrBrowser {
         "There was an error reading the list of activities (URL: %s) from the DTR.";
 
     /**
-     * query for reading activities for a given compartment.
+     * query for reading activities for a given compartment (integrated with an
+     * integration sequence number greater or equal than the given one).
      */
     private static final String ACTIVITY_QUERY = "%s/system-tools/reports/ActivityQuery?wspPath=/%s"
-        + "&user=&closedOnly=on&isnFrom=&isnTo=&nonEmptyOnly=on&folderPath=&command=Show";
+        + "&user=&closedOnly=on&isnFrom=%s&isnTo=&nonEmptyOnly=on&folderPath=&command=Show";
+
+    /**
+     * Name of system property configuring the number of threads to use for
+     * resolving activities (defaults to one, i.e. sequential resolution).
+     */
+    static final String DTR_THREADS_PROPERTY = "nwdibuild.dtr.threads";
+
+    /**
+     * Name of system property configuring the number of threads to use for
+     * querying the activities of the source compartments (defaults to one,
+     * i.e. compartments are queried sequentially).
+     */
+    static final String DTR_COMPARTMENT_THREADS_PROPERTY = "nwdibuild.dtr.compartment.threads";
+
+    /**
+     * Name of system property indicating that the details of resources
+     * (creation date, sequence number, deletion state) should only be read
+     * when needed to determine affected development components. The change log
+     * will then not distinguish added, modified and deleted resources.
+     */
+    static final String SKIP_RESOURCE_DETAILS_PROPERTY = "nwdibuild.dtr.skip.resource.details";
+
+    /**
+     * upper bound for the number of threads used to resolve activities.
+     */
+    private static final int MAX_DTR_THREADS = 32;
+
+    /**
+     * Error message when querying compartments in parallel failed.
+     */
+    private static final String ERROR_QUERYING_COMPARTMENTS_IN_PARALLEL =
+        "There was an error reading the activities of the source compartments in parallel.";
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DtrBrowser.class.getName());
 
     /**
      * DtrHttpClient for browsing the DTR.
      */
     private final DtrHttpClient dtrHttpClient;
 
+    /**
+     * number of threads to use for resolving activities.
+     */
+    private final int parallelism;
+
+    /**
+     * number of threads to use for querying the activities of compartments.
+     */
+    private final int compartmentParallelism;
+
+    /**
+     * cache for details of resources (may be <code>null</code>).
+     */
+    private ResourceDetailsCache resourceDetailsCache;
+
+    /**
+     * number of resource details found in cache during the last query.
+     */
+    private int resourceDetailsCacheHits;
+
+    /**
+     * number of resource details not found in cache during the last query.
+     */
+    private int resourceDetailsCacheMisses;
+
+    /**
+     * highest integration sequence numbers of the activities resolved during
+     * the last query mapped by compartment name.
+     */
+    private final Map<String, Integer> integrationSequenceNumbers = new HashMap<String, Integer>();
+
     /**
      * development configuration to use in queries.
      */
@@ -60,27 +142,150 @@ public final class DtrBrowser {
      */
     public DtrBrowser(final DevelopmentConfiguration config, final String dtrUser, final String password) {
         this.config = config;
-        dtrHttpClient = new DtrHttpClient(dtrUser, password);
+        parallelism = getThreadCount(DTR_THREADS_PROPERTY);
+        compartmentParallelism = getThreadCount(DTR_COMPARTMENT_THREADS_PROPERTY);
+
+        if (DtrConnectionPool.isEnabled()) {
+            dtrHttpClient = new DtrHttpClient(DtrConnectionPool.get(getDtrServerUrl(), dtrUser, password));
+        }
+        else {
+            dtrHttpClient = new DtrHttpClient(dtrUser, password, Math.max(parallelism, compartmentParallelism));
+        }
+    }
+
+    /**
+     * Read the number of threads to use from the given system property.
+     * 
+     * @param property
+     *            name of system property.
+     * @return number of threads configured (between one and
+     *         {@link #MAX_DTR_THREADS}).
+     */
+    private static int getThreadCount(final String property) {
+        return Math.min(MAX_DTR_THREADS, Math.max(1, Integer.getInteger(property, 1)));
+    }
+
+    /**
+     * Return the URL of the DTR server the development configuration is stored
+     * on. Falls back to the CMS URL when no compartment specifies a DTR.
+     * 
+     * @return URL of the DTR server used for sharing connections.
+     */
+    private String getDtrServerUrl() {
+        final String dtrServerUrl = config.getDtrServerUrl();
+
+        return dtrServerUrl.length() > 0 ? dtrServerUrl : config.getCmsUrl();
     }
 
     /**
      * Get list of activities in the given workspace containing the given
      * compartment.
      * 
+     * When the same query has been executed shortly before (e.g. by the
+     * poll triggering a build) the cached result is reused and only the
+     * activities added since are read from the DTR. When integration
+     * sequence numbers of cached activities are known (i.e. they were
+     * resolved by a checkout) the query is narrowed to the activities
+     * integrated after the highest of them.
+     * 
      * @param compartment
      *            compartment to use for retrieving activities.
-     * @param activityFilter
-     *            filter for NWDI activities.
+     * @param since
+     *            date after which to look for activities (<code>null</code>
+     *            when the integration sequence number is used instead).
+     * @param integrationSequenceNumber
+     *            highest integration sequence number already known for the
+     *            given compartment (may be <code>null</code> to read all
+     *            activities of the compartment).
      * @return list of retrieved activities (may be empty).
      */
-    private List<Activity> getActivities(final Compartment compartment, final ActivityFilter activityFilter) {
-        final String queryUrl =
-            String.format(ACTIVITY_QUERY, compartment.getDtrUrl(), compartment.getInactiveLocation());
+    private List<Activity> getActivities(final Compartment compartment, final Date since,
+        final Integer integrationSequenceNumber) {
+        final String queryUrl = createActivityQuery(compartment, integrationSequenceNumber);
+        final ActivityFilter activityFilter = new ActivityCheckinDateFilter(since);
+        final List<Activity> cachedActivities = ActivityQueryCache.get(queryUrl, since);
+        final ActivityListParser activityListBrowser;
+
+        if (cachedActivities == null) {
+            activityListBrowser = new ActivityListParser(activityFilter);
+            parse(queryUrl, activityListBrowser);
+        }
+        else {
+            final Integer cachedIntegrationSequenceNumber =
+                getHighestIntegrationSequenceNumber(compartment, cachedActivities);
+            final String deltaQueryUrl =
+                cachedIntegrationSequenceNumber == null ? queryUrl : createActivityQuery(compartment,
+                    cachedIntegrationSequenceNumber);
+
+            LOGGER.log(Level.FINE, String.format("Reading activities of %s added since the cached query.", deltaQueryUrl));
+            activityListBrowser = new ActivityListParser(activityFilter, cachedActivities);
+            parse(deltaQueryUrl, activityListBrowser);
+        }
 
+        final List<Activity> activities = new ArrayList<Activity>(activityListBrowser.getActivities());
+
+        if (cachedActivities != null) {
+            activities.addAll(cachedActivities);
+        }
+
+        ActivityQueryCache.put(queryUrl, since, activities);
+
+        return activities;
+    }
+
+    /**
+     * Determine the highest integration sequence number of the given
+     * activities in the inactive workspace of the given compartment.
+     * 
+     * @param compartment
+     *            compartment the activities were read from.
+     * @param activities
+     *            activities to examine.
+     * @return the highest integration sequence number known for the given
+     *         activities or <code>null</code> when none is known.
+     */
+    private static Integer getHighestIntegrationSequenceNumber(final Compartment compartment,
+        final List<Activity> activities) {
+        Integer highest = null;
+
+        for (final Activity activity : activities) {
+            final Integer isn = activity.getIntegrationSequenceNumber(compartment.getInactiveLocation());
+
+            if (isn != null && (highest == null || highest.intValue() < isn.intValue())) {
+                highest = isn;
+            }
+        }
+
+        return highest;
+    }
+
+    /**
+     * Create the URL of the activity query for the given compartment.
+     * 
+     * @param compartment
+     *            compartment to query activities for.
+     * @param integrationSequenceNumber
+     *            highest integration sequence number already known for the
+     *            given compartment (may be <code>null</code>).
+     * @return URL of the activity query.
+     */
+    private String createActivityQuery(final Compartment compartment, final Integer integrationSequenceNumber) {
+        return String.format(ACTIVITY_QUERY, compartment.getDtrUrl(), compartment.getInactiveLocation(),
+            integrationSequenceNumber == null ? "" : Integer.toString(integrationSequenceNumber.intValue() + 1));
+    }
+
+    /**
+     * Read the activity list returned by the given query using the given
+     * parser.
+     * 
+     * @param queryUrl
+     *            URL of activity query.
+     * @param activityListBrowser
+     *            parser to use.
+     */
+    private void parse(final String queryUrl, final ActivityListParser activityListBrowser) {
         try {
-            final ActivityListParser activityListBrowser = new ActivityListParser(activityFilter);
             activityListBrowser.parse(dtrHttpClient.getContent(queryUrl));
-            return activityListBrowser.getActivities();
         }
         catch (final ClientProtocolException e) {
             throw new IllegalStateException(ERROR_COMMUNICATING_WITH_DTR, e);
@@ -94,25 +299,245 @@ public final class DtrBrowser {
     }
 
     /**
-     * Get a list of activities in the given workspace matching the given
-     * {@link ActivityFilter}.
+     * Get a list of activities in the given workspace checked in after the
+     * given date or integrated after the given integration sequence numbers
+     * respectively.
      * 
-     * @param activityFilter
-     *            an {@link ActivityFilter} for filtering the list of returned
-     *            activities.
-     * @return a list of activities matching the given {@link ActivityFilter} in
-     *         the given workspace.
+     * Compartments with a known integration sequence number are queried for
+     * activities integrated after it only. The check in date is used to filter
+     * the activities of compartments without a known integration sequence
+     * number.
+     * 
+     * @param since
+     *            date after which to look for activities.
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers already known mapped by
+     *            compartment name.
+     * @return the activities in the given workspace mapped by the compartment
+     *         they were read from.
      */
-    private List<Activity> getActivities(final ActivityFilter activityFilter) {
-        final List<Activity> activities = new ArrayList<Activity>();
+    private Map<Compartment, List<Activity>> getActivitiesInternal(final Date since,
+        final Map<String, Integer> integrationSequenceNumbers) {
+        final List<Compartment> compartments =
+            new ArrayList<Compartment>(config.getCompartments(CompartmentState.Source));
+        final List<Callable<List<Activity>>> queries = new ArrayList<Callable<List<Activity>>>(compartments.size());
 
-        for (final Compartment compartment : config.getCompartments(CompartmentState.Source)) {
-            activities.addAll(this.getActivities(compartment, activityFilter));
+        for (final Compartment compartment : compartments) {
+            final Integer integrationSequenceNumber = integrationSequenceNumbers.get(compartment.getName());
+            final Date notBefore = integrationSequenceNumber == null ? since : null;
+
+            queries.add(new Callable<List<Activity>>() {
+                public List<Activity> call() {
+                    return getActivities(compartment, notBefore, integrationSequenceNumber);
+                }
+            });
+        }
+
+        final List<List<Activity>> results = new ArrayList<List<Activity>>(queries.size());
+        final long[] durations = new long[queries.size()];
+
+        if (compartmentParallelism > 1 && queries.size() > 1) {
+            results.addAll(queryInParallel(queries, durations));
+        }
+        else {
+            for (int i = 0; i < queries.size(); i++) {
+                results.add(timedQuery(queries.get(i), durations, i));
+            }
+        }
+
+        logDurations(compartments, durations);
+
+        final Map<Compartment, List<Activity>> activities = new LinkedHashMap<Compartment, List<Activity>>();
+
+        for (int i = 0; i < compartments.size(); i++) {
+            activities.put(compartments.get(i), results.get(i));
         }
 
         return activities;
     }
 
+    /**
+     * Returns the activities of all compartments in the given map.
+     * 
+     * @param activities
+     *            activities mapped by the compartment they were read from.
+     * @return the activities of all compartments.
+     */
+    private static List<Activity> flatten(final Map<Compartment, List<Activity>> activities) {
+        final List<Activity> result = new ArrayList<Activity>();
+
+        for (final List<Activity> compartmentActivities : activities.values()) {
+            result.addAll(compartmentActivities);
+        }
+
+        return result;
+    }
+
+    /**
+     * Execute the given compartment queries concurrently. The results are
+     * merged in the order of the given queries.
+     * 
+     * @param queries
+     *            queries for the activities of compartments.
+     * @param durations
+     *            array to store the duration (in milliseconds) of each query
+     *            in.
+     * @return the activities read by each of the given queries.
+     */
+    private List<List<Activity>> queryInParallel(final List<Callable<List<Activity>>> queries, final long[] durations) {
+        final List<List<Activity>> activities = new ArrayList<List<Activity>>(queries.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(compartmentParallelism, queries.size()));
+
+        try {
+            final List<Future<List<Activity>>> results = new ArrayList<Future<List<Activity>>>(queries.size());
+
+            for (int i = 0; i < queries.size(); i++) {
+                final int index = i;
+
+                results.add(executor.submit(new Callable<List<Activity>>() {
+                    public List<Activity> call() throws Exception {
+                        return timedQuery(queries.get(index), durations, index);
+                    }
+                }));
+            }
+
+            for (final Future<List<Activity>> result : results) {
+                activities.add(result.get());
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ERROR_QUERYING_COMPARTMENTS_IN_PARALLEL, e);
+        }
+        catch (final ExecutionException e) {
+            if (e.getCause() instanceof IllegalStateException) {
+                throw (IllegalStateException)e.getCause();
+            }
+
+            throw new IllegalStateException(ERROR_QUERYING_COMPARTMENTS_IN_PARALLEL, e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        return activities;
+    }
+
+    /**
+     * Execute the given compartment query and record its duration.
+     * 
+     * @param query
+     *            query for the activities of a compartment.
+     * @param durations
+     *            array to store the duration (in milliseconds) of the query in.
+     * @param index
+     *            index of the query's duration in <code>durations</code>.
+     * @return the activities read by the given query.
+     */
+    private List<Activity> timedQuery(final Callable<List<Activity>> query, final long[] durations, final int index) {
+        final long start = System.currentTimeMillis();
+
+        try {
+            return query.call();
+        }
+        catch (final RuntimeException e) {
+            throw e;
+        }
+        catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+        finally {
+            synchronized (durations) {
+                durations[index] = System.currentTimeMillis() - start;
+            }
+        }
+    }
+
+    /**
+     * Log the duration of the queries for the given compartments. The slowest
+     * compartment is logged with level <code>INFO</code>, the others with
+     * level <code>FINE</code>.
+     * 
+     * @param compartments
+     *            the queried compartments.
+     * @param durations
+     *            durations (in milliseconds) of the queries for the given
+     *            compartments.
+     */
+    private void logDurations(final List<Compartment> compartments, final long[] durations) {
+        int slowest = -1;
+
+        synchronized (durations) {
+            for (int i = 0; i < durations.length; i++) {
+                LOGGER.log(Level.FINE, String.format("Reading activities of compartment %s took %d ms.", compartments.get(i)
+                    .getName(), durations[i]));
+
+                if (slowest == -1 || durations[slowest] < durations[i]) {
+                    slowest = i;
+                }
+            }
+
+            if (slowest != -1) {
+                LOGGER.log(Level.INFO, String.format("Slowest compartment query: %s (%d ms of %d compartments).", compartments
+                    .get(slowest).getName(), durations[slowest], durations.length));
+            }
+        }
+    }
+
+    /**
+     * Determine whether there are activities in the given workspace checked in
+     * after the given date or integrated after the given integration sequence
+     * numbers respectively.
+     * 
+     * Stops at the first compartment containing such an activity. Only the
+     * first activity of each compartment's activity list is read and the
+     * remainder of the response is not transferred, so an unchanged
+     * compartment costs the download of its list's header only. A non empty
+     * activity list cached by a previous query answers the question without
+     * a request. The activity lists do not contain integration sequence
+     * numbers, so none are recorded (i.e.
+     * {@link #getIntegrationSequenceNumbers()} is empty afterwards).
+     * 
+     * @param since
+     *            date after which to look for activities in compartments
+     *            without a known integration sequence number.
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers already known mapped by
+     *            compartment name.
+     * @return <code>true</code> when there is at least one new activity,
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasActivities(final Date since, final Map<String, Integer> integrationSequenceNumbers) {
+        boolean hasActivities = false;
+        this.integrationSequenceNumbers.clear();
+
+        for (final Compartment compartment : config.getCompartments(CompartmentState.Source)) {
+            final Integer integrationSequenceNumber = integrationSequenceNumbers.get(compartment.getName());
+            final Date notBefore = integrationSequenceNumber == null ? since : null;
+            final String queryUrl = createActivityQuery(compartment, integrationSequenceNumber);
+            final List<Activity> cachedActivities = ActivityQueryCache.get(queryUrl, notBefore);
+
+            if (cachedActivities != null && !cachedActivities.isEmpty()) {
+                hasActivities = true;
+            }
+            else {
+                final ActivityListParser activityListBrowser =
+                    new ActivityListParser(new ActivityCheckinDateFilter(notBefore), true);
+                parse(queryUrl, activityListBrowser);
+                hasActivities = !activityListBrowser.getActivities().isEmpty();
+            }
+
+            if (hasActivities) {
+                LOGGER.log(Level.FINE, String.format("Found new activities in compartment %s.", compartment.getName()));
+                break;
+            }
+        }
+
+        dtrHttpClient.close();
+
+        return hasActivities;
+    }
+
     /**
      * Get a list of activities in the given workspace matching the given
      * {@link ActivityFilter}.
@@ -122,7 +547,24 @@ public final class DtrBrowser {
      * @return a list of activities in the given workspace.
      */
     public List<Activity> getActivities(final Date since) {
-        final List<Activity> activities = this.getActivities(new ActivityCheckinDateFilter(since));
+        return getActivities(since, Collections.<String, Integer> emptyMap());
+    }
+
+    /**
+     * Get a list of activities in the given workspace checked in after the
+     * given date or integrated after the given integration sequence numbers
+     * respectively.
+     * 
+     * @param since
+     *            date after which to look for activities in compartments
+     *            without a known integration sequence number.
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers already known mapped by
+     *            compartment name.
+     * @return a list of activities in the given workspace.
+     */
+    public List<Activity> getActivities(final Date since, final Map<String, Integer> integrationSequenceNumbers) {
+        final List<Activity> activities = flatten(getActivitiesInternal(since, integrationSequenceNumbers));
 
         dtrHttpClient.close();
 
@@ -142,18 +584,183 @@ public final class DtrBrowser {
      *            date since when new activities should be detected.
      * @return list of detected activities.
      */
-
     public List<Activity> getActivitiesWithResourcesAndDevelopmentComponents(
         final DevelopmentComponentFactory dcFactory, final Date since) {
-        final List<Activity> activities = this.getActivities(new ActivityCheckinDateFilter(since));
+        return getActivitiesWithResourcesAndDevelopmentComponents(dcFactory, since,
+            Collections.<String, Integer> emptyMap());
+    }
+
+    /**
+     * Determine activities from DTR that were integrated after the given
+     * integration sequence numbers (or checked in after the given date
+     * <code>since</code> for compartments without a known integration sequence
+     * number). Also collect the affected resources and development components.
+     * Those components will have the property <code>needsRebuild</code> set to
+     * <code>true</code> afterwards.
+     * 
+     * The highest integration sequence numbers of the detected activities are
+     * available via {@link #getIntegrationSequenceNumbers()} afterwards (for
+     * compartments whose activities could all be resolved).
+     * 
+     * @param dcFactory
+     *            registry for development components to use for when querying
+     *            development components affected by activities.
+     * @param since
+     *            date since when new activities should be detected.
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers already known mapped by
+     *            compartment name.
+     * @return list of detected activities.
+     */
+    public List<Activity> getActivitiesWithResourcesAndDevelopmentComponents(
+        final DevelopmentComponentFactory dcFactory, final Date since, final Map<String, Integer> integrationSequenceNumbers) {
+        final Map<Compartment, List<Activity>> compartmentActivities =
+            getActivitiesInternal(since, integrationSequenceNumbers);
+        final List<Activity> activities = flatten(compartmentActivities);
+
+        final DevelopmentComponentCollector collector =
+            new DevelopmentComponentCollector(dtrHttpClient, config.getCmsUrl(), dcFactory, parallelism,
+                resourceDetailsCache);
+        collector.setResourceDetailsNeeded(!Boolean.getBoolean(SKIP_RESOURCE_DETAILS_PROPERTY));
 
-        for (final DevelopmentComponent component : new DevelopmentComponentCollector(dtrHttpClient,
-            config.getCmsUrl(), dcFactory).collect(activities)) {
+        for (final DevelopmentComponent component : collector.collect(activities)) {
             component.setNeedsRebuild(true);
         }
 
+        resourceDetailsCacheHits = collector.getCacheHits();
+        resourceDetailsCacheMisses = collector.getCacheMisses();
+        updateIntegrationSequenceNumbers(compartmentActivities);
+        cacheResolvedActivities(compartmentActivities, since, integrationSequenceNumbers);
+
         dtrHttpClient.close();
 
         return activities;
     }
+
+    /**
+     * Cache the given activities again now that their integration sequence
+     * numbers are known, so that the next query for the same compartment
+     * can be narrowed to the activities integrated after them.
+     * 
+     * @param activities
+     *            activities whose details have been read from the DTR mapped
+     *            by the compartment they were read from.
+     * @param since
+     *            date since when new activities were detected.
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers the activities were
+     *            read after mapped by compartment name.
+     */
+    private void cacheResolvedActivities(final Map<Compartment, List<Activity>> activities, final Date since,
+        final Map<String, Integer> integrationSequenceNumbers) {
+        for (final Map.Entry<Compartment, List<Activity>> entry : activities.entrySet()) {
+            final Integer integrationSequenceNumber = integrationSequenceNumbers.get(entry.getKey().getName());
+            final Date notBefore = integrationSequenceNumber == null ? since : null;
+
+            ActivityQueryCache.put(createActivityQuery(entry.getKey(), integrationSequenceNumber), notBefore,
+                entry.getValue());
+        }
+    }
+
+    /**
+     * Determine the highest integration sequence number per compartment of
+     * the given activities.
+     * 
+     * A compartment is left out when the integration sequence number of one
+     * of its activities is not known (e.g. because reading the activity's
+     * details failed). Its last known integration sequence number is kept
+     * then, so that the activity is read again by the next query instead of
+     * being skipped for good.
+     * 
+     * @param activities
+     *            activities whose details have been read from the DTR mapped
+     *            by the compartment they were read from.
+     */
+    private void updateIntegrationSequenceNumbers(final Map<Compartment, List<Activity>> activities) {
+        integrationSequenceNumbers.clear();
+
+        for (final Map.Entry<Compartment, List<Activity>> entry : activities.entrySet()) {
+            final Compartment compartment = entry.getKey();
+            Integer highest = null;
+
+            for (final Activity activity : entry.getValue()) {
+                final Integer isn = activity.getIntegrationSequenceNumber(compartment.getInactiveLocation());
+
+                if (isn == null) {
+                    LOGGER.log(Level.WARNING, String.format("Integration sequence number of activity %s in compartment %s is not "
+                        + "known, keeping the last known one.", activity.getActivityPath(), compartment.getName()));
+                    highest = null;
+                    break;
+                }
+
+                if (highest == null || highest.intValue() < isn.intValue()) {
+                    highest = isn;
+                }
+            }
+
+            if (highest != null) {
+                integrationSequenceNumbers.put(compartment.getName(), highest);
+            }
+        }
+    }
+
+    /**
+     * Returns the highest integration sequence numbers of the activities
+     * detected during the last call of
+     * {@link #getActivitiesWithResourcesAndDevelopmentComponents(DevelopmentComponentFactory, Date, Map)}
+     * mapped by compartment name. Compartments without new activities or with
+     * activities that could not be resolved are not contained in the returned
+     * map.
+     * 
+     * @return highest integration sequence numbers mapped by compartment name.
+     */
+    public Map<String, Integer> getIntegrationSequenceNumbers() {
+        return Collections.unmodifiableMap(integrationSequenceNumbers);
+    }
+
+    /**
+     * Set the cache to use for details of resources when determining affected
+     * development components.
+     * 
+     * @param resourceDetailsCache
+     *            cache for details of resources (may be <code>null</code> to
+     *            always read resource details from the DTR).
+     */
+    public void setResourceDetailsCache(final ResourceDetailsCache resourceDetailsCache) {
+        this.resourceDetailsCache = resourceDetailsCache;
+    }
+
+    /**
+     * Returns the number of resource details found in the cache during the
+     * last call of
+     * {@link #getActivitiesWithResourcesAndDevelopmentComponents(DevelopmentComponentFactory, Date)}
+     * .
+     * 
+     * @return number of resource details found in the cache.
+     */
+    public int getResourceDetailsCacheHits() {
+        return resourceDetailsCacheHits;
+    }
+
+    /**
+     * Returns the number of resource details not found in the cache during the
+     * last call of
+     * {@link #getActivitiesWithResourcesAndDevelopmentComponents(DevelopmentComponentFactory, Date)}
+     * .
+     * 
+     * @return number of resource details not found in the cache.
+     */
+    public int getResourceDetailsCacheMisses() {
+        return resourceDetailsCacheMisses;
+    }
+
+    /**
+     * Shut down the pools of keep-alive connections to DTR servers (see
+     * {@link DtrConnectionPool#POOLED_TRANSPORT_PROPERTY}) when Jenkins
+     * terminates.
+     */
+    @Terminator
+    public static void shutdownConnectionPools() {
+        DtrConnectionPool.shutdownAll();
+    }
 }
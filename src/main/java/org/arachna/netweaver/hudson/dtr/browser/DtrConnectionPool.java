@@ -0,0 +1,296 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Pool of keep-alive HTTP connections to a DTR server.
+ *
+ * Pools are shared per DTR server and user, i.e. all {@link DtrBrowser}
+ * instances (and thus all NWDI projects) talking to the same DTR reuse the
+ * same connections and authentication state between polls and builds. A
+ * changed password replaces the pool, the pool using the old password is shut
+ * down (including its thread evicting idle connections). All pools are shut
+ * down when Jenkins terminates (see {@link #shutdownAll()}).
+ *
+ * @author Dirk Weigenand
+ */
+final class DtrConnectionPool {
+    /**
+     * Name of system property enabling the pooled keep-alive transport.
+     */
+    static final String POOLED_TRANSPORT_PROPERTY = "nwdibuild.dtr.pooled";
+
+    /**
+     * Name of system property configuring the maximum number of connections
+     * per route.
+     */
+    static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "nwdibuild.dtr.max.connections.per.route";
+
+    /**
+     * Name of system property configuring the maximum number of connections
+     * per DTR server and user.
+     */
+    static final String MAX_CONNECTIONS_PROPERTY = "nwdibuild.dtr.max.connections";
+
+    /**
+     * Name of system property configuring the number of seconds after which
+     * idle connections are evicted from the pool.
+     */
+    static final String IDLE_TIMEOUT_PROPERTY = "nwdibuild.dtr.idle.timeout";
+
+    /**
+     * default maximum number of connections per route.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
+
+    /**
+     * default maximum number of connections per pool.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 32;
+
+    /**
+     * default number of seconds idle connections are kept open.
+     */
+    private static final int DEFAULT_IDLE_TIMEOUT = 60;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DtrConnectionPool.class.getName());
+
+    /**
+     * algorithm used to hash passwords for the keys of pools.
+     */
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * registry of pools mapped by DTR server and user.
+     */
+    private static final ConcurrentMap<String, DtrConnectionPool> POOLS =
+        new ConcurrentHashMap<String, DtrConnectionPool>();
+
+    /**
+     * HTTP client using the pooled connections.
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * hash of the password used to authenticate against the DTR.
+     */
+    private final String passwordHash;
+
+    /**
+     * cache of authentication schemes shared by all conversations using this
+     * pool.
+     */
+    private final AuthCache authCache = new BasicAuthCache();
+
+    /**
+     * Create a pool of connections to a DTR server.
+     *
+     * @param dtrUser
+     *            user for accessing the DTR.
+     * @param password
+     *            password to authenticate the user against the DTR's UME.
+     * @param passwordHash
+     *            hash of the given password.
+     */
+    private DtrConnectionPool(final String dtrUser, final String password, final String passwordHash) {
+        this.passwordHash = passwordHash;
+
+        final int maxConnections = Math.max(1, Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(Math.min(maxConnections,
+            Math.max(1, Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_ROUTE))));
+
+        final CredentialsProvider credsProvider = new BasicCredentialsProvider();
+        credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(dtrUser, password));
+        httpClient =
+            HttpClients.custom().setConnectionManager(connectionManager).setDefaultCredentialsProvider(credsProvider)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE).evictExpiredConnections()
+                .evictIdleConnections(Math.max(1, Integer.getInteger(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT)),
+                    TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Indicates whether the pooled keep-alive transport is enabled.
+     *
+     * @return <code>true</code> when the system property
+     *         {@link #POOLED_TRANSPORT_PROPERTY} is set to <code>true</code>,
+     *         <code>false</code> otherwise.
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(POOLED_TRANSPORT_PROPERTY);
+    }
+
+    /**
+     * Return the pool for the given DTR server, user and password. Create it
+     * if necessary. A pool for the given DTR server and user using another
+     * password is replaced and shut down.
+     *
+     * @param dtrUrl
+     *            URL of DTR server.
+     * @param dtrUser
+     *            user for accessing the DTR.
+     * @param password
+     *            password to authenticate the user against the DTR's UME.
+     * @return the pool of connections for the given DTR server, user and
+     *         password.
+     */
+    static DtrConnectionPool get(final String dtrUrl, final String dtrUser, final String password) {
+        final String key = createKey(dtrUrl, dtrUser);
+        final String passwordHash = hash(password);
+        DtrConnectionPool pool = POOLS.get(key);
+
+        if (pool == null || !pool.passwordHash.equals(passwordHash)) {
+            synchronized (POOLS) {
+                pool = POOLS.get(key);
+
+                if (pool == null || !pool.passwordHash.equals(passwordHash)) {
+                    final DtrConnectionPool replaced = pool;
+                    pool = new DtrConnectionPool(dtrUser, password, passwordHash);
+                    POOLS.put(key, pool);
+
+                    if (replaced != null) {
+                        LOGGER.log(Level.FINE, String.format("Password of %s changed, replacing its connection pool.", key));
+                        replaced.shutdown();
+                    }
+                }
+            }
+        }
+
+        return pool;
+    }
+
+    /**
+     * Shut down all pools.
+     */
+    static void shutdownAll() {
+        synchronized (POOLS) {
+            for (final DtrConnectionPool pool : POOLS.values()) {
+                pool.shutdown();
+            }
+
+            POOLS.clear();
+        }
+    }
+
+    /**
+     * Shut down the HTTP client of this pool closing its connections and
+     * stopping the eviction of idle connections.
+     */
+    private void shutdown() {
+        try {
+            httpClient.close();
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Calculate the hash of the given password, so that the password itself
+     * does not become part of the key of a pool.
+     *
+     * @param password
+     *            password to hash.
+     * @return hexadecimal representation of the hash of the given password.
+     */
+    private static String hash(final String password) {
+        try {
+            final byte[] digest =
+                MessageDigest.getInstance(ALGORITHM).digest(
+                    (password == null ? "" : password).getBytes(Charset.forName("UTF-8")));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (final byte b : digest) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+
+            return hex.toString();
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Create the key for registering a pool.
+     *
+     * @param dtrUrl
+     *            URL of DTR server.
+     * @param dtrUser
+     *            user for accessing the DTR.
+     * @return the concatenation of scheme, host and port of the given URL,
+     *         '|' and the given user.
+     */
+    static String createKey(final String dtrUrl, final String dtrUser) {
+        String server = dtrUrl == null ? "" : dtrUrl.trim();
+
+        try {
+            final URI uri = new URI(server);
+
+            if (uri.getHost() != null) {
+                final String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase();
+                final int port = uri.getPort() == -1 ? ("https".equals(scheme) ? 443 : 80) : uri.getPort();
+                server = String.format("%s://%s:%d", scheme, uri.getHost().toLowerCase(), port);
+            }
+        }
+        catch (final URISyntaxException e) {
+            LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+        }
+
+        return server + "|" + dtrUser;
+    }
+
+    /**
+     * Return the HTTP client using the pooled connections.
+     *
+     * @return the HTTP client using the pooled connections.
+     */
+    CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Create a new context for a conversation with the DTR. The context shares
+     * the authentication state of this pool, so authenticating once is
+     * sufficient for all conversations.
+     *
+     * @return a new context for a conversation with the DTR.
+     */
+    HttpContext createContext() {
+        final HttpContext context = new BasicHttpContext();
+        context.setAttribute(HttpClientContext.AUTH_CACHE, authCache);
+
+        return context;
+    }
+}
@@ -3,14 +3,18 @@
  */
 package org.arachna.netweaver.hudson.dtr.browser;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.io.OutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.http.HttpEntity;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
@@ -21,6 +25,7 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 
@@ -32,6 +37,13 @@ import hudson.util.IOUtils;
  * @author Dirk Weigenand
  */
 final class DtrHttpClient {
+    /**
+     * Name of system property configuring the size in bytes above which
+     * responses are spooled to a temporary file before being parsed. Responses
+     * of unknown size are spooled too. By default responses are never spooled.
+     */
+    static final String SPOOL_THRESHOLD_PROPERTY = "nwdibuild.dtr.spool.threshold";
+
     /**
      * Logger.
      */
@@ -43,11 +55,33 @@ final class DtrHttpClient {
     private final CloseableHttpClient httpClient;
 
     /**
-     * Context to use for conversations.
+     * Context to use for conversations. Every thread talking to the DTR uses
+     * its own context since {@link HttpContext} is not thread safe.
      */
-    private final HttpContext localContext = new BasicHttpContext();
+    private final ThreadLocal<HttpContext> localContext = new ThreadLocal<HttpContext>() {
+        @Override
+        protected HttpContext initialValue() {
+            return connectionPool == null ? new BasicHttpContext() : connectionPool.createContext();
+        }
+    };
 
-    private HttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager();
+    /**
+     * connection manager used by the HTTP client (<code>null</code> when using
+     * a shared {@link DtrConnectionPool}).
+     */
+    private final HttpClientConnectionManager connectionManager;
+
+    /**
+     * shared pool of connections to the DTR (<code>null</code> when this
+     * client uses its own connection manager).
+     */
+    private final DtrConnectionPool connectionPool;
+
+    /**
+     * size in bytes above which responses are spooled to a temporary file
+     * (negative to always hand out the live response stream).
+     */
+    private final long spoolThreshold = Long.getLong(SPOOL_THRESHOLD_PROPERTY, -1L).longValue();
 
     /**
      * Create an instance of a <code>DtrHttpClient</code>.
@@ -58,13 +92,59 @@ final class DtrHttpClient {
      *            password to authenticate the user against the DTR's UME.
      */
     public DtrHttpClient(final String dtrUser, final String password) {
+        this(dtrUser, password, 1);
+    }
+
+    /**
+     * Create an instance of a <code>DtrHttpClient</code> that may be used by
+     * the given number of threads concurrently.
+     * 
+     * @param dtrUser
+     *            user for accessing the DTR.
+     * @param password
+     *            password to authenticate the user against the DTR's UME.
+     * @param maxConnections
+     *            maximum number of concurrent connections to the DTR. When
+     *            greater than one a pooling connection manager is used.
+     */
+    public DtrHttpClient(final String dtrUser, final String password, final int maxConnections) {
         validateArgument(dtrUser, "DTR user");
         validateArgument(password, "password");
+        connectionPool = null;
+
+        if (maxConnections > 1) {
+            final PoolingHttpClientConnectionManager poolingConnectionManager =
+                new PoolingHttpClientConnectionManager();
+            poolingConnectionManager.setMaxTotal(maxConnections);
+            poolingConnectionManager.setDefaultMaxPerRoute(maxConnections);
+            connectionManager = poolingConnectionManager;
+        }
+        else {
+            connectionManager = new BasicHttpClientConnectionManager();
+        }
+
         CredentialsProvider credsProvider = new BasicCredentialsProvider();
         credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(dtrUser, password));
         httpClient = HttpClients.custom().setConnectionManager(connectionManager).setDefaultCredentialsProvider(credsProvider).build();
     }
 
+    /**
+     * Create an instance of a <code>DtrHttpClient</code> using the given shared
+     * pool of keep-alive connections.
+     * 
+     * @param connectionPool
+     *            pool of connections to the DTR shared with other clients.
+     */
+    DtrHttpClient(final DtrConnectionPool connectionPool) {
+        if (connectionPool == null) {
+            throw new IllegalArgumentException("connectionPool must not be null!");
+        }
+
+        this.connectionPool = connectionPool;
+        connectionManager = null;
+        httpClient = connectionPool.getHttpClient();
+    }
+
     /**
      * Validate the given String argument.
      * 
@@ -82,6 +162,13 @@ final class DtrHttpClient {
     /**
      * Get the content of the page returned by the given query.
      * 
+     * The content is not buffered in memory. Either the live response stream
+     * is returned or, when the response is larger than the threshold
+     * configured via {@link #SPOOL_THRESHOLD_PROPERTY}, the content is spooled
+     * to a temporary file first and the connection released immediately. The
+     * caller must close the returned stream to release the connection or
+     * delete the temporary file respectively.
+     * 
      * @param queryUrl
      *            URL for querying activities for a given compartment.
      * @return the content of the page returned by the given query.
@@ -90,30 +177,76 @@ final class DtrHttpClient {
      */
     InputStream getContent(final String queryUrl) throws IOException {
         logger.fine(queryUrl);
-        CloseableHttpResponse response = null;
-        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final HttpGet httpget = new HttpGet(queryUrl);
+        final CloseableHttpResponse response = httpClient.execute(httpget, localContext.get());
+        InputStream content = null;
+        boolean streaming = false;
 
         try {
-            final HttpGet httpget = new HttpGet(queryUrl);
-            response = httpClient.execute(httpget, localContext);
-            IOUtils.copy(response.getEntity().getContent(), content);
+            final HttpEntity entity = response.getEntity();
+
+            if (entity != null) {
+                if (spoolThreshold >= 0 && (entity.getContentLength() < 0 || entity.getContentLength() > spoolThreshold)) {
+                    content = spool(entity);
+                }
+                else {
+                    content = new DtrResponseStream(entity.getContent(), response);
+                    streaming = true;
+                }
+            }
         }
-        catch (UnsupportedOperationException e) {
+        catch (final UnsupportedOperationException e) {
             logger.log(Level.WARNING, e.getLocalizedMessage(), e);
         }
         finally {
-            if (response != null) {
+            if (!streaming) {
                 response.close();
             }
         }
 
-        return new ByteArrayInputStream(content.toByteArray());
+        return content == null ? new ByteArrayInputStream(new byte[0]) : content;
+    }
+
+    /**
+     * Spool the content of the given entity to a temporary file.
+     * 
+     * @param entity
+     *            entity whose content should be spooled.
+     * @return stream reading the temporary file. The file is deleted when the
+     *         stream is closed.
+     * @throws IOException
+     *             when reading the content or writing the temporary file
+     *             fails.
+     */
+    private InputStream spool(final HttpEntity entity) throws IOException {
+        final File spoolFile = File.createTempFile("dtr", ".htm");
+
+        try {
+            final OutputStream out = new FileOutputStream(spoolFile);
+
+            try {
+                IOUtils.copy(entity.getContent(), out);
+            }
+            finally {
+                out.close();
+            }
+
+            return new DtrResponseStream(new BufferedInputStream(new FileInputStream(spoolFile)), spoolFile);
+        }
+        catch (final IOException e) {
+            spoolFile.delete();
+            throw e;
+        }
     }
 
     /**
      * Shut down the underlying {@link DefaultHTTPClient}'s connection manager.
+     * Connections of a shared {@link DtrConnectionPool} are kept open for
+     * reuse.
      */
     public void close() {
-        connectionManager.shutdown();
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
     }
 }
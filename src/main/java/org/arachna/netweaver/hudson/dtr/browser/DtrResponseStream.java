@@ -0,0 +1,112 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stream of the content of a page read from the DTR. Closing the stream releases the resources associated with it, i.e. the HTTP response
+ * (and with it the connection to the DTR) the content is read from or the temporary file the content has been spooled to.
+ *
+ * @author Dirk Weigenand
+ */
+final class DtrResponseStream extends FilterInputStream {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DtrResponseStream.class.getName());
+
+    /**
+     * resource to release when this stream is closed (may be <code>null</code>).
+     */
+    private final Closeable resource;
+
+    /**
+     * temporary file to delete when this stream is closed (may be <code>null</code>).
+     */
+    private final File spoolFile;
+
+    /**
+     * whether this stream has been closed already.
+     */
+    private boolean closed;
+
+    /**
+     * Create a stream reading the content of a live HTTP response.
+     *
+     * @param content
+     *            the response's content.
+     * @param response
+     *            the response to close when this stream is closed.
+     */
+    DtrResponseStream(final InputStream content, final Closeable response) {
+        this(content, response, null);
+    }
+
+    /**
+     * Create a stream reading the content of a page spooled to the given temporary file.
+     *
+     * @param content
+     *            stream reading the spooled content.
+     * @param spoolFile
+     *            temporary file to delete when this stream is closed.
+     */
+    DtrResponseStream(final InputStream content, final File spoolFile) {
+        this(content, null, spoolFile);
+    }
+
+    /**
+     * Create a stream reading the given content.
+     *
+     * @param content
+     *            the content to read.
+     * @param resource
+     *            resource to release when this stream is closed (may be <code>null</code>).
+     * @param spoolFile
+     *            temporary file to delete when this stream is closed (may be <code>null</code>).
+     */
+    private DtrResponseStream(final InputStream content, final Closeable resource, final File spoolFile) {
+        super(content);
+        this.resource = resource;
+        this.spoolFile = spoolFile;
+    }
+
+    /**
+     * Releases the associated response or temporary file and closes the content stream.
+     *
+     * The response is closed before the content stream. A response that has been read completely has already returned its connection for
+     * reuse. Otherwise, i.e. when the reader stopped early (e.g. at the first new or known activity), the response is aborted and its
+     * connection discarded instead of transferring the remaining content.
+     *
+     * @throws IOException
+     *             when closing the content stream or the response fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            if (resource != null) {
+                resource.close();
+            }
+        }
+        finally {
+            super.close();
+
+            if (spoolFile != null && !spoolFile.delete()) {
+                LOGGER.log(Level.WARNING, String.format("Could not delete temporary file %s.", spoolFile.getAbsolutePath()));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+/**
+ * Receiver of events emitted by a {@link HtmlReportScanner} while it scans a
+ * DTR HTML report.
+ *
+ * @author Dirk Weigenand
+ */
+interface HtmlReportHandler {
+    /**
+     * Called for every link (<code>&lt;a href="..."&gt;</code>) in the report
+     * when its closing tag has been read.
+     *
+     * @param href
+     *            the link's target.
+     * @param text
+     *            the link's text (white space collapsed).
+     */
+    void link(String href, String text);
+
+    /**
+     * Called for every table row when the row has been read completely.
+     *
+     * Rows of nested tables are reported before the row containing the nested
+     * table.
+     *
+     * @param row
+     *            the table row that has been read.
+     */
+    void row(HtmlTableRow row);
+}
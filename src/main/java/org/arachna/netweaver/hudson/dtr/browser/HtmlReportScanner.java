@@ -0,0 +1,776 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming scanner for DTR HTML reports.
+ *
+ * Reads the report sequentially and reports links and table rows to a
+ * {@link HtmlReportHandler} as soon as they have been read. No document tree is
+ * built. Only the text of the currently open table cells and links is kept in
+ * memory, so memory consumption does not depend on the size of the report.
+ *
+ * The scanner is lenient: unclosed cells and rows are closed by the next cell,
+ * row or the end of the enclosing table; unknown markup is skipped.
+ *
+ * @author Dirk Weigenand
+ */
+final class HtmlReportScanner {
+    /**
+     * encoding used to decode reports (JTidy's default input encoding).
+     */
+    private static final String DEFAULT_ENCODING = "ISO-8859-1";
+
+    /**
+     * size of read buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * maximum length of an entity reference (without '&amp;' and ';').
+     */
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    /**
+     * named entities and their replacement characters.
+     */
+    private static final Map<String, Character> ENTITIES = new HashMap<String, Character>();
+
+    static {
+        ENTITIES.put("amp", '&');
+        ENTITIES.put("lt", '<');
+        ENTITIES.put("gt", '>');
+        ENTITIES.put("quot", '"');
+        ENTITIES.put("apos", '\'');
+        ENTITIES.put("nbsp", '\u00a0');
+        ENTITIES.put("auml", '\u00e4');
+        ENTITIES.put("ouml", '\u00f6');
+        ENTITIES.put("uuml", '\u00fc');
+        ENTITIES.put("Auml", '\u00c4');
+        ENTITIES.put("Ouml", '\u00d6');
+        ENTITIES.put("Uuml", '\u00dc');
+        ENTITIES.put("szlig", '\u00df');
+        ENTITIES.put("euro", '\u20ac');
+    }
+
+    /**
+     * receiver of links and table rows.
+     */
+    private final HtmlReportHandler handler;
+
+    /**
+     * currently open tables (innermost first).
+     */
+    private final LinkedList<Table> tables = new LinkedList<Table>();
+
+    /**
+     * read buffer.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * current position in read buffer.
+     */
+    private int position;
+
+    /**
+     * number of valid characters in read buffer (<code>-1</code> at end of
+     * input).
+     */
+    private int limit;
+
+    /**
+     * reader for the report.
+     */
+    private Reader reader;
+
+    /**
+     * number of tables started so far.
+     */
+    private int tableCount;
+
+    /**
+     * whether the first horizontal rule has been read.
+     */
+    private boolean afterRule;
+
+    /**
+     * target of currently open link (<code>null</code> when no link is open).
+     */
+    private String linkHref;
+
+    /**
+     * text of currently open link.
+     */
+    private StringBuilder linkText;
+
+    /**
+     * cell containing the currently open link.
+     */
+    private CellBuilder linkCell;
+
+    /**
+     * whether the handler requested to stop scanning.
+     */
+    private boolean stopped;
+
+    /**
+     * Create a scanner reporting to the given handler.
+     *
+     * @param handler
+     *            receiver of links and table rows.
+     */
+    HtmlReportScanner(final HtmlReportHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler must not be null!");
+        }
+
+        this.handler = handler;
+    }
+
+    /**
+     * Scan the report read from the given stream.
+     *
+     * @param content
+     *            the report's content.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    void scan(final InputStream content) throws IOException {
+        scan(new InputStreamReader(content, DEFAULT_ENCODING));
+    }
+
+    /**
+     * Scan the report read from the given reader.
+     *
+     * @param content
+     *            the report's content.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    void scan(final Reader content) throws IOException {
+        reader = content;
+        position = 0;
+        limit = 0;
+        stopped = false;
+
+        final StringBuilder text = new StringBuilder();
+        int c;
+
+        while (!stopped && (c = read()) != -1) {
+            if (c == '<' && isMarkupStart(peek())) {
+                text(text);
+                text.setLength(0);
+                readMarkup();
+            }
+            else if (isCollectingText()) {
+                text.append((char)c);
+            }
+        }
+
+        if (stopped) {
+            tables.clear();
+            return;
+        }
+
+        text(text);
+        finishLink();
+
+        while (!tables.isEmpty()) {
+            tables.removeFirst().finishRow();
+        }
+    }
+
+    /**
+     * Stop scanning the report. The remaining content is neither read nor
+     * reported to the handler. May be called by the handler while the report
+     * is being scanned.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Determines whether the given character following a '&lt;' starts markup.
+     *
+     * @param c
+     *            character following a '&lt;'.
+     * @return <code>true</code> when the character starts a tag, comment or
+     *         declaration, <code>false</code> otherwise.
+     */
+    private boolean isMarkupStart(final int c) {
+        return c == '/' || c == '!' || c == '?' || Character.isLetter(c);
+    }
+
+    /**
+     * Determines whether text is to be collected currently (i.e. a cell or link
+     * is open).
+     *
+     * @return <code>true</code> when a cell or link is open, <code>false</code>
+     *         otherwise.
+     */
+    private boolean isCollectingText() {
+        return linkHref != null || getCurrentCell() != null;
+    }
+
+    /**
+     * Returns the currently open cell of the innermost table.
+     *
+     * @return the currently open cell or <code>null</code>.
+     */
+    private CellBuilder getCurrentCell() {
+        return tables.isEmpty() ? null : tables.getFirst().cell;
+    }
+
+    /**
+     * Add the given text to the currently open cell and link.
+     *
+     * @param text
+     *            raw text read from report.
+     */
+    private void text(final CharSequence text) {
+        if (text.length() > 0) {
+            final String decoded = decode(text);
+            final CellBuilder cell = getCurrentCell();
+
+            if (cell != null) {
+                cell.text.append(decoded);
+            }
+
+            if (linkHref != null) {
+                linkText.append(decoded);
+            }
+        }
+    }
+
+    /**
+     * Read markup following a '&lt;'.
+     *
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private void readMarkup() throws IOException {
+        final int c = read();
+
+        if (c == '!') {
+            if (peek() == '-') {
+                skipPast("-->");
+            }
+            else {
+                skipPast(">");
+            }
+        }
+        else if (c == '?') {
+            skipPast(">");
+        }
+        else if (c == '/') {
+            final String name = readName(-1);
+            skipPast(">");
+            endTag(name);
+        }
+        else {
+            final String name = readName(c);
+            final Map<String, String> attributes = readAttributes();
+            startTag(name, attributes);
+
+            if ("script".equals(name) || "style".equals(name)) {
+                skipPast("</" + name);
+                skipPast(">");
+            }
+        }
+    }
+
+    /**
+     * Read a tag or attribute name.
+     *
+     * @param first
+     *            first character of name (<code>-1</code> when the name should
+     *            be read from the current position).
+     * @return the name read in lower case.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private String readName(final int first) throws IOException {
+        final StringBuilder name = new StringBuilder();
+
+        if (first != -1) {
+            name.append((char)first);
+        }
+
+        int c = peek();
+
+        while (c != -1 && c != '>' && c != '/' && c != '=' && !Character.isWhitespace(c)) {
+            name.append((char)read());
+            c = peek();
+        }
+
+        return name.toString().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Read the attributes of a start tag up to and including the closing
+     * '&gt;'.
+     *
+     * @return attributes of start tag mapped by their (lower case) names.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private Map<String, String> readAttributes() throws IOException {
+        final Map<String, String> attributes = new HashMap<String, String>();
+        int c;
+
+        while ((c = read()) != -1 && c != '>') {
+            if (Character.isWhitespace(c) || c == '/') {
+                continue;
+            }
+
+            final String name = readName(c);
+            skipWhitespace();
+
+            String value = "";
+
+            if (peek() == '=') {
+                read();
+                skipWhitespace();
+                value = decode(readAttributeValue());
+            }
+
+            attributes.put(name, value);
+        }
+
+        return attributes;
+    }
+
+    /**
+     * Read a (quoted or unquoted) attribute value.
+     *
+     * @return the raw attribute value.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private String readAttributeValue() throws IOException {
+        final StringBuilder value = new StringBuilder();
+        final int quote = peek();
+
+        if (quote == '"' || quote == '\'') {
+            read();
+            int c;
+
+            while ((c = read()) != -1 && c != quote) {
+                value.append((char)c);
+            }
+        }
+        else {
+            int c = peek();
+
+            while (c != -1 && c != '>' && !Character.isWhitespace(c)) {
+                value.append((char)read());
+                c = peek();
+            }
+        }
+
+        return value.toString();
+    }
+
+    /**
+     * Handle a start tag.
+     *
+     * @param name
+     *            name of tag.
+     * @param attributes
+     *            attributes of tag.
+     */
+    private void startTag(final String name, final Map<String, String> attributes) {
+        final Table table = tables.isEmpty() ? null : tables.getFirst();
+
+        if ("table".equals(name)) {
+            tables.addFirst(new Table(++tableCount, tables.size() + 1, afterRule));
+        }
+        else if ("tr".equals(name)) {
+            if (table != null) {
+                table.finishRow();
+                table.cells = new ArrayList<HtmlTableRow.Cell>();
+            }
+        }
+        else if ("td".equals(name) || "th".equals(name)) {
+            if (table != null) {
+                table.finishCell();
+
+                if (table.cells == null) {
+                    table.cells = new ArrayList<HtmlTableRow.Cell>();
+                }
+
+                table.cell = new CellBuilder("th".equals(name));
+            }
+        }
+        else if ("a".equals(name)) {
+            finishLink();
+            linkHref = attributes.get("href");
+
+            if (linkHref != null) {
+                linkText = new StringBuilder();
+                linkCell = getCurrentCell();
+            }
+        }
+        else if ("hr".equals(name)) {
+            afterRule = true;
+        }
+        else if ("br".equals(name)) {
+            text(" ");
+        }
+    }
+
+    /**
+     * Handle an end tag.
+     *
+     * @param name
+     *            name of tag.
+     */
+    private void endTag(final String name) {
+        if (!tables.isEmpty()) {
+            if ("table".equals(name)) {
+                tables.removeFirst().finishRow();
+            }
+            else if ("tr".equals(name)) {
+                tables.getFirst().finishRow();
+            }
+            else if ("td".equals(name) || "th".equals(name)) {
+                tables.getFirst().finishCell();
+            }
+        }
+
+        if ("a".equals(name)) {
+            finishLink();
+        }
+    }
+
+    /**
+     * Report the currently open link (if any) and close it.
+     */
+    private void finishLink() {
+        if (linkHref != null) {
+            final String text = collapseWhitespace(linkText);
+            handler.link(linkHref, text);
+
+            if (linkCell != null && !linkCell.header) {
+                linkCell.links.add(new HtmlTableRow.Link(linkHref, text));
+            }
+
+            linkHref = null;
+            linkText = null;
+            linkCell = null;
+        }
+    }
+
+    /**
+     * Skip white space.
+     *
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private void skipWhitespace() throws IOException {
+        int c = peek();
+
+        while (c != -1 && Character.isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+    }
+
+    /**
+     * Skip input up to and including the given terminator (compared case
+     * insensitive).
+     *
+     * @param terminator
+     *            the terminator to skip to (lower case).
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private void skipPast(final String terminator) throws IOException {
+        int matched = 0;
+        int c;
+
+        while (matched < terminator.length() && (c = read()) != -1) {
+            if (Character.toLowerCase((char)c) == terminator.charAt(matched)) {
+                matched++;
+            }
+            else {
+                matched = Character.toLowerCase((char)c) == terminator.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Return the next character without consuming it.
+     *
+     * @return the next character or <code>-1</code> at the end of input.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position];
+    }
+
+    /**
+     * Read the next character.
+     *
+     * @return the next character or <code>-1</code> at the end of input.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position++];
+    }
+
+    /**
+     * Fill the read buffer.
+     *
+     * @return <code>true</code> when characters could be read,
+     *         <code>false</code> at the end of input.
+     * @throws IOException
+     *             when reading the report fails.
+     */
+    private boolean fill() throws IOException {
+        if (limit == -1) {
+            return false;
+        }
+
+        position = 0;
+        limit = reader.read(buffer, 0, buffer.length);
+
+        while (limit == 0) {
+            limit = reader.read(buffer, 0, buffer.length);
+        }
+
+        return limit > 0;
+    }
+
+    /**
+     * Replace entity references in the given text.
+     *
+     * @param text
+     *            text to decode.
+     * @return text with known entity references replaced by the referenced
+     *         characters. Unknown references are left untouched.
+     */
+    static String decode(final CharSequence text) {
+        final StringBuilder decoded = new StringBuilder(text.length());
+        int i = 0;
+
+        while (i < text.length()) {
+            final char c = text.charAt(i);
+            int end = -1;
+
+            if (c == '&') {
+                for (int j = i + 1; j < text.length() && j <= i + MAX_ENTITY_LENGTH + 1; j++) {
+                    if (text.charAt(j) == ';') {
+                        end = j;
+                        break;
+                    }
+                }
+            }
+
+            final Character replacement = end == -1 ? null : resolveEntity(text.subSequence(i + 1, end).toString());
+
+            if (replacement == null) {
+                decoded.append(c);
+                i++;
+            }
+            else {
+                decoded.append(replacement.charValue());
+                i = end + 1;
+            }
+        }
+
+        return decoded.toString();
+    }
+
+    /**
+     * Resolve the given entity name.
+     *
+     * @param entity
+     *            name of entity (without '&amp;' and ';').
+     * @return the referenced character or <code>null</code> if the entity is
+     *         unknown.
+     */
+    private static Character resolveEntity(final String entity) {
+        Character replacement = ENTITIES.get(entity);
+
+        if (replacement == null && entity.length() > 1 && entity.charAt(0) == '#') {
+            try {
+                final boolean hex = entity.charAt(1) == 'x' || entity.charAt(1) == 'X';
+                final int codePoint =
+                    hex ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+
+                if (codePoint > 0 && codePoint <= Character.MAX_VALUE) {
+                    replacement = Character.valueOf((char)codePoint);
+                }
+            }
+            catch (final NumberFormatException e) {
+                replacement = null;
+            }
+        }
+
+        return replacement;
+    }
+
+    /**
+     * Collapse sequences of white space into a single blank and trim the
+     * result (like JTidy does for text nodes).
+     *
+     * @param text
+     *            text to collapse.
+     * @return the collapsed text.
+     */
+    static String collapseWhitespace(final CharSequence text) {
+        final StringBuilder collapsed = new StringBuilder(text.length());
+        boolean whitespace = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                whitespace = collapsed.length() > 0;
+            }
+            else {
+                if (whitespace) {
+                    collapsed.append(' ');
+                    whitespace = false;
+                }
+
+                collapsed.append(c);
+            }
+        }
+
+        return collapsed.toString();
+    }
+
+    /**
+     * State of an open table.
+     *
+     * @author Dirk Weigenand
+     */
+    private final class Table {
+        /**
+         * number of table (in document order).
+         */
+        private final int number;
+
+        /**
+         * nesting depth of table.
+         */
+        private final int depth;
+
+        /**
+         * whether the table started after the first horizontal rule.
+         */
+        private final boolean afterRule;
+
+        /**
+         * cells of the currently open row (<code>null</code> when no row is
+         * open).
+         */
+        private List<HtmlTableRow.Cell> cells;
+
+        /**
+         * currently open cell (<code>null</code> when no cell is open).
+         */
+        private CellBuilder cell;
+
+        /**
+         * Create the state for a newly opened table.
+         *
+         * @param number
+         *            number of table (in document order).
+         * @param depth
+         *            nesting depth of table.
+         * @param afterRule
+         *            whether the table started after the first horizontal
+         *            rule.
+         */
+        Table(final int number, final int depth, final boolean afterRule) {
+            this.number = number;
+            this.depth = depth;
+            this.afterRule = afterRule;
+        }
+
+        /**
+         * Close the currently open cell (if any) and add it to the current row
+         * unless it is a header cell.
+         */
+        void finishCell() {
+            if (cell != null) {
+                if (!cell.header && cells != null) {
+                    cells.add(new HtmlTableRow.Cell(collapseWhitespace(cell.text), cell.links));
+                }
+
+                cell = null;
+            }
+        }
+
+        /**
+         * Close the currently open row (if any) and report it to the handler.
+         */
+        void finishRow() {
+            finishCell();
+
+            if (cells != null) {
+                final List<HtmlTableRow.Cell> rowCells = cells;
+                cells = null;
+                handler.row(new HtmlTableRow(number, depth, afterRule, rowCells));
+            }
+        }
+    }
+
+    /**
+     * Collects text and links of an open cell.
+     *
+     * @author Dirk Weigenand
+     */
+    private static final class CellBuilder {
+        /**
+         * whether this is a header cell.
+         */
+        private final boolean header;
+
+        /**
+         * text of cell.
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * links contained in cell.
+         */
+        private final List<HtmlTableRow.Link> links = new ArrayList<HtmlTableRow.Link>();
+
+        /**
+         * Create a builder for a cell.
+         *
+         * @param header
+         *            whether this is a header cell.
+         */
+        CellBuilder(final boolean header) {
+            this.header = header;
+        }
+    }
+}
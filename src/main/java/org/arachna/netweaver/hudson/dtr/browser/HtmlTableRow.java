@@ -0,0 +1,227 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A row of a table in a DTR HTML report. Contains the data cells (
+ * <code>&lt;td&gt;</code>) of the row. Header cells (<code>&lt;th&gt;</code>)
+ * are omitted.
+ *
+ * @author Dirk Weigenand
+ */
+final class HtmlTableRow {
+    /**
+     * number of the table containing this row (tables are numbered in document
+     * order starting with one).
+     */
+    private final int tableNumber;
+
+    /**
+     * nesting depth of the table containing this row (<code>1</code> for tables
+     * not contained in another table).
+     */
+    private final int tableDepth;
+
+    /**
+     * whether the table containing this row started after the first horizontal
+     * rule (<code>&lt;hr&gt;</code>) of the report.
+     */
+    private final boolean afterRule;
+
+    /**
+     * data cells of this row.
+     */
+    private final List<Cell> cells;
+
+    /**
+     * Create a table row.
+     *
+     * @param tableNumber
+     *            number of the table containing this row.
+     * @param tableDepth
+     *            nesting depth of the table containing this row.
+     * @param afterRule
+     *            whether the table containing this row started after the first
+     *            horizontal rule of the report.
+     * @param cells
+     *            data cells of this row.
+     */
+    HtmlTableRow(final int tableNumber, final int tableDepth, final boolean afterRule, final List<Cell> cells) {
+        this.tableNumber = tableNumber;
+        this.tableDepth = tableDepth;
+        this.afterRule = afterRule;
+        this.cells = Collections.unmodifiableList(cells);
+    }
+
+    /**
+     * Returns the number of the table containing this row.
+     *
+     * @return number of the table containing this row (tables are numbered in
+     *         document order starting with one).
+     */
+    int getTableNumber() {
+        return tableNumber;
+    }
+
+    /**
+     * Returns the nesting depth of the table containing this row.
+     *
+     * @return nesting depth of the table containing this row (<code>1</code>
+     *         for tables not contained in another table).
+     */
+    int getTableDepth() {
+        return tableDepth;
+    }
+
+    /**
+     * Indicates whether the table containing this row started after the first
+     * horizontal rule of the report.
+     *
+     * @return <code>true</code> when the table containing this row started
+     *         after the first <code>&lt;hr&gt;</code>, <code>false</code>
+     *         otherwise.
+     */
+    boolean isAfterRule() {
+        return afterRule;
+    }
+
+    /**
+     * Returns the data cells of this row.
+     *
+     * @return the data cells of this row.
+     */
+    List<Cell> getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the number of data cells in this row.
+     *
+     * @return number of data cells in this row.
+     */
+    int size() {
+        return cells.size();
+    }
+
+    /**
+     * Returns the data cell at the given index.
+     *
+     * @param index
+     *            index of the cell (starting with zero).
+     * @return the data cell at the given index.
+     */
+    Cell getCell(final int index) {
+        return cells.get(index);
+    }
+
+    /**
+     * A data cell of a table row.
+     *
+     * @author Dirk Weigenand
+     */
+    static final class Cell {
+        /**
+         * text of this cell.
+         */
+        private final String text;
+
+        /**
+         * links contained in this cell (not counting links in nested tables).
+         */
+        private final List<Link> links;
+
+        /**
+         * Create a data cell.
+         *
+         * @param text
+         *            text of this cell (white space collapsed).
+         * @param links
+         *            links contained in this cell.
+         */
+        Cell(final String text, final List<Link> links) {
+            this.text = text;
+            this.links = Collections.unmodifiableList(links);
+        }
+
+        /**
+         * Returns the text of this cell. Text of nested tables is not included.
+         *
+         * @return the text of this cell (white space collapsed).
+         */
+        String getText() {
+            return text;
+        }
+
+        /**
+         * Returns the links contained in this cell.
+         *
+         * @return links contained in this cell (not counting links in nested
+         *         tables).
+         */
+        List<Link> getLinks() {
+            return links;
+        }
+
+        /**
+         * Returns the first link contained in this cell.
+         *
+         * @return the first link contained in this cell or <code>null</code>
+         *         if there is none.
+         */
+        Link getFirstLink() {
+            return links.isEmpty() ? null : links.get(0);
+        }
+    }
+
+    /**
+     * A link (<code>&lt;a href="..."&gt;</code>) contained in a data cell.
+     *
+     * @author Dirk Weigenand
+     */
+    static final class Link {
+        /**
+         * target of link.
+         */
+        private final String href;
+
+        /**
+         * text of link.
+         */
+        private final String text;
+
+        /**
+         * Create a link.
+         *
+         * @param href
+         *            target of link.
+         * @param text
+         *            text of link (white space collapsed).
+         */
+        Link(final String href, final String text) {
+            this.href = href;
+            this.text = text;
+        }
+
+        /**
+         * Returns the target of this link.
+         *
+         * @return the target of this link.
+         */
+        String getHref() {
+            return href;
+        }
+
+        /**
+         * Returns the text of this link.
+         *
+         * @return the text of this link (white space collapsed).
+         */
+        String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache for details of version history resources (<code>/vh/&lt;id&gt;</code>) read from the DTR.
+ *
+ * Version history resources are immutable, so their details (creation date, last modification, sequence number and deletion state)
+ * never need to be read from the DTR twice. Since resource ids are only unique per DTR server, entries are keyed by the URL of the DTR
+ * server and the resource id. Entries are appended to a text file (one tab separated line per resource) and kept in memory in least
+ * recently used order. When the number of entries exceeds the configured limit the least recently used entries are
+ * evicted and the file is compacted the next time it is written.
+ *
+ * @author Dirk Weigenand
+ */
+public final class ResourceDetailsCache {
+    /**
+     * Name of system property configuring the maximum number of cached resources.
+     */
+    static final String MAX_ENTRIES_PROPERTY = "nwdibuild.dtr.resource.cache.size";
+
+    /**
+     * default maximum number of cached resources.
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 50000;
+
+    /**
+     * separator of fields in cache file.
+     */
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * separator of DTR server URL and resource id in the key of an entry.
+     */
+    private static final char KEY_SEPARATOR = '|';
+
+    /**
+     * number of fields of an entry in the cache file.
+     */
+    private static final int FIELD_COUNT = 5;
+
+    /**
+     * encoding of cache file.
+     */
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ResourceDetailsCache.class.getName());
+
+    /**
+     * caches mapped by their files.
+     */
+    private static final Map<File, ResourceDetailsCache> CACHES = new HashMap<File, ResourceDetailsCache>();
+
+    /**
+     * file backing this cache.
+     */
+    private final File file;
+
+    /**
+     * maximum number of cached resources.
+     */
+    private final int maxEntries;
+
+    /**
+     * cached resource details mapped by DTR server URL and resource id in least recently used order.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * entries not yet appended to the cache file.
+     */
+    private final List<Entry> pending = new ArrayList<Entry>();
+
+    /**
+     * number of lines in the cache file.
+     */
+    private int linesInFile;
+
+    /**
+     * Create a cache backed by the given file.
+     *
+     * @param file
+     *            file backing the cache.
+     * @param maxEntries
+     *            maximum number of cached resources.
+     */
+    ResourceDetailsCache(final File file, final int maxEntries) {
+        this.file = file;
+        this.maxEntries = Math.max(1, maxEntries);
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > ResourceDetailsCache.this.maxEntries;
+            }
+        };
+        load();
+    }
+
+    /**
+     * Return the cache backed by the given file. The cache is shared by all callers using the same file.
+     *
+     * @param file
+     *            file backing the cache.
+     * @return the cache backed by the given file.
+     */
+    public static ResourceDetailsCache getInstance(final File file) {
+        synchronized (CACHES) {
+            ResourceDetailsCache cache = CACHES.get(file);
+
+            if (cache == null) {
+                cache = new ResourceDetailsCache(file, Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+                CACHES.put(file, cache);
+            }
+
+            return cache;
+        }
+    }
+
+    /**
+     * Update the given resource with cached details.
+     *
+     * @param dtrUrl
+     *            URL of the DTR server the resource was read from.
+     * @param resource
+     *            resource to update.
+     * @return <code>true</code> when the details of the given resource were cached, <code>false</code> otherwise.
+     */
+    synchronized boolean update(final String dtrUrl, final ActivityResource resource) {
+        final Entry entry = entries.get(createKey(dtrUrl, resource));
+
+        if (entry != null) {
+            resource.setCreationDate(new Date(entry.creationDate));
+            resource.setLastModified(new Date(entry.lastModified));
+            resource.setSequenceNumber(entry.sequenceNumber);
+            resource.setDeleted(Boolean.valueOf(entry.deleted));
+        }
+
+        return entry != null;
+    }
+
+    /**
+     * Add the details of the given resource to this cache. Only details parsed successfully from the DTR should be added.
+     *
+     * @param dtrUrl
+     *            URL of the DTR server the resource was read from.
+     * @param resource
+     *            resource whose details should be cached.
+     */
+    synchronized void put(final String dtrUrl, final ActivityResource resource) {
+        final String key = createKey(dtrUrl, resource);
+
+        if (!entries.containsKey(key)) {
+            final Entry entry =
+                new Entry(key, resource.getCreationDate().getTime(), resource.getLastModified().getTime(), resource.getSequenceNumber(),
+                    resource.isDeleted().booleanValue());
+            entries.put(entry.key, entry);
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * Create the key of the entry for the given resource.
+     *
+     * @param dtrUrl
+     *            URL of the DTR server the resource was read from.
+     * @param resource
+     *            the resource.
+     * @return the URL of the DTR server (without trailing slashes), '|' and the id of the resource.
+     */
+    private static String createKey(final String dtrUrl, final ActivityResource resource) {
+        String server = dtrUrl == null ? "" : dtrUrl.trim();
+
+        while (server.endsWith("/")) {
+            server = server.substring(0, server.length() - 1);
+        }
+
+        return server + KEY_SEPARATOR + resource.getId();
+    }
+
+    /**
+     * Returns the number of cached resources.
+     *
+     * @return number of cached resources.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Append new entries to the cache file. Compacts the file when it contains considerably more lines than cached entries (i.e.
+     * after entries were evicted).
+     */
+    synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (linesInFile + pending.size() > 2 * maxEntries) {
+                compact();
+            }
+            else {
+                write(pending, true);
+                linesInFile += pending.size();
+            }
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not write resource details cache %s.", file.getAbsolutePath()), e);
+        }
+
+        pending.clear();
+    }
+
+    /**
+     * Rewrite the cache file with the entries currently held in memory. The
+     * entries are written to a temporary file atomically replacing the cache
+     * file, so a concurrent reader never sees a missing or partially written
+     * cache file.
+     *
+     * @throws IOException
+     *             when writing the cache file fails.
+     */
+    private void compact() throws IOException {
+        final File compacted = new File(file.getAbsolutePath() + ".tmp");
+        final List<Entry> current = new ArrayList<Entry>(entries.values());
+
+        write(compacted, current, false);
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        linesInFile = current.size();
+    }
+
+    /**
+     * Write the given entries to the cache file.
+     *
+     * @param toWrite
+     *            entries to write.
+     * @param append
+     *            whether to append to the file or overwrite it.
+     * @throws IOException
+     *             when writing the cache file fails.
+     */
+    private void write(final List<Entry> toWrite, final boolean append) throws IOException {
+        write(file, toWrite, append);
+    }
+
+    /**
+     * Write the given entries to the given file.
+     *
+     * @param target
+     *            file to write to.
+     * @param toWrite
+     *            entries to write.
+     * @param append
+     *            whether to append to the file or overwrite it.
+     * @throws IOException
+     *             when writing the file fails.
+     */
+    private void write(final File target, final List<Entry> toWrite, final boolean append) throws IOException {
+        final File parent = target.getParentFile();
+
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException(String.format("Could not create folder %s.", parent));
+        }
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target, append), ENCODING));
+
+        try {
+            for (final Entry entry : toWrite) {
+                writer.write(entry.toString());
+                writer.write('\n');
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Load the cache file. Later lines override earlier lines for the same resource. Malformed lines are ignored.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                linesInFile++;
+                final Entry entry = Entry.parse(line);
+
+                if (entry != null) {
+                    entries.put(entry.key, entry);
+                }
+            }
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not read resource details cache %s.", file.getAbsolutePath()), e);
+        }
+        finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                }
+                catch (final IOException e) {
+                    LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cached details of a resource.
+     *
+     * @author Dirk Weigenand
+     */
+    private static final class Entry {
+        /**
+         * URL of DTR server and id of resource.
+         */
+        private final String key;
+
+        /**
+         * creation date of resource (milliseconds since epoch).
+         */
+        private final long creationDate;
+
+        /**
+         * last modification of resource (milliseconds since epoch).
+         */
+        private final long lastModified;
+
+        /**
+         * sequence number of resource (may be <code>null</code>).
+         */
+        private final Integer sequenceNumber;
+
+        /**
+         * whether the resource was deleted.
+         */
+        private final boolean deleted;
+
+        /**
+         * Create a cache entry.
+         *
+         * @param key
+         *            URL of DTR server and id of resource.
+         * @param creationDate
+         *            creation date of resource.
+         * @param lastModified
+         *            last modification of resource.
+         * @param sequenceNumber
+         *            sequence number of resource.
+         * @param deleted
+         *            whether the resource was deleted.
+         */
+        Entry(final String key, final long creationDate, final long lastModified, final Integer sequenceNumber, final boolean deleted) {
+            this.key = key;
+            this.creationDate = creationDate;
+            this.lastModified = lastModified;
+            this.sequenceNumber = sequenceNumber;
+            this.deleted = deleted;
+        }
+
+        /**
+         * Parse an entry from a line of the cache file.
+         *
+         * @param line
+         *            line of cache file.
+         * @return the parsed entry or <code>null</code> if the line is malformed.
+         */
+        static Entry parse(final String line) {
+            final String[] fields = line.split(String.valueOf(SEPARATOR));
+            Entry entry = null;
+
+            if (fields.length == FIELD_COUNT && fields[0].indexOf(KEY_SEPARATOR) >= 0) {
+                try {
+                    entry =
+                        new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3].length() == 0 ? null
+                            : Integer.valueOf(fields[3]), "1".equals(fields[4]));
+                }
+                catch (final NumberFormatException e) {
+                    entry = null;
+                }
+            }
+
+            return entry;
+        }
+
+        /**
+         * Returns this entry as a line of the cache file.
+         *
+         * @return this entry as a line of the cache file.
+         */
+        @Override
+        public String toString() {
+            return new StringBuilder(key).append(SEPARATOR).append(creationDate).append(SEPARATOR).append(lastModified).append(SEPARATOR)
+                .append(sequenceNumber == null ? "" : sequenceNumber.toString()).append(SEPARATOR).append(deleted ? '1' : '0').toString();
+        }
+    }
+}
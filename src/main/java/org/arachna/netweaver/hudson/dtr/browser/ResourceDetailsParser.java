@@ -14,7 +14,7 @@ import java.util.logging.Logger;
  * 
  * @author Dirk Weigenand
  */
-final class ResourceDetailsParser extends AbstractResourceParser {
+final class ResourceDetailsParser extends AbstractPropertyTableParser {
     /**
      * Logger for errors.
      */
@@ -41,14 +41,14 @@ final class ResourceDetailsParser extends AbstractResourceParser {
     private static final int IS_DELETED = 23;
 
     /**
-     * XPath expression for selecting property name/value nodes from the associated table in the html page returned upon query.
+     * Resource that is to be updated with details for the associated activity.
      */
-    private static final String XPATH = "/html/body/table[3]/tr/td";
+    private final ActivityResource resource;
 
     /**
-     * Resource that is to be updated with details for the associated activity.
+     * whether the details of the resource were parsed successfully.
      */
-    private final ActivityResource resource;
+    private boolean parsed;
 
     /**
      * Create an instance of a <code>ResourceDetailsParser</code> with the given {@link ActivityResource} that is to be updated.
@@ -63,18 +63,19 @@ final class ResourceDetailsParser extends AbstractResourceParser {
     /**
      * Update the {@link ActivityResource} given at object instantiation with information read from the given html page.
      * 
-     * @param nodes
-     *            list of nodes extracted from resource detail page
+     * @param values
+     *            texts of the property table cells extracted from resource detail page
      */
     @Override
-    void parseInternal(final List nodes) {
+    void parseInternal(final List<String> values) {
         final SimpleDateFormat format = new SimpleDateFormat(ActivityListParser.ACTIVITY_DATE_FORMAT);
 
         try {
-            resource.setCreationDate(format.parse(nodeValueAt(nodes, CREATION_DATE)));
-            resource.setLastModified(format.parse(nodeValueAt(nodes, LAST_MODIFIED)));
-            resource.setSequenceNumber(Integer.valueOf(nodeValueAt(nodes, SEQUENCE_NUMBER)));
-            resource.setDeleted(Boolean.valueOf("yes".equals(nodeValueAt(nodes, IS_DELETED).toLowerCase())));
+            resource.setCreationDate(format.parse(values.get(CREATION_DATE)));
+            resource.setLastModified(format.parse(values.get(LAST_MODIFIED)));
+            resource.setSequenceNumber(Integer.valueOf(values.get(SEQUENCE_NUMBER)));
+            resource.setDeleted(Boolean.valueOf("yes".equals(values.get(IS_DELETED).toLowerCase())));
+            parsed = true;
         }
         catch (final ParseException e) {
             LOGGER.log(Level.SEVERE, String.format("Error parsing date using format string:\n%s", ActivityListParser.ACTIVITY_DATE_FORMAT),
@@ -83,11 +84,13 @@ final class ResourceDetailsParser extends AbstractResourceParser {
     }
 
     /**
-     * {@inheritDoc}
+     * Indicates whether the details of the resource were parsed successfully.
+     * 
+     * @return <code>true</code> when all details of the resource were parsed, <code>false</code> otherwise (the resource then reports
+     *         default values).
      */
-    @Override
-    String getXPath() {
-        return XPATH;
+    boolean isParsed() {
+        return parsed;
     }
 
     /**
@@ -95,6 +98,6 @@ final class ResourceDetailsParser extends AbstractResourceParser {
      */
     @Override
     int getExpectedNodeLen() {
-        return IS_DELETED;
+        return IS_DELETED + 1;
     }
 }
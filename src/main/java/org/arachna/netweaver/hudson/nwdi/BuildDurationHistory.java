@@ -0,0 +1,243 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * History of the build durations of development components of a project.
+ *
+ * The durations reported by the DC tool are smoothed (the new value is the mean of the recorded and the reported duration) so that a
+ * single outlier does not distort the schedule of the next build. The history is stored in a text file in the project's folder, one tab
+ * separated line (vendor, name, duration in milliseconds) per development component.
+ *
+ * @author Dirk Weigenand
+ */
+public final class BuildDurationHistory {
+    /**
+     * Name of the file in the project folder the history is stored in.
+     */
+    public static final String FILE_NAME = "dc-build-durations.txt";
+
+    /**
+     * separator of fields in history file.
+     */
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * number of fields of an entry in the history file.
+     */
+    private static final int FIELD_COUNT = 3;
+
+    /**
+     * encoding of history file.
+     */
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BuildDurationHistory.class.getName());
+
+    /**
+     * file backing this history.
+     */
+    private final File file;
+
+    /**
+     * build durations in milliseconds mapped by vendor and name of development component.
+     */
+    private final Map<String, Long> durations = new TreeMap<String, Long>();
+
+    /**
+     * Create a history backed by the given file.
+     *
+     * @param file
+     *            file backing the history.
+     */
+    public BuildDurationHistory(final File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Returns the recorded build duration of the given development component.
+     *
+     * @param component
+     *            development component.
+     * @return recorded build duration in milliseconds or <code>null</code> when no duration was recorded for the development component yet.
+     */
+    public Long getDuration(final DevelopmentComponent component) {
+        return durations.get(createKey(component));
+    }
+
+    /**
+     * Estimate the build durations of the given development components. Development components without a recorded duration are estimated
+     * using the mean of the recorded durations of the other components.
+     *
+     * @param components
+     *            development components to estimate the build durations for.
+     * @return estimated build durations in milliseconds mapped by development component. The map is empty when there is no recorded
+     *         duration for any of the given development components.
+     */
+    public Map<DevelopmentComponent, Long> estimate(final Collection<DevelopmentComponent> components) {
+        final Map<DevelopmentComponent, Long> estimates = new HashMap<DevelopmentComponent, Long>();
+        long total = 0;
+
+        for (final DevelopmentComponent component : components) {
+            final Long duration = getDuration(component);
+
+            if (duration != null) {
+                estimates.put(component, duration);
+                total += duration.longValue();
+            }
+        }
+
+        if (!estimates.isEmpty()) {
+            final Long mean = Long.valueOf(total / estimates.size());
+
+            for (final DevelopmentComponent component : components) {
+                if (!estimates.containsKey(component)) {
+                    estimates.put(component, mean);
+                }
+            }
+        }
+
+        return estimates;
+    }
+
+    /**
+     * Record the given build durations.
+     *
+     * @param buildDurations
+     *            build durations in milliseconds reported by the DC tool mapped by development component.
+     */
+    public void record(final Map<DevelopmentComponent, Long> buildDurations) {
+        for (final Map.Entry<DevelopmentComponent, Long> entry : buildDurations.entrySet()) {
+            final String key = createKey(entry.getKey());
+            final Long recorded = durations.get(key);
+            final long duration = entry.getValue().longValue();
+
+            durations.put(key, Long.valueOf(recorded == null ? duration : (recorded.longValue() + duration) / 2));
+        }
+    }
+
+    /**
+     * Write the history to its file. The history is written to a temporary file first which then replaces the history file, so that
+     * builds of the same project running in parallel never read a partially written history.
+     */
+    public void save() {
+        File temp = null;
+        Writer writer = null;
+
+        try {
+            temp = File.createTempFile(FILE_NAME, ".tmp", file.getAbsoluteFile().getParentFile());
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), ENCODING));
+
+            for (final Map.Entry<String, Long> entry : durations.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(SEPARATOR);
+                writer.write(entry.getValue().toString());
+                writer.write('\n');
+            }
+
+            writer.close();
+            writer = null;
+
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                throw new IOException(String.format("Could not rename %s to %s!", temp.getAbsolutePath(), file.getAbsolutePath()));
+            }
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not write build duration history %s.", file.getAbsolutePath()), e);
+        }
+        finally {
+            close(writer);
+
+            if (temp != null && temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Load the history file. Malformed lines are ignored.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(String.valueOf(SEPARATOR));
+
+                if (fields.length == FIELD_COUNT) {
+                    try {
+                        durations.put(fields[0] + SEPARATOR + fields[1], Long.valueOf(fields[2]));
+                    }
+                    catch (final NumberFormatException e) {
+                        LOGGER.log(Level.FINE, String.format("Ignoring malformed line '%s' in %s.", line, file.getAbsolutePath()));
+                    }
+                }
+            }
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not read build duration history %s.", file.getAbsolutePath()), e);
+        }
+        finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Create the key of the given development component.
+     *
+     * @param component
+     *            development component.
+     * @return vendor and name of the development component separated by {@link #SEPARATOR}.
+     */
+    private static String createKey(final DevelopmentComponent component) {
+        return component.getVendor() + SEPARATOR + component.getName();
+    }
+
+    /**
+     * Close the given stream ignoring errors.
+     *
+     * @param closeable
+     *            stream to close (may be <code>null</code>).
+     */
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (final IOException e) {
+                LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+            }
+        }
+    }
+}
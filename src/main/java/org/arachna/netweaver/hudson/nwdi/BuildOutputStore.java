@@ -0,0 +1,307 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import hudson.Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Persistent content addressed store of the build outputs (<code>gen/default</code> folders) of development components.
+ *
+ * The outputs are stored as zip archives in a folder of the project, named by the hash of the inputs of the build that produced them (see
+ * {@link ContentHashNeedsRebuildCalculator}). The size of the store is limited via the system property {@link #SIZE_PROPERTY}, the least
+ * recently used archives are removed first.
+ *
+ * @author Dirk Weigenand
+ */
+public final class BuildOutputStore {
+    /**
+     * Name of the folder in the project folder the build outputs are stored in.
+     */
+    public static final String FOLDER_NAME = "dc-build-outputs";
+
+    /**
+     * Name of system property configuring the maximum size of the store in MB.
+     */
+    public static final String SIZE_PROPERTY = "nwdibuild.build.cache.size";
+
+    /**
+     * default maximum size of the store in MB.
+     */
+    private static final int DEFAULT_SIZE = 1024;
+
+    /**
+     * one MB.
+     */
+    private static final long MEGA_BYTE = 1024L * 1024L;
+
+    /**
+     * suffix of archives in the store.
+     */
+    private static final String SUFFIX = ".zip";
+
+    /**
+     * folder the archives are stored in.
+     */
+    private final File folder;
+
+    /**
+     * maximum size of the store in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * Create a store in the given folder limited to the configured size.
+     *
+     * @param folder
+     *            folder the archives are stored in.
+     */
+    public BuildOutputStore(final File folder) {
+        this(folder, Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE) * MEGA_BYTE);
+    }
+
+    /**
+     * Create a store in the given folder limited to the given size.
+     *
+     * @param folder
+     *            folder the archives are stored in.
+     * @param maxSize
+     *            maximum size of the store in bytes.
+     */
+    BuildOutputStore(final File folder, final long maxSize) {
+        this.folder = folder;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Determine whether build outputs have been stored for the given hash.
+     *
+     * @param hash
+     *            hash of the inputs of a build.
+     * @return <code>true</code> when build outputs have been stored for the given hash, <code>false</code> otherwise.
+     */
+    public boolean contains(final String hash) {
+        return getArchive(hash).isFile();
+    }
+
+    /**
+     * Store the content of the given output folder under the given hash.
+     *
+     * @param hash
+     *            hash of the inputs of the build that produced the output folder.
+     * @param outputFolder
+     *            output folder to store.
+     * @throws IOException
+     *             when writing the archive fails.
+     */
+    public void store(final String hash, final File outputFolder) throws IOException {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException(String.format("Could not create folder %s!", folder.getAbsolutePath()));
+        }
+
+        final File temp = File.createTempFile(hash, ".tmp", folder);
+
+        try {
+            final ZipOutputStream archive = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+            try {
+                add(archive, outputFolder, "");
+            }
+            finally {
+                archive.close();
+            }
+
+            final File target = getArchive(hash);
+
+            if (!target.delete() && target.exists() || !temp.renameTo(target)) {
+                throw new IOException(String.format("Could not rename %s to %s!", temp.getAbsolutePath(), target.getAbsolutePath()));
+            }
+        }
+        finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+
+        evict();
+    }
+
+    /**
+     * Replace the content of the given output folder with the build outputs stored under the given hash.
+     *
+     * @param hash
+     *            hash of the inputs of a build.
+     * @param outputFolder
+     *            output folder to restore.
+     * @return <code>true</code> when the output folder was restored, <code>false</code> when there are no build outputs stored under the
+     *         given hash.
+     * @throws IOException
+     *             when reading the archive or writing the output folder fails.
+     */
+    public boolean restore(final String hash, final File outputFolder) throws IOException {
+        final File source = getArchive(hash);
+
+        if (!source.isFile()) {
+            return false;
+        }
+
+        if (outputFolder.exists()) {
+            Util.deleteRecursive(outputFolder);
+        }
+
+        final String root = outputFolder.getCanonicalPath() + File.separator;
+        final ZipInputStream archive = new ZipInputStream(new BufferedInputStream(new FileInputStream(source)));
+
+        try {
+            ZipEntry entry;
+
+            while ((entry = archive.getNextEntry()) != null) {
+                final File file = new File(outputFolder, entry.getName());
+
+                if (!file.getCanonicalPath().startsWith(root)) {
+                    throw new IOException(String.format("Entry %s of %s is outside of the output folder!", entry.getName(),
+                        source.getAbsolutePath()));
+                }
+
+                if (entry.isDirectory()) {
+                    mkdirs(file);
+                }
+                else {
+                    mkdirs(file.getParentFile());
+                    final OutputStream output = new BufferedOutputStream(new FileOutputStream(file));
+
+                    try {
+                        Util.copyStream(archive, output);
+                    }
+                    finally {
+                        output.close();
+                    }
+                }
+            }
+        }
+        finally {
+            archive.close();
+        }
+
+        // mark as recently used
+        source.setLastModified(System.currentTimeMillis());
+
+        return true;
+    }
+
+    /**
+     * Add the content of the given folder to the given archive.
+     *
+     * @param archive
+     *            archive to add the files to.
+     * @param directory
+     *            folder whose content should be added.
+     * @param prefix
+     *            path of the given folder in the archive.
+     * @throws IOException
+     *             when reading a file or writing the archive fails.
+     */
+    private void add(final ZipOutputStream archive, final File directory, final String prefix) throws IOException {
+        final File[] files = directory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String name = prefix + file.getName();
+
+            if (file.isDirectory()) {
+                archive.putNextEntry(new ZipEntry(name + '/'));
+                archive.closeEntry();
+                add(archive, file, name + '/');
+            }
+            else {
+                archive.putNextEntry(new ZipEntry(name));
+                final InputStream input = new FileInputStream(file);
+
+                try {
+                    Util.copyStream(input, archive);
+                }
+                finally {
+                    input.close();
+                }
+
+                archive.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Remove the least recently used archives until the store does not exceed its maximum size.
+     */
+    private void evict() {
+        final File[] archives = folder.listFiles();
+
+        if (archives == null) {
+            return;
+        }
+
+        long size = 0;
+
+        for (final File archive : archives) {
+            size += archive.length();
+        }
+
+        Arrays.sort(archives, new Comparator<File>() {
+            @Override
+            public int compare(final File first, final File second) {
+                return Long.valueOf(first.lastModified()).compareTo(Long.valueOf(second.lastModified()));
+            }
+        });
+
+        for (int i = 0; i < archives.length && size > maxSize; i++) {
+            if (archives[i].getName().endsWith(SUFFIX)) {
+                size -= archives[i].length();
+
+                if (!archives[i].delete()) {
+                    size += archives[i].length();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the archive storing the build outputs for the given hash.
+     *
+     * @param hash
+     *            hash of the inputs of a build.
+     * @return archive storing the build outputs for the given hash.
+     */
+    private File getArchive(final String hash) {
+        return new File(folder, hash + SUFFIX);
+    }
+
+    /**
+     * Create the given folder (and its parents).
+     *
+     * @param directory
+     *            folder to create.
+     * @throws IOException
+     *             when the folder could not be created.
+     */
+    private static void mkdirs(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Could not create folder %s!", directory.getAbsolutePath()));
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentGraph;
 
 /**
  * Calculate transitive hull for development components that need rebuilding.
@@ -20,6 +21,29 @@ public final class ComponentsNeedingRebuildFinder {
      */
     private final Set<DevelopmentComponent> componentsNeedRebuilding = new HashSet<DevelopmentComponent>();
 
+    /**
+     * dependency graph to traverse (<code>null</code> when the using DCs of the development components should be traversed).
+     */
+    private final DevelopmentComponentGraph graph;
+
+    /**
+     * Create a finder traversing the using DCs of the development components.
+     */
+    public ComponentsNeedingRebuildFinder() {
+        this(null);
+    }
+
+    /**
+     * Create a finder traversing the given dependency graph. Development components not part of the graph are returned themselves
+     * only.
+     * 
+     * @param graph
+     *            dependency graph of the registered development components.
+     */
+    public ComponentsNeedingRebuildFinder(final DevelopmentComponentGraph graph) {
+        this.graph = graph;
+    }
+
     /**
      * From the given collection of development components find any dependent
      * development components that have to be rebuilt, i.e. calculate the
@@ -34,6 +58,13 @@ public final class ComponentsNeedingRebuildFinder {
         final Collection<DevelopmentComponent> base) {
         this.componentsNeedRebuilding.clear();
 
+        if (graph != null) {
+            this.componentsNeedRebuilding.addAll(base);
+            this.componentsNeedRebuilding.addAll(graph.getComponents(graph.getUsingClosure(base)));
+
+            return this.componentsNeedRebuilding;
+        }
+
         for (final DevelopmentComponent component : base) {
             calculateDevelopmentComponentsThatNeedRebuilding(component);
         }
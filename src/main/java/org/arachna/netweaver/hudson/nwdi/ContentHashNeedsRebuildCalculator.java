@@ -0,0 +1,414 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.NeedsRebuildCalculator;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+import org.arachna.netweaver.tools.dc.BuildWaveFilter;
+
+/**
+ * Determines whether development components need to be rebuilt by comparing the hash of their build inputs with the hashes of previous
+ * successful builds recorded in a {@link BuildOutputStore}.
+ *
+ * The inputs of a development component are its sources and <code>.dcdef</code> (i.e. all files of the component except its
+ * <code>gen</code> folder) and the artifacts of the public parts of the development components it uses (including its build plugin).
+ * Archives (e.g. jar files) are hashed by the names and contents of their entries, so that public parts rebuilt from unchanged sources do
+ * not invalidate the using development components.
+ *
+ * Since the public parts of used development components are only up to date after they have been built, the calculator is applied as a
+ * {@link BuildWaveFilter} right before each wave of development components is built. The <code>gen/default</code> folders of development
+ * components whose input hash matches a previous build are restored from the store instead of building them. Enabled via the system
+ * property {@link #CACHE_PROPERTY}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class ContentHashNeedsRebuildCalculator implements NeedsRebuildCalculator, BuildWaveFilter {
+    /**
+     * Name of system property enabling restoring the build outputs of unchanged development components. Only effective together with a
+     * dctool session ({@link org.arachna.netweaver.tools.dc.DCToolCommandExecutor#SESSION_PROPERTY}), the pooled dctool
+     * ({@link org.arachna.netweaver.tools.DIToolSessionPool#POOL_PROPERTY}) or concurrent dctool sessions
+     * ({@link org.arachna.netweaver.tools.dc.DCToolCommandExecutor#SESSIONS_PROPERTY}), since build waves are not filtered otherwise (see
+     * {@link org.arachna.netweaver.tools.dc.DCToolCommandExecutor#canFilterBuildWaves()}). Build outputs are neither restored nor stored
+     * then.
+     */
+    public static final String CACHE_PROPERTY = "nwdibuild.build.cache";
+
+    /**
+     * algorithm used to hash build inputs.
+     */
+    private static final String ALGORITHM = "SHA-1";
+
+    /**
+     * size of buffer for reading files.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * name of folder containing the build outputs of a development component.
+     */
+    private static final String GEN_FOLDER = "gen";
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ContentHashNeedsRebuildCalculator.class.getName());
+
+    /**
+     * helper to determine location of development components in workspace.
+     */
+    private final AntHelper antHelper;
+
+    /**
+     * registry for development components.
+     */
+    private final DevelopmentComponentFactory dcFactory;
+
+    /**
+     * store of build outputs.
+     */
+    private final BuildOutputStore store;
+
+    /**
+     * hashes of build inputs calculated last mapped by development component.
+     */
+    private final Map<DevelopmentComponent, String> hashes = new HashMap<DevelopmentComponent, String>();
+
+    /**
+     * development components whose build outputs were restored from the store.
+     */
+    private final List<DevelopmentComponent> restored = new ArrayList<DevelopmentComponent>();
+
+    /**
+     * Create a calculator using the given helper, registry and store.
+     *
+     * @param antHelper
+     *            helper to determine location of development components in workspace.
+     * @param dcFactory
+     *            registry for development components.
+     * @param store
+     *            store of build outputs.
+     */
+    public ContentHashNeedsRebuildCalculator(final AntHelper antHelper, final DevelopmentComponentFactory dcFactory,
+        final BuildOutputStore store) {
+        this.antHelper = antHelper;
+        this.dcFactory = dcFactory;
+        this.store = store;
+    }
+
+    /**
+     * Determines whether restoring build outputs has been enabled via the system property {@link #CACHE_PROPERTY}.
+     *
+     * @return <code>true</code> when restoring build outputs is enabled, <code>false</code> otherwise.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(CACHE_PROPERTY);
+    }
+
+    /**
+     * Determine whether the given development component needs to be rebuilt, i.e. no build outputs are stored for the current hash of its
+     * build inputs.
+     *
+     * @param component
+     *            the development component to look at.
+     * @return <code>true</code> when the development component needs to be rebuilt, <code>false</code> otherwise.
+     */
+    @Override
+    public boolean needsRebuild(final DevelopmentComponent component) {
+        final String hash = calculateHash(component);
+
+        return hash == null || !store.contains(hash);
+    }
+
+    /**
+     * Restore the build outputs of the development components of the given wave that do not need to be rebuilt.
+     *
+     * @param wave
+     *            wave of development components to build next.
+     * @return development components of the given wave whose build outputs could not be restored.
+     */
+    @Override
+    public List<DevelopmentComponent> filter(final Collection<DevelopmentComponent> wave) {
+        final List<DevelopmentComponent> remaining = new ArrayList<DevelopmentComponent>(wave.size());
+
+        for (final DevelopmentComponent component : wave) {
+            if (!needsRebuild(component) && restore(component)) {
+                restored.add(component);
+            }
+            else {
+                remaining.add(component);
+            }
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Store the build outputs of the given successfully built development components under the hash of their build inputs.
+     *
+     * @param builtComponents
+     *            development components that were built successfully.
+     */
+    public void store(final Collection<DevelopmentComponent> builtComponents) {
+        for (final DevelopmentComponent component : builtComponents) {
+            final String hash = hashes.get(component);
+            final File outputFolder = getOutputFolder(component);
+
+            if (hash != null && !restored.contains(component) && outputFolder.isDirectory()) {
+                try {
+                    store.store(hash, outputFolder);
+                }
+                catch (final IOException e) {
+                    LOGGER.log(Level.WARNING, String.format("Could not store build outputs of %s/%s.", component.getVendor(),
+                        component.getName()), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the development components whose build outputs were restored from the store.
+     *
+     * @return development components whose build outputs were restored.
+     */
+    public List<DevelopmentComponent> getRestored() {
+        return Collections.unmodifiableList(restored);
+    }
+
+    /**
+     * Calculate the hash of the build inputs of the given development component.
+     *
+     * @param component
+     *            development component.
+     * @return hash of the build inputs of the given development component or <code>null</code> when it could not be calculated.
+     */
+    String calculateHash(final DevelopmentComponent component) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            update(digest, component.getVendor() + '/' + component.getName());
+
+            final File baseLocation = new File(antHelper.getBaseLocation(component));
+            update(digest, baseLocation, "", new File(baseLocation, GEN_FOLDER));
+
+            final List<PublicPartReference> references = new ArrayList<PublicPartReference>(component.getUsedDevelopmentComponents());
+
+            if (component.getBuildPlugin() != null) {
+                references.add(component.getBuildPlugin());
+            }
+
+            final List<String> locations = new ArrayList<String>();
+
+            for (final PublicPartReference reference : references) {
+                final DevelopmentComponent usedComponent = dcFactory.get(reference);
+                locations.add(usedComponent == null ? antHelper.getLocation(reference) : antHelper.getBaseLocation(usedComponent,
+                    reference.getName()));
+            }
+
+            Collections.sort(locations);
+
+            for (final String location : locations) {
+                update(digest, location.substring(antHelper.getPathToWorkspace().length()));
+                update(digest, new File(location), "", null);
+            }
+
+            final String hash = toHex(digest.digest());
+            hashes.put(component, hash);
+
+            return hash;
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING,
+                String.format("Could not calculate hash of build inputs of %s/%s.", component.getVendor(), component.getName()), e);
+            hashes.remove(component);
+
+            return null;
+        }
+    }
+
+    /**
+     * Restore the build outputs of the given development component from the store.
+     *
+     * @param component
+     *            development component.
+     * @return <code>true</code> when the build outputs were restored, <code>false</code> otherwise.
+     */
+    private boolean restore(final DevelopmentComponent component) {
+        try {
+            return store.restore(hashes.get(component), getOutputFolder(component));
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING,
+                String.format("Could not restore build outputs of %s/%s.", component.getVendor(), component.getName()), e);
+
+            return false;
+        }
+    }
+
+    /**
+     * Returns the folder containing the build outputs of the given development component.
+     *
+     * @param component
+     *            development component.
+     * @return the <code>gen/default</code> folder of the given development component.
+     */
+    private File getOutputFolder(final DevelopmentComponent component) {
+        return new File(new File(antHelper.getBaseLocation(component), GEN_FOLDER), "default");
+    }
+
+    /**
+     * Update the given digest with the given text.
+     *
+     * @param digest
+     *            digest to update.
+     * @param text
+     *            text to add to the digest.
+     */
+    private static void update(final MessageDigest digest, final String text) {
+        digest.update(text.getBytes(Charset.forName("UTF-8")));
+        digest.update((byte)0);
+    }
+
+    /**
+     * Update the given digest with the names and contents of the files in the given folder (or the given file).
+     *
+     * @param digest
+     *            digest to update.
+     * @param file
+     *            folder or file to add to the digest.
+     * @param path
+     *            path of the given file relative to the folder the hashing started with.
+     * @param excluded
+     *            folder to exclude (may be <code>null</code>).
+     * @throws IOException
+     *             when reading a file fails.
+     */
+    private static void update(final MessageDigest digest, final File file, final String path, final File excluded)
+        throws IOException {
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles();
+
+            if (files != null) {
+                Arrays.sort(files);
+
+                for (final File child : files) {
+                    if (!child.equals(excluded)) {
+                        update(digest, child, path + '/' + child.getName(), excluded);
+                    }
+                }
+            }
+        }
+        else if (file.isFile()) {
+            update(digest, path);
+            final InputStream input = new BufferedInputStream(new FileInputStream(file));
+
+            try {
+                if (isArchive(file)) {
+                    updateWithEntries(digest, input);
+                }
+                else {
+                    update(digest, input);
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Update the given digest with the names and contents of the entries of the given archive, ignoring their time stamps.
+     *
+     * @param digest
+     *            digest to update.
+     * @param input
+     *            archive to add to the digest.
+     * @throws IOException
+     *             when reading the archive fails.
+     */
+    private static void updateWithEntries(final MessageDigest digest, final InputStream input) throws IOException {
+        final ZipInputStream archive = new ZipInputStream(input);
+        ZipEntry entry;
+
+        while ((entry = archive.getNextEntry()) != null) {
+            update(digest, entry.getName());
+            update(digest, archive);
+        }
+    }
+
+    /**
+     * Update the given digest with the content of the given stream.
+     *
+     * @param digest
+     *            digest to update.
+     * @param input
+     *            stream to add to the digest.
+     * @throws IOException
+     *             when reading the stream fails.
+     */
+    private static void update(final MessageDigest digest, final InputStream input) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+
+        digest.update((byte)0);
+    }
+
+    /**
+     * Determine whether the given file is an archive whose entries should be hashed.
+     *
+     * @param file
+     *            file to examine.
+     * @return <code>true</code> when the given file is a jar or zip archive, <code>false</code> otherwise.
+     */
+    private static boolean isArchive(final File file) {
+        final String name = file.getName().toLowerCase();
+
+        return name.endsWith(".jar") || name.endsWith(".zip");
+    }
+
+    /**
+     * Convert the given bytes to a hexadecimal string.
+     *
+     * @param bytes
+     *            bytes to convert.
+     * @return hexadecimal representation of the given bytes.
+     */
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+        for (final byte b : bytes) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+
+        return hex.toString();
+    }
+}
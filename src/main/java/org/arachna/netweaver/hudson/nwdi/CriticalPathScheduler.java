@@ -0,0 +1,115 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Orders the development components of each build wave by the length of the longest path of dependent builds remaining after them.
+ *
+ * The length of the remaining path of a development component is its estimated build duration plus the longest remaining path of the
+ * development components to be built using it. Starting the development components with the longest remaining path first keeps long
+ * chains of dependent builds from being started last and thus shortens the total duration of a build.
+ *
+ * @author Dirk Weigenand
+ */
+final class CriticalPathScheduler {
+    /**
+     * estimated build durations in milliseconds mapped by development component.
+     */
+    private final Map<DevelopmentComponent, Long> estimatedDurations;
+
+    /**
+     * length of the remaining path in milliseconds mapped by development component.
+     */
+    private final Map<DevelopmentComponent, Long> remainingPaths = new HashMap<DevelopmentComponent, Long>();
+
+    /**
+     * Create a scheduler using the given estimated build durations.
+     *
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component.
+     */
+    CriticalPathScheduler(final Map<DevelopmentComponent, Long> estimatedDurations) {
+        this.estimatedDurations = estimatedDurations;
+    }
+
+    /**
+     * Order the development components of the given waves longest remaining path first. The order of the waves is kept, development
+     * components with remaining paths of the same length keep their relative order.
+     *
+     * @param waves
+     *            waves of development components in build order.
+     * @return waves of development components ordered longest remaining path first.
+     */
+    List<List<DevelopmentComponent>> schedule(final List<List<DevelopmentComponent>> waves) {
+        remainingPaths.clear();
+
+        for (final ListIterator<List<DevelopmentComponent>> i = waves.listIterator(waves.size()); i.hasPrevious();) {
+            for (final DevelopmentComponent component : i.previous()) {
+                long longestUsingPath = 0;
+
+                for (final DevelopmentComponent usingComponent : component.getUsingDevelopmentComponents()) {
+                    final Long usingPath = remainingPaths.get(usingComponent);
+
+                    if (usingPath != null) {
+                        longestUsingPath = Math.max(longestUsingPath, usingPath.longValue());
+                    }
+                }
+
+                remainingPaths.put(component, Long.valueOf(getEstimatedDuration(component) + longestUsingPath));
+            }
+        }
+
+        final List<List<DevelopmentComponent>> scheduled = new ArrayList<List<DevelopmentComponent>>(waves.size());
+        final Comparator<DevelopmentComponent> longestRemainingPathFirst = new Comparator<DevelopmentComponent>() {
+            @Override
+            public int compare(final DevelopmentComponent first, final DevelopmentComponent second) {
+                return remainingPaths.get(second).compareTo(remainingPaths.get(first));
+            }
+        };
+
+        for (final List<DevelopmentComponent> wave : waves) {
+            final List<DevelopmentComponent> ordered = new ArrayList<DevelopmentComponent>(wave);
+            Collections.sort(ordered, longestRemainingPathFirst);
+            scheduled.add(ordered);
+        }
+
+        return scheduled;
+    }
+
+    /**
+     * Returns the length of the remaining path of the given development component computed by the last call to {@link #schedule(List)}.
+     *
+     * @param component
+     *            development component.
+     * @return length of the remaining path in milliseconds or <code>0</code> when the development component was not scheduled.
+     */
+    long getRemainingPath(final DevelopmentComponent component) {
+        final Long remainingPath = remainingPaths.get(component);
+
+        return remainingPath == null ? 0 : remainingPath.longValue();
+    }
+
+    /**
+     * Returns the estimated build duration of the given development component.
+     *
+     * @param component
+     *            development component.
+     * @return the estimated build duration in milliseconds or <code>0</code> when there is no estimate.
+     */
+    private long getEstimatedDuration(final DevelopmentComponent component) {
+        final Long duration = estimatedDurations.get(component);
+
+        return duration == null ? 0 : duration.longValue();
+    }
+}
@@ -7,20 +7,26 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.arachna.netweaver.dc.types.Compartment;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.arachna.netweaver.tools.DIToolOutputConsumer;
+import org.arachna.netweaver.tools.dc.DCBuildMonitor;
 
 /**
  * Parser for output of the DC tool 'builddc' command.
  * 
  * @author Dirk Weigenand
  */
-public class DCBuildResultParser {
+public class DCBuildResultParser implements DIToolOutputConsumer, DCBuildMonitor {
     /**
      * Regex matching failed builds.
      */
@@ -33,12 +39,37 @@ public class DCBuildResultParser {
     private final Pattern dcNameAndCompartmentPattern = Pattern
         .compile("\"Build of DC \"(.*?)\" from  compartment \"(.*?)\" based on sync mode \"SYNCHED_AS_INACTIVE_SOURCE\"\\s+$");
 
+    /**
+     * regex matching the execution time reported by the DC tool after each command.
+     */
+    private final Pattern executionTimePattern = Pattern.compile("^Execution time: (\\d+) \\[ms\\]\\s*$");
+
     /**
      * development configuration to determine development components by their
      * name and containing compartment.
      */
     private final DevelopmentConfiguration developmentConfiguration;
 
+    /**
+     * build results parsed so far.
+     */
+    private BuildResults results = new BuildResults();
+
+    /**
+     * name of compartment of the development component currently built.
+     */
+    private String compartmentName;
+
+    /**
+     * name of the development component currently built.
+     */
+    private String dcName;
+
+    /**
+     * development component whose build duration has not been reported yet.
+     */
+    private DevelopmentComponent timedComponent;
+
     /**
      * Create a parser for output of a sequence of DC tools 'builddc' commands.
      * 
@@ -60,36 +91,14 @@ public class DCBuildResultParser {
      * @return a container of build results.
      */
     public BuildResults parse(final Reader buildLog) {
-        final BuildResults results = new BuildResults();
+        reset();
 
         final BufferedReader reader = new BufferedReader(buildLog);
         String line;
-        String compartmentName = null;
-        String dcName = null;
 
         try {
             while (null != (line = reader.readLine())) {
-                final Matcher m = dcNameAndCompartmentPattern.matcher(line);
-
-                if (m.matches()) {
-                    dcName = m.group(1);
-                    compartmentName = m.group(2);
-                }
-
-                if (dcName != null && compartmentName != null && failedBuildResultRegex.matcher(line).matches()) {
-                    final Compartment compartment = developmentConfiguration.getCompartment(compartmentName);
-                    final DevelopmentComponent component = compartment.getDevelopmentComponent(dcName);
-
-                    if (component == null) {
-                        throw new IllegalStateException(String.format("Compartment %s does not contain development component '%s'!",
-                            compartmentName, dcName));
-                    }
-
-                    results.addFailedBuildFor(component);
-                    // reset
-                    compartmentName = null;
-                    dcName = null;
-                }
+                consume(line);
             }
         }
         catch (final IOException e) {
@@ -107,6 +116,94 @@ public class DCBuildResultParser {
         return results;
     }
 
+    /**
+     * Parse the given line of the build log. Used to parse the build log
+     * while the DC tool is running, the results are available via
+     * {@link #getBuildResults()}.
+     * 
+     * @param line
+     *            line of the build log.
+     */
+    @Override
+    public void consume(final String line) {
+        final Matcher m = dcNameAndCompartmentPattern.matcher(line);
+
+        if (m.matches()) {
+            dcName = m.group(1);
+            compartmentName = m.group(2);
+            timedComponent = getDevelopmentComponent(compartmentName, dcName);
+        }
+
+        final Matcher executionTime = executionTimePattern.matcher(line);
+
+        if (executionTime.matches()) {
+            if (timedComponent != null) {
+                results.addBuildDuration(timedComponent, Long.parseLong(executionTime.group(1)));
+            }
+
+            timedComponent = null;
+        }
+
+        if (dcName != null && compartmentName != null && failedBuildResultRegex.matcher(line).matches()) {
+            final Compartment compartment = developmentConfiguration.getCompartment(compartmentName);
+            final DevelopmentComponent component = compartment.getDevelopmentComponent(dcName);
+
+            if (component == null) {
+                throw new IllegalStateException(String.format("Compartment %s does not contain development component '%s'!",
+                    compartmentName, dcName));
+            }
+
+            results.addFailedBuildFor(component);
+            // reset
+            compartmentName = null;
+            dcName = null;
+        }
+    }
+
+    /**
+     * Returns the build results parsed so far.
+     * 
+     * @return a container of build results.
+     */
+    public BuildResults getBuildResults() {
+        return results;
+    }
+
+    /**
+     * Returns the development components whose build failed according to the lines of the build log parsed so far.
+     * 
+     * @return development components whose build failed so far.
+     */
+    @Override
+    public Collection<DevelopmentComponent> getFailedBuilds() {
+        return Collections.unmodifiableList(results.getDcsWithBuildErrors());
+    }
+
+    /**
+     * Start parsing a new build log.
+     */
+    private void reset() {
+        results = new BuildResults();
+        compartmentName = null;
+        dcName = null;
+        timedComponent = null;
+    }
+
+    /**
+     * Look up the development component with the given name in the compartment with the given name.
+     *
+     * @param compartmentName
+     *            name of compartment.
+     * @param dcName
+     *            name of development component.
+     * @return the development component or <code>null</code> when the compartment or the development component is not known.
+     */
+    private DevelopmentComponent getDevelopmentComponent(final String compartmentName, final String dcName) {
+        final Compartment compartment = developmentConfiguration.getCompartment(compartmentName);
+
+        return compartment == null ? null : compartment.getDevelopmentComponent(dcName);
+    }
+
     /**
      * Collection of build results.
      * 
@@ -118,6 +215,11 @@ public class DCBuildResultParser {
          */
         private final List<DevelopmentComponent> dcsWithBuildErrors = new ArrayList<DevelopmentComponent>();
 
+        /**
+         * build durations in milliseconds reported by the DC tool mapped to the development components built.
+         */
+        private final Map<DevelopmentComponent, Long> buildDurations = new LinkedHashMap<DevelopmentComponent, Long>();
+
         /**
          * returns whether there were build errors or not.
          * 
@@ -138,6 +240,27 @@ public class DCBuildResultParser {
             this.getDcsWithBuildErrors().add(component);
         }
 
+        /**
+         * Add the build duration reported for the given development component.
+         *
+         * @param component
+         *            development component that was built.
+         * @param duration
+         *            build duration in milliseconds.
+         */
+        void addBuildDuration(final DevelopmentComponent component, final long duration) {
+            buildDurations.put(component, Long.valueOf(duration));
+        }
+
+        /**
+         * Returns the build durations in milliseconds reported by the DC tool mapped to the development components built.
+         *
+         * @return build durations in milliseconds mapped to development components.
+         */
+        public Map<DevelopmentComponent, Long> getBuildDurations() {
+            return Collections.unmodifiableMap(buildDurations);
+        }
+
         /**
          * Get list of DCs whose build failed.
          * 
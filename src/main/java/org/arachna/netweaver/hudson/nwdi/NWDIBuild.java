@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
@@ -39,12 +41,14 @@ import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.dc.types.IDevelopmentComponentFilter;
 import org.arachna.netweaver.hudson.nwdi.DCBuildResultParser.BuildResults;
-import org.arachna.netweaver.hudson.nwdi.TopoSortResult.CircularDependency;
+import org.arachna.netweaver.hudson.nwdi.TopoSortResult.DependencyCycle;
 import org.arachna.netweaver.hudson.nwdi.changelog.DtrChangeLogParser;
 import org.arachna.netweaver.hudson.util.FilePathHelper;
 import org.arachna.netweaver.tools.DIToolCommandExecutionResult;
+import org.arachna.netweaver.tools.DIToolSessionPool;
 import org.arachna.netweaver.tools.cbs.CBSToolCommandExecutor;
 import org.arachna.netweaver.tools.dc.DCToolCommandExecutor;
+import org.arachna.netweaver.tools.dc.DependentBuildSkipper;
 
 /**
  * A job for building a NWDI development configuration/track.
@@ -67,11 +71,26 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
      */
     private transient Collection<DevelopmentComponent> affectedComponents;
 
+    /**
+     * affected development components grouped into waves of development components independent of each other.
+     */
+    private transient List<List<DevelopmentComponent>> buildWaves;
+
     /**
      * Factory for generating ant excludes based on development component type.
      */
     private final transient ExcludesFactory excludesFactory = new ExcludesFactory();
 
+    /**
+     * executor for DC tool commands shared by checkout and build (so a dctool session can span both).
+     */
+    private transient DCToolCommandExecutor dcToolExecutor;
+
+    /**
+     * the launcher {@link #dcToolExecutor} was created with.
+     */
+    private transient Launcher dcToolLauncher;
+
     /**
      * Create an instance of <code>NWDIBuild</code> using the given <code>NWDIProject</code>.
      *
@@ -150,14 +169,25 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
             final TopoSort topoSort = new TopoSort(dcFactory, logger);
             final TopoSortResult topoSortResult = topoSort.sort(components);
             affectedComponents = topoSortResult.getDevelopmentComponents();
+            buildWaves = topoSortResult.getWaves();
+
+            if (logger != null && !affectedComponents.isEmpty()) {
+                logger.println(Messages.NWDIBuild_build_waves(topoSortResult.getCriticalPathLength(),
+                    topoSortResult.getMaximumWaveWidth()));
+            }
 
             // Log circular dependencies to build logger.
-            if (logger != null && !topoSortResult.getCircularDependencies().isEmpty()) {
-                final StringBuilder dependencies = new StringBuilder("There are circular dependencies in this track:");
+            if (logger != null && !topoSortResult.getDependencyCycles().isEmpty()) {
+                final StringBuilder dependencies = new StringBuilder("There are circular dependencies in this track:\n");
+
+                for (final DependencyCycle cycle : topoSortResult.getDependencyCycles()) {
+                    dependencies.append(String.format("  %d DCs depend on each other:", cycle.getComponents().size()));
+
+                    for (final DevelopmentComponent component : cycle.getComponents()) {
+                        dependencies.append(String.format(" %s:%s", component.getVendor(), component.getName()));
+                    }
 
-                for (final CircularDependency dependency : topoSortResult.getCircularDependencies()) {
-                    dependencies.append(String.format("  %s:%s has circular dependency to %s:%s.\n", dependency.getComponent().getVendor(),
-                        dependency.getComponent().getName(), dependency.getDependency().getVendor(), dependency.getDependency().getName()));
+                    dependencies.append('\n');
                 }
 
                 logger.println(dependencies.toString());
@@ -167,6 +197,20 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
         return affectedComponents;
     }
 
+    /**
+     * Returns the development components affected by activities that triggered this build grouped into waves of development components
+     * that do not depend on each other.
+     *
+     * @param logger
+     *            Logger to log circular dependencies to.
+     * @return waves of development components in build order.
+     */
+    List<List<DevelopmentComponent>> getBuildWaves(final PrintStream logger) {
+        getAffectedDevelopmentComponents(logger);
+
+        return buildWaves;
+    }
+
     /**
      * Return the set of development components that were marked as needing a rebuild previously.
      *
@@ -254,10 +298,30 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
      *            the launcher to use executing DC tool.
      * @return <code>DCToolCommandExecutor</code> to execute DC tool commands.
      */
-    DCToolCommandExecutor getDCToolExecutor(final Launcher launcher) {
-        final DevelopmentConfiguration configuration = getDevelopmentConfiguration();
-        final NWDIProject.DescriptorImpl descriptor = NWDIProject.DescriptorImpl.DESCRIPTOR;
-        return new DCToolCommandExecutor(launcher, getWorkspace(), descriptor.getDIToolDescriptor(), configuration);
+    synchronized DCToolCommandExecutor getDCToolExecutor(final Launcher launcher) {
+        if (dcToolExecutor == null || dcToolLauncher != launcher) {
+            final DevelopmentConfiguration configuration = getDevelopmentConfiguration();
+            final NWDIProject.DescriptorImpl descriptor = NWDIProject.DescriptorImpl.DESCRIPTOR;
+            dcToolExecutor = new DCToolCommandExecutor(launcher, getWorkspace(), descriptor.getDIToolDescriptor(), configuration);
+            dcToolExecutor.setOutputFolder(getRootDir());
+            dcToolLauncher = launcher;
+        }
+
+        return dcToolExecutor;
+    }
+
+    /**
+     * End the dctool session started while checking out (if any).
+     *
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    synchronized void endDCToolSession() throws IOException, InterruptedException {
+        if (dcToolExecutor != null) {
+            dcToolExecutor.endSession();
+        }
     }
 
     /**
@@ -270,7 +334,11 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
     CBSToolCommandExecutor getCBSToolExecutor(final Launcher launcher) {
         final DevelopmentConfiguration configuration = getDevelopmentConfiguration();
         final NWDIProject.DescriptorImpl descriptor = NWDIProject.DescriptorImpl.DESCRIPTOR;
-        return new CBSToolCommandExecutor(launcher, getWorkspace(), descriptor.getDIToolDescriptor(), configuration);
+        final CBSToolCommandExecutor executor =
+            new CBSToolCommandExecutor(launcher, getWorkspace(), descriptor.getDIToolDescriptor(), configuration);
+        executor.setOutputFolder(getRootDir());
+
+        return executor;
     }
 
     /**
@@ -309,9 +377,14 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
                 result = Result.FAILURE;
             }
 
-            if (Result.SUCCESS.equals(result)) {
-                result = buildDevelopmentComponents(listener.getLogger()).isExitCodeOk() ? Result.SUCCESS : Result.UNSTABLE;
-                updateSourceCodeLocations(antHelper);
+            try {
+                if (Result.SUCCESS.equals(result)) {
+                    result = buildDevelopmentComponents(listener.getLogger()).isExitCodeOk() ? Result.SUCCESS : Result.UNSTABLE;
+                    updateSourceCodeLocations(antHelper);
+                }
+            }
+            finally {
+                endDCToolSession();
             }
 
             if ((Result.SUCCESS.equals(result) || Result.UNSTABLE.equals(result)) && !build(project.getBuilders(), antHelper)) {
@@ -377,13 +450,33 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
                     logger.println(component.getName());
                 }
 
-                result = getDCToolExecutor(launcher).buildDevelopmentComponents(affectedComponents);
+                final BuildDurationHistory history =
+                    new BuildDurationHistory(new File(getProject().getRootDir(), BuildDurationHistory.FILE_NAME));
+                final Map<DevelopmentComponent, Long> estimatedDurations = history.estimate(affectedComponents);
+                final List<List<DevelopmentComponent>> waves =
+                    new CriticalPathScheduler(estimatedDurations).schedule(nwdiBuild.getBuildWaves(logger));
+
                 final DCBuildResultParser buildResultParser = new DCBuildResultParser(nwdiBuild.getDevelopmentConfiguration());
-                final BuildResults buildResults = buildResultParser.parse(new StringReader(result.getOutput()));
+                final DependentBuildSkipper skipper =
+                    DependentBuildSkipper.create(nwdiBuild.getDevelopmentComponentFactory(), buildResultParser);
+                final DCToolCommandExecutor executor = getDCToolExecutor(launcher);
+                final ContentHashNeedsRebuildCalculator buildOutputCache = createBuildOutputCache(executor, logger);
+                result = executor.buildDevelopmentComponents(waves, estimatedDurations, buildResultParser, skipper, buildOutputCache);
+                final BuildResults buildResults = buildResultParser.getBuildResults();
+                history.record(buildResults.getBuildDurations());
+                history.save();
+
+                if (buildOutputCache != null) {
+                    final Collection<DevelopmentComponent> builtComponents =
+                        new ArrayList<DevelopmentComponent>(buildResults.getBuildDurations().keySet());
+                    builtComponents.removeAll(buildResults.getDcsWithBuildErrors());
+                    buildOutputCache.store(builtComponents);
+                    logger.println(Messages.NWDIBuild_restored_build_outputs(buildOutputCache.getRestored().size()));
+                }
 
                 if (buildResults.hasBuildErrors()) {
                     // any value other than 0 signifies an error
-                    result = new DIToolCommandExecutionResult(result.getOutput(), 1);
+                    result = new DIToolCommandExecutionResult(result.getOutput(), 1, result.getOutputFile());
 
                     // for (final DevelopmentComponent dcWithFailedBuild : buildResults.getDcsWithBuildErrors()) {
                     // nwdiBuild.addAction(new FailedBuildsAction(dcWithFailedBuild));
@@ -411,6 +504,33 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
             return result;
         }
 
+        /**
+         * Create the calculator restoring the build outputs of unchanged development components when enabled via the system property
+         * {@link ContentHashNeedsRebuildCalculator#CACHE_PROPERTY}. The calculator is only created when the given executor applies build
+         * wave filters, otherwise nothing would be restored and storing the build outputs would be wasted.
+         *
+         * @param executor
+         *            executor used to build the development components.
+         * @param logger
+         *            logger for reporting a build output cache the executor does not support.
+         * @return the calculator or <code>null</code> when restoring build outputs is not enabled or not supported by the given executor.
+         */
+        private ContentHashNeedsRebuildCalculator createBuildOutputCache(final DCToolCommandExecutor executor,
+            final PrintStream logger) {
+            if (!ContentHashNeedsRebuildCalculator.isEnabled()) {
+                return null;
+            }
+
+            if (!executor.canFilterBuildWaves()) {
+                logger.println(Messages.NWDIBuild_build_cache_unsupported(ContentHashNeedsRebuildCalculator.CACHE_PROPERTY,
+                    DCToolCommandExecutor.SESSION_PROPERTY, DIToolSessionPool.POOL_PROPERTY, DCToolCommandExecutor.SESSIONS_PROPERTY));
+                return null;
+            }
+
+            return new ContentHashNeedsRebuildCalculator(new AntHelper(FilePathHelper.makeAbsolute(getWorkspace()), dcFactory),
+                dcFactory, new BuildOutputStore(new File(getProject().getRootDir(), BuildOutputStore.FOLDER_NAME)));
+        }
+
         /**
          * @param nwdiBuild
          * @throws IOException
@@ -458,10 +578,16 @@ public final class NWDIBuild extends AbstractBuild<NWDIProject, NWDIBuild> {
 
         @Override
         public void cleanUp(@Nonnull final BuildListener listener) throws Exception {
-            // at this point it's too late to mark the build as a failure, so ignore return value.
-            performAllBuildSteps(listener, project.getPublishersList(), false);
-            performAllBuildSteps(listener, project.getProperties(), false);
-            super.cleanUp(listener);
+            try {
+                // the checkout or build may have failed or been aborted before the dctool session could be ended
+                endDCToolSession();
+            }
+            finally {
+                // at this point it's too late to mark the build as a failure, so ignore return value.
+                performAllBuildSteps(listener, project.getPublishersList(), false);
+                performAllBuildSteps(listener, project.getProperties(), false);
+                super.cleanUp(listener);
+            }
         }
     }
 
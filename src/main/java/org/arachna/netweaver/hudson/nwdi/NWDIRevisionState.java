@@ -8,7 +8,10 @@ import hudson.scm.SCMRevisionState;
 import java.io.Serializable;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.arachna.netweaver.hudson.dtr.browser.Activity;
 
@@ -34,6 +37,13 @@ public final class NWDIRevisionState extends SCMRevisionState implements Seriali
      */
     private final Date creationDate;
 
+    /**
+     * Highest integration sequence numbers of the activities read from the
+     * DTR mapped by compartment name (may be <code>null</code> for states
+     * persisted by earlier versions).
+     */
+    private final Map<String, Integer> integrationSequenceNumbers;
+
     /**
      * Create an instance of <code>NWDIRevisionState</code> with the given
      * collection of activities.
@@ -53,6 +63,18 @@ public final class NWDIRevisionState extends SCMRevisionState implements Seriali
         this(Calendar.getInstance().getTime());
     }
 
+    /**
+     * Create an instance of <code>NWDIRevisionState</code> with the current
+     * date and time and the given integration sequence numbers.
+     * 
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers of the activities read
+     *            from the DTR mapped by compartment name.
+     */
+    public NWDIRevisionState(final Map<String, Integer> integrationSequenceNumbers) {
+        this(Calendar.getInstance().getTime(), integrationSequenceNumbers);
+    }
+
     /**
      * Create state with the given date.
      * 
@@ -60,7 +82,21 @@ public final class NWDIRevisionState extends SCMRevisionState implements Seriali
      *            the date this state was created.
      */
     private NWDIRevisionState(final Date creationDate) {
+        this(creationDate, Collections.<String, Integer> emptyMap());
+    }
+
+    /**
+     * Create state with the given date and integration sequence numbers.
+     * 
+     * @param creationDate
+     *            the date this state was created.
+     * @param integrationSequenceNumbers
+     *            highest integration sequence numbers of the activities read
+     *            from the DTR mapped by compartment name.
+     */
+    private NWDIRevisionState(final Date creationDate, final Map<String, Integer> integrationSequenceNumbers) {
         this.creationDate = creationDate;
+        this.integrationSequenceNumbers = new HashMap<String, Integer>(integrationSequenceNumbers);
     }
 
     /**
@@ -73,4 +109,57 @@ public final class NWDIRevisionState extends SCMRevisionState implements Seriali
     public Date getCreationDate() {
         return new Date(creationDate.getTime());
     }
+
+    /**
+     * Returns the highest integration sequence numbers of the activities read
+     * from the DTR mapped by compartment name.
+     * 
+     * @return highest integration sequence numbers mapped by compartment name
+     *         (empty for states persisted by earlier versions).
+     */
+    public Map<String, Integer> getIntegrationSequenceNumbers() {
+        if (integrationSequenceNumbers == null) {
+            return Collections.emptyMap();
+        }
+
+        return Collections.unmodifiableMap(integrationSequenceNumbers);
+    }
+
+    /**
+     * Create a new state using the current date and time and the highest
+     * integration sequence number per compartment from this state and the
+     * given integration sequence numbers.
+     * 
+     * @param newIntegrationSequenceNumbers
+     *            integration sequence numbers determined since this state was
+     *            created mapped by compartment name.
+     * @return the new state.
+     */
+    public NWDIRevisionState merge(final Map<String, Integer> newIntegrationSequenceNumbers) {
+        return new NWDIRevisionState(mergeIntegrationSequenceNumbers(newIntegrationSequenceNumbers));
+    }
+
+    /**
+     * Determine the highest integration sequence number per compartment from
+     * this state and the given integration sequence numbers.
+     * 
+     * @param newIntegrationSequenceNumbers
+     *            integration sequence numbers determined since this state was
+     *            created mapped by compartment name.
+     * @return the highest integration sequence numbers mapped by compartment
+     *         name.
+     */
+    private Map<String, Integer> mergeIntegrationSequenceNumbers(final Map<String, Integer> newIntegrationSequenceNumbers) {
+        final Map<String, Integer> merged = new HashMap<String, Integer>(getIntegrationSequenceNumbers());
+
+        for (final Map.Entry<String, Integer> entry : newIntegrationSequenceNumbers.entrySet()) {
+            final Integer current = merged.get(entry.getKey());
+
+            if (current == null || current.intValue() < entry.getValue().intValue()) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return merged;
+    }
 }
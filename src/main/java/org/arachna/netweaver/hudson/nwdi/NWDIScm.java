@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
+import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
 
 import org.arachna.ant.AntHelper;
@@ -34,6 +35,7 @@ import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.dc.types.NeedsRebuildCalculator;
 import org.arachna.netweaver.hudson.dtr.browser.Activity;
 import org.arachna.netweaver.hudson.dtr.browser.DtrBrowser;
+import org.arachna.netweaver.hudson.dtr.browser.ResourceDetailsCache;
 import org.arachna.netweaver.hudson.nwdi.changelog.ChangeLogService;
 import org.arachna.netweaver.hudson.nwdi.dcupdater.DevelopmentComponentUpdater;
 import org.arachna.netweaver.hudson.util.FilePathHelper;
@@ -52,6 +54,11 @@ public class NWDIScm extends SCM {
      */
     private static final float A_THOUSAND_MSECS = 1000f;
 
+    /**
+     * name of file (relative to JENKINS_HOME) caching details of DTR resources.
+     */
+    private static final String RESOURCE_DETAILS_CACHE = "nwdi/resource-details.cache";
+
     /**
      * Get a clean copy of all development components from NWDI.
      */
@@ -124,6 +131,7 @@ public class NWDIScm extends SCM {
         final DCToolCommandExecutor executor = currentBuild.getDCToolExecutor(launcher);
 
         final DevelopmentComponentFactory dcFactory = currentBuild.getDevelopmentComponentFactory();
+        NWDIRevisionState revisionState = new NWDIRevisionState();
 
         DIToolCommandExecutionResult result = currentBuild.getCBSToolExecutor(launcher).listDevelopmentComponents(dcFactory);
         final AntHelper antHelper = new AntHelper(FilePathHelper.makeAbsolute(workspace), dcFactory);
@@ -142,7 +150,9 @@ public class NWDIScm extends SCM {
             final NWDIRevisionState state =
                 lastSuccessfulBuild == null ? NWDIRevisionState.START_STATE : lastSuccessfulBuild.getAction(NWDIRevisionState.class);
             final DevelopmentConfiguration config = currentBuild.getDevelopmentConfiguration();
-            activities.addAll(getActivities(logger, getDtrBrowser(config), dcFactory, state));
+            final DtrBrowser browser = getDtrBrowser(config);
+            activities.addAll(getActivities(logger, browser, dcFactory, state));
+            revisionState = state.merge(browser.getIntegrationSequenceNumbers());
 
             final boolean cleanCopy = currentBuild.getPreviousBuild() == null || this.cleanCopy;
 
@@ -151,21 +161,34 @@ public class NWDIScm extends SCM {
             }
 
             if (cleanCopy || !activities.isEmpty()) {
-                result = executor.synchronizeDevelopmentComponentsInSourceState(cleanCopy);
-                // update DCs with on disk information
-                updater.execute(dcFactory.getAll());
-
-                if (result.isExitCodeOk()) {
-                    result =
-                        executor.synchronizeDevelopmentComponentsInArchiveState(dcFactory, antHelper,
-                            currentBuild.getAffectedDevelopmentComponents(logger));
+                // keep the dctool running until the affected development components have been built
+                executor.startSession();
+                boolean synchronizedComponents = false;
+
+                try {
+                    result = executor.synchronizeDevelopmentComponentsInSourceState(cleanCopy);
+                    // update DCs with on disk information
+                    updater.execute(dcFactory.getAll());
+
+                    if (result.isExitCodeOk()) {
+                        result =
+                            executor.synchronizeDevelopmentComponentsInArchiveState(dcFactory, antHelper,
+                                currentBuild.getAffectedDevelopmentComponents(logger));
+                    }
+
+                    synchronizedComponents = result.isExitCodeOk();
+                }
+                finally {
+                    if (!synchronizedComponents) {
+                        executor.endSession();
+                    }
                 }
             }
         }
 
         updater.execute(dcFactory.getAll());
 
-        build.addAction(new NWDIRevisionState());
+        build.addAction(revisionState);
         writeChangeLog(build, changelogFile, activities);
 
         return result.isExitCodeOk();
@@ -195,13 +218,16 @@ public class NWDIScm extends SCM {
         nwdiProject.updateDevelopmentConfiguration(logger, path.child(".dtc"));
 
         logger.println(Messages.NWDIScm_comparing_base_line_activities_with_activities_accumulated_since_last_build(lastBuild.getNumber()));
-        final List<Activity> activities =
-            getActivities(logger, getDtrBrowser(lastBuild.getDevelopmentConfiguration()), null, (NWDIRevisionState) baseLine);
+        final NWDIRevisionState baseLineState = (NWDIRevisionState) baseLine;
+        final DtrBrowser browser = getDtrBrowser(lastBuild.getDevelopmentConfiguration());
+        final boolean hasActivities = hasActivities(logger, browser, baseLineState);
 
-        final Change changeState = activities.isEmpty() ? Change.NONE : Change.SIGNIFICANT;
+        final Change changeState = hasActivities ? Change.SIGNIFICANT : Change.NONE;
         logger.println(Messages.NWDIScm_found_changes(changeState.toString()));
 
-        return new PollingResult(baseLine, new NWDIRevisionState(), changeState);
+        // the remote state is the baseline of the next poll, keep the integration sequence numbers known so far (activity lists read
+        // while polling do not contain integration sequence numbers, they are determined when checking out)
+        return new PollingResult(baseLine, baseLine, changeState);
     }
 
     /**
@@ -275,10 +301,15 @@ public class NWDIScm extends SCM {
 
         if (!dryRun) {
             if (dcFactory == null) {
-                activities.addAll(browser.getActivities(state.getCreationDate()));
+                activities.addAll(browser.getActivities(state.getCreationDate(), state.getIntegrationSequenceNumbers()));
             }
             else {
-                activities.addAll(browser.getActivitiesWithResourcesAndDevelopmentComponents(dcFactory, state.getCreationDate()));
+                browser.setResourceDetailsCache(ResourceDetailsCache.getInstance(new File(Jenkins.getInstance().getRootDir(),
+                    RESOURCE_DETAILS_CACHE)));
+                activities.addAll(browser.getActivitiesWithResourcesAndDevelopmentComponents(dcFactory, state.getCreationDate(),
+                    state.getIntegrationSequenceNumbers()));
+                logger.println(Messages.NWDIScm_resource_details_cache_statistics(browser.getResourceDetailsCacheHits(),
+                    browser.getResourceDetailsCacheMisses()));
             }
         }
 
@@ -294,6 +325,27 @@ public class NWDIScm extends SCM {
         return activities;
     }
 
+    /**
+     * Determine whether there are activities since the given state. Stops at the first new activity found.
+     *
+     * @param logger
+     *            the logger to use.
+     * @param browser
+     *            the {@link DtrBrowser} to be used looking for activities.
+     * @param state
+     *            the NWDI revision state to use to determine activities.
+     * @return <code>true</code> when there are activities since the given state, <code>false</code> otherwise.
+     */
+    private boolean hasActivities(final PrintStream logger, final DtrBrowser browser, final NWDIRevisionState state) {
+        final long start = System.currentTimeMillis();
+        final boolean hasActivities =
+            !Boolean.getBoolean("nwdibuild.dry.run") && browser.hasActivities(state.getCreationDate(), state.getIntegrationSequenceNumbers());
+
+        duration(logger, start, Messages.NWDIScm_determine_activities_since(String.format("%1$tF %<tT", state.getCreationDate())));
+
+        return hasActivities;
+    }
+
     /**
      * Returns an instance of {@link DtrBrowser} using the given development configuration.
      *
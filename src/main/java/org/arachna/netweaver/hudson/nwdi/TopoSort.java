@@ -5,23 +5,31 @@ package org.arachna.netweaver.hudson.nwdi;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
 
+import org.arachna.netweaver.dc.types.Compartment;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
-import org.arachna.netweaver.dc.types.PublicPartReference;
+import org.arachna.netweaver.dc.types.DevelopmentComponentGraph;
 
 /**
  * Sort a collection of development components topologically wrt. their dependency relations.
  *
+ * The sort works on a {@link DevelopmentComponentGraph} snapshot of the registered development components. The state of the items to
+ * sort (position, passes, waves, remaining used DCs and the bookkeeping of the search for circular dependencies) is kept in integer
+ * arrays indexed by the ids of the graph.
+ *
  * @author Dirk Weigenand
  */
 public class TopoSort {
+    /**
+     * Log every removal of a usage relation while sorting when the system property <code>nwdibuild.toposort.debug</code> is
+     * <code>true</code>.
+     */
+    private static final boolean DEBUG = Boolean.getBoolean("nwdibuild.toposort.debug");
+
     /**
      * registry/factory for development components.
      */
@@ -53,71 +61,128 @@ public class TopoSort {
      */
     public TopoSortResult sort(final Collection<DevelopmentComponent> components) {
         final TopoSortResult topoSortResult = new TopoSortResult();
-        final Map<String, ComponentWrapper> itemMap = getComponentsToRebuild(components);
+        final Items items = new Items(dcFactory.createGraph());
 
-        topoSort(topoSortResult, itemMap, new ArrayList<ComponentWrapper>(itemMap.values()));
+        items.addComponentsToRebuild(components);
+        topoSort(topoSortResult, items);
 
         return topoSortResult;
     }
 
     /**
-     * Do a topological sort wrt. to dependencies on the given list of items (wrapper around {@link DevelopmentComponent} to facilitate the
-     * removal of dependencies for the purpose of sorting). Store the result of the sort in the {@link TopoSortResult}. If there are still
-     * items in the list when no progress can be made on the sort, extract circular dependencies and report those in the given
-     * {@link TopoSortResult} parameter.
+     * Do a topological sort wrt. to dependencies on the given items. Store the result of the sort in the {@link TopoSortResult}. If there
+     * are items left that can't be sorted, extract circular dependencies and report those in the given {@link TopoSortResult} parameter.
+     *
+     * Items are released by counting their remaining used DCs (Kahn's algorithm) in time linear to the number of items and usage
+     * relations. The order of the result is the same as if the list of items was scanned repeatedly, adding every item whose used DCs
+     * have all been added before in the current or a previous scan: the scan (pass) an item is added in is one after the latest pass of
+     * its used DCs, or the same pass if that used DC precedes the item in the list. Items are reported ordered by pass and position.
      *
      * @param topoSortResult
      *            Collector object for results of the topological sort and circular dependencies.
-     * @param itemMap
-     *            a map of all items for reference.
      * @param items
-     *            list of items to be sorted topologically.
+     *            items to be sorted topologically.
      */
-    private void topoSort(final TopoSortResult topoSortResult, final Map<String, ComponentWrapper> itemMap,
-        final List<ComponentWrapper> items) {
-        final ListIterator<ComponentWrapper> iterator = items.listIterator();
-        final int oldSize = topoSortResult.getDevelopmentComponents().size();
+    private void topoSort(final TopoSortResult topoSortResult, final Items items) {
+        final DevelopmentComponentGraph graph = items.graph;
+        final int[] ready = new int[items.size];
+        int head = 0;
+        int tail = 0;
+
+        for (int position = 0; position < items.size; position++) {
+            final int item = items.ids[position];
+            items.countUsedItems(item);
+
+            if (items.remaining[item] == 0) {
+                ready[tail++] = item;
+            }
+        }
 
-        while (iterator.hasNext()) {
-            final ComponentWrapper item = iterator.next();
+        int passes = 0;
 
-            // remove usedDCs that don't need rebuilding from dependencies.
-            Collection<DevelopmentComponent> usedDCs = new ArrayList<DevelopmentComponent>(item.getUsedDCs());
+        while (head < tail) {
+            final int item = ready[head++];
+            final DevelopmentComponent component = graph.getComponent(item);
+            final boolean waitedFor = items.isWaitedFor(item);
+            passes = Math.max(passes, items.pass[item]);
 
-            for (DevelopmentComponent usedDC : usedDCs) {
-                if (!usedDC.isNeedsRebuild()) {
-                    item.removeUsedDC(usedDC);
-                }
-            }
+            for (int i = 0; i < graph.getUsingCount(item); i++) {
+                final int usingItem = graph.getUsing(item, i);
 
-            if (!item.hasUsedDCs()) {
-                final DevelopmentComponent component = item.getComponent();
-                topoSortResult.add(component);
-                iterator.remove();
+                if (DEBUG) {
+                    logger.println(String.format("Attempt to remove usage of '%s' from '%s'.", component.getNormalizedName("~"),
+                        getComponentName(graph.getComponent(usingItem))));
+                }
 
-                for (final DevelopmentComponent usingDC : item.getUsingDCs()) {
-                    String componentName = getComponentName(usingDC);
-                    logger.println(String.format("Attempt to remove usage of '%s' from '%s'.", component.getNormalizedName("~"), componentName));
-                    ComponentWrapper componentItem = itemMap.get(componentName);
+                if (items.position[usingItem] != -1) {
+                    if (waitedFor) {
+                        items.remaining[usingItem]--;
+                        items.updatePassAndWave(usingItem, item);
 
-                    if (componentItem != null) {
-                        componentItem.removeUsedDC(component);
-                    }
-                    else {
-                        logger.println(String.format("Could not find '%s' in using DCs.", componentName));
+                        if (items.remaining[usingItem] == 0) {
+                            ready[tail++] = usingItem;
+                        }
                     }
                 }
+                else {
+                    logger.println(String.format("Could not find '%s' in using DCs.", getComponentName(graph.getComponent(usingItem))));
+                }
+            }
+        }
+
+        addInBuildOrder(topoSortResult, items, passes);
+    }
+
+    /**
+     * Add the sorted items to the given result ordered by pass and position. Report circular dependencies for the items that could not
+     * be sorted.
+     *
+     * @param topoSortResult
+     *            Collector object for results of the topological sort and circular dependencies.
+     * @param items
+     *            items to be sorted topologically.
+     * @param passes
+     *            number of passes needed to sort the items.
+     */
+    private void addInBuildOrder(final TopoSortResult topoSortResult, final Items items, final int passes) {
+        final int[] passOffsets = new int[passes + 1];
+        final int[] unsorted = new int[items.size];
+        int unsortedCount = 0;
+
+        for (int position = 0; position < items.size; position++) {
+            final int item = items.ids[position];
+
+            if (items.remaining[item] > 0) {
+                unsorted[unsortedCount++] = item;
+            }
+            else {
+                passOffsets[items.pass[item]]++;
             }
         }
 
-        if (oldSize == topoSortResult.getDevelopmentComponents().size()) {
-            findCircularDependencies(topoSortResult, itemMap, items);
+        for (int pass = 1; pass <= passes; pass++) {
+            passOffsets[pass] += passOffsets[pass - 1];
         }
-        else {
-            if (!items.isEmpty()) {
-                topoSort(topoSortResult, itemMap, items);
+
+        final int[] sorted = new int[passOffsets[passes]];
+
+        for (int position = 0; position < items.size; position++) {
+            final int item = items.ids[position];
+
+            if (items.remaining[item] == 0) {
+                sorted[passOffsets[items.pass[item] - 1]++] = item;
             }
         }
+
+        for (final int item : sorted) {
+            final DevelopmentComponent component = items.graph.getComponent(item);
+            topoSortResult.add(component);
+            topoSortResult.addToWave(items.wave[item], component);
+        }
+
+        if (unsortedCount > 0) {
+            findCircularDependencies(topoSortResult, items, Arrays.copyOf(unsorted, unsortedCount));
+        }
     }
 
     /**
@@ -132,243 +197,357 @@ public class TopoSort {
     }
 
     /**
-     * Find circular dependencies in the given list of items.
+     * Find circular dependencies in the given list of items, i.e. the strongly connected components of the graph of items and their
+     * remaining used DCs (Tarjan's algorithm, iteratively). Every cluster of items depending on each other is reported once with all its
+     * members. Additionally every usage relation inside a cluster is reported as a pair of development components.
+     *
+     * Items that could not be sorted only because they depend on such a cluster are not reported.
      *
      * @param topoSortResult
      *            collector object to report the found circular dependencies to.
-     * @param itemMap
-     *            map of names to item for looking up items by name.
      * @param items
-     *            list of items to inspect for circular dependencies.
+     *            items to be sorted topologically.
+     * @param unsorted
+     *            ids of the items that could not be sorted in the order of their position.
      */
-    private void findCircularDependencies(final TopoSortResult topoSortResult, final Map<String, ComponentWrapper> itemMap,
-        final List<ComponentWrapper> items) {
-        for (final ComponentWrapper item : items) {
-            findRecursivelyInUsedDCs(0, item.getComponent(), item, itemMap, topoSortResult, new HashSet<DevelopmentComponent>());
+    private void findCircularDependencies(final TopoSortResult topoSortResult, final Items items, final int[] unsorted) {
+        final DevelopmentComponentGraph graph = items.graph;
+        final int[] index = new int[graph.size()];
+        final int[] lowLink = new int[graph.size()];
+        final int[] nextUsed = new int[graph.size()];
+        final boolean[] onStack = new boolean[graph.size()];
+        final int[] componentStack = new int[unsorted.length];
+        final int[] callStack = new int[unsorted.length];
+        int componentTop = 0;
+        int nextIndex = 1;
+
+        for (final int root : unsorted) {
+            if (index[root] != 0) {
+                continue;
+            }
+
+            int callTop = 0;
+            index[root] = nextIndex;
+            lowLink[root] = nextIndex++;
+            onStack[root] = true;
+            componentStack[componentTop++] = root;
+            callStack[callTop++] = root;
+
+            while (callTop > 0) {
+                final int item = callStack[callTop - 1];
+
+                if (nextUsed[item] < graph.getUsedCount(item)) {
+                    final int usedItem = graph.getUsed(item, nextUsed[item]++);
+
+                    if (!items.isUnsortedUsedItem(usedItem)) {
+                        continue;
+                    }
+
+                    if (index[usedItem] == 0) {
+                        index[usedItem] = nextIndex;
+                        lowLink[usedItem] = nextIndex++;
+                        onStack[usedItem] = true;
+                        componentStack[componentTop++] = usedItem;
+                        callStack[callTop++] = usedItem;
+                    }
+                    else if (onStack[usedItem]) {
+                        lowLink[item] = Math.min(lowLink[item], index[usedItem]);
+                    }
+                }
+                else {
+                    callTop--;
+
+                    if (callTop > 0) {
+                        final int caller = callStack[callTop - 1];
+                        lowLink[caller] = Math.min(lowLink[caller], lowLink[item]);
+                    }
+
+                    if (lowLink[item] == index[item]) {
+                        int bottom = componentTop;
+
+                        do {
+                            onStack[componentStack[--bottom]] = false;
+                        }
+                        while (componentStack[bottom] != item);
+
+                        reportDependencyCycle(topoSortResult, items, Arrays.copyOfRange(componentStack, bottom, componentTop));
+                        componentTop = bottom;
+                    }
+                }
+            }
         }
     }
 
     /**
-     * Inspect the given item whether the given component is contained in the used DCs of the item. Skip the visit if the given item has
-     * been visited or the component is marked as having a circular dependency already .
+     * Report the given strongly connected component as cluster of development components depending on each other if it consists of more
+     * than one item or its only item uses itself.
      *
-     * @param component
-     *            development component that is to be checked for having circular dependencies.
-     * @param parent
-     *            development component (wrapper) that is to be searched for usage relations with the given component.
-     * @param itemMap
-     *            name -> item map for lookup of items by name.
      * @param topoSortResult
-     *            result collector to report circular dependencies to.
-     * @param visitedParents
-     *            collector object to avoid multiple visits on items (and infinite recursion aka StackOverflowError).
+     *            collector object to report the cluster to.
+     * @param items
+     *            items to be sorted topologically.
+     * @param members
+     *            ids of the members of a strongly connected component.
      */
-    private void findRecursivelyInUsedDCs(final int depth, final DevelopmentComponent component, final ComponentWrapper parent,
-        final Map<String, ComponentWrapper> itemMap, final TopoSortResult topoSortResult,
-        final Collection<DevelopmentComponent> visitedParents) {
-        if (topoSortResult.hasCircularDependency(component) || (parent != null && visitedParents.contains(parent.getComponent()))) {
+    private void reportDependencyCycle(final TopoSortResult topoSortResult, final Items items, final int[] members) {
+        final DevelopmentComponentGraph graph = items.graph;
+        final int first = members[0];
+
+        if (members.length == 1 && !(usesItself(graph, first) && items.isUnsortedUsedItem(first))) {
             return;
         }
 
-        visitedParents.add(parent.getComponent());
+        items.sortByPosition(members);
 
-        if (parent.getUsedDCs().contains(component)) {
-            topoSortResult.add(component, parent.getComponent());
-        }
+        final List<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>(members.length);
 
-        for (final DevelopmentComponent usedDC : parent.getUsedDCs()) {
-            final String componentName = getComponentName(usedDC);
-            final ComponentWrapper dependency = itemMap.get(componentName);
+        for (final int member : members) {
+            components.add(graph.getComponent(member));
 
-            findRecursivelyInUsedDCs(depth + 1, component, dependency, itemMap, topoSortResult, visitedParents);
-        }
-    }
-
-    /**
-     * Calculate development components that will need to be rebuilt and build a mapping of name to item wrapper.
-     *
-     * @param componentsToRebuild
-     *            list of components that should be rebuilt.
-     * @return mapping of name to item wrapper of components (and components depending on them) need to be rebuilt.
-     */
-    private Map<String, ComponentWrapper> getComponentsToRebuild(final Collection<DevelopmentComponent> componentsToRebuild) {
-        final Map<String, ComponentWrapper> components = new HashMap<String, ComponentWrapper>();
+            for (int i = 0; i < graph.getUsedCount(member); i++) {
+                final int usedItem = graph.getUsed(member, i);
 
-        for (final DevelopmentComponent dc : componentsToRebuild) {
-            calculateDevelopmentComponentsThatNeedRebuilding(components, dc);
+                if (items.isUnsortedUsedItem(usedItem) && contains(members, usedItem)) {
+                    topoSortResult.add(graph.getComponent(usedItem), graph.getComponent(member));
+                }
+            }
         }
 
-        return components;
+        topoSortResult.addDependencyCycle(components);
     }
 
     /**
-     * Update the <code>needsRebuild</code> property recursively for the given components using DCs.
+     * Determine whether the development component with the given id uses itself.
      *
-     * @param components
-     *            map of components processed so far.
-     * @param component
-     *            the development component whose using DCs have to be set up as needing a rebuild.
+     * @param graph
+     *            dependency graph of the registered development components.
+     * @param item
+     *            id of development component.
+     * @return <code>true</code> when the development component uses itself, <code>false</code> otherwise.
      */
-    private void calculateDevelopmentComponentsThatNeedRebuilding(final Map<String, ComponentWrapper> components,
-        final DevelopmentComponent component) {
-        if (component.getCompartment() != null && !components.containsKey(getComponentName(component))) {
-            component.setNeedsRebuild(true);
-            final ComponentWrapper i = new ComponentWrapper(component, createListOfUsedDCs(component));
-            components.put(i.getName(), i);
-
-            for (final DevelopmentComponent usingDC : i.getUsingDCs()) {
-                calculateDevelopmentComponentsThatNeedRebuilding(components, usingDC);
+    private static boolean usesItself(final DevelopmentComponentGraph graph, final int item) {
+        for (int i = 0; i < graph.getUsedCount(item); i++) {
+            if (graph.getUsed(item, i) == item) {
+                return true;
             }
         }
+
+        return false;
     }
 
     /**
-     * Create a collection of used DCs from the public part references of the given component.
+     * Determine whether the given array contains the given id.
      *
-     * @param component
-     *            the component whose referenced development components are requested.
-     * @return collection of used DCs.
+     * @param ids
+     *            array of ids to search.
+     * @param id
+     *            id to search for.
+     * @return <code>true</code> when the array contains the id, <code>false</code> otherwise.
      */
-    private Collection<DevelopmentComponent> createListOfUsedDCs(final DevelopmentComponent component) {
-        final Collection<DevelopmentComponent> usedDCs = new HashSet<DevelopmentComponent>(component.getUsedDevelopmentComponents().size());
-
-        for (final PublicPartReference reference : component.getUsedDevelopmentComponents()) {
-            final DevelopmentComponent e = dcFactory.get(reference);
-
-            // only look at DCs that are in source state and need rebuilding themselves.
-            if (e != null && e.getCompartment().isSourceState()) {
-                usedDCs.add(e);
+    private static boolean contains(final int[] ids, final int id) {
+        for (final int candidate : ids) {
+            if (candidate == id) {
+                return true;
             }
         }
 
-        return usedDCs;
+        return false;
     }
 
     /**
-     * Wrapper around a development component (used for performance reasons).
+     * State of the development components (items) to be sorted, indexed by their ids in a {@link DevelopmentComponentGraph}.
      *
      * @author Dirk Weigenand
      */
-    private static final class ComponentWrapper implements Comparable<ComponentWrapper> {
+    private static final class Items {
         /**
-         * Combination of vendor and component name.
+         * dependency graph of the registered development components.
          */
-        private final String name;
+        private final DevelopmentComponentGraph graph;
 
         /**
-         * the component itself.
+         * ids of the items in the order of their position in the list of items to sort.
          */
-        private final DevelopmentComponent component;
+        private final int[] ids;
 
         /**
-         * components using this component.
+         * position of each item in the list of items to sort mapped by id (<code>-1</code> when the development component is no item).
          */
-        private final Collection<DevelopmentComponent> usingDCs = new HashSet<DevelopmentComponent>();
+        private final int[] position;
 
         /**
-         * components used by this component.
+         * number of used items not added to the result yet mapped by id.
          */
-        private final Collection<DevelopmentComponent> usedDCs = new HashSet<DevelopmentComponent>();
+        private final int[] remaining;
 
         /**
-         * Create a new wrapper instance around the given component.
-         *
-         * @param component
-         *            the component to wrap.
-         * @param usedDCs
-         *            components used by this DC so that they don't need to be recomputed from the public part reference.
+         * pass of the sort each item is added to the result in mapped by id.
          */
-        ComponentWrapper(final DevelopmentComponent component, final Collection<DevelopmentComponent> usedDCs) {
-            this.component = component;
-            name = component.getVendor() + ":" + component.getName();
-
-            usingDCs.addAll(component.getUsingDevelopmentComponents());
-            this.usedDCs.addAll(usedDCs);
-        }
+        private final int[] pass;
 
         /**
-         * @return the usedDCs
+         * wave each item can be built in mapped by id, i.e. one more than the longest chain of items the item depends on.
          */
-        public boolean hasUsedDCs() {
-            return !usedDCs.isEmpty();
-        }
+        private final int[] wave;
 
         /**
-         *
-         * @param usedDC
+         * number of items.
          */
-        public void removeUsedDC(final DevelopmentComponent usedDC) {
-            usedDCs.remove(usedDC);
-        }
+        private int size;
 
         /**
-         * @return the usedDCs
+         * Create the state for sorting development components of the given graph.
+         *
+         * @param graph
+         *            dependency graph of the registered development components.
          */
-        public Collection<DevelopmentComponent> getUsingDCs() {
-            return component.getUsingDevelopmentComponents();
+        Items(final DevelopmentComponentGraph graph) {
+            this.graph = graph;
+            ids = new int[graph.size()];
+            position = new int[graph.size()];
+            remaining = new int[graph.size()];
+            pass = new int[graph.size()];
+            wave = new int[graph.size()];
+            Arrays.fill(position, -1);
         }
 
         /**
-         * @return the component
+         * Add the given development components and all development components using them directly or transitively as items and mark
+         * them as needing a rebuild. The using DCs are visited depth first using an explicit stack so long chains of dependencies don't
+         * exhaust the call stack. Items are positioned in the order they are visited in.
+         *
+         * @param components
+         *            list of components that should be rebuilt.
          */
-        public DevelopmentComponent getComponent() {
-            return component;
-        }
+        void addComponentsToRebuild(final Collection<DevelopmentComponent> components) {
+            final int[] stack = new int[graph.size()];
+            final int[] nextUsing = new int[graph.size()];
 
-        /**
-         * @return the name
-         */
-        public String getName() {
-            return name;
-        }
+            for (final DevelopmentComponent component : components) {
+                final int root = graph.getId(component);
 
-        @Override
-        public int hashCode() {
-            return component == null ? 0 : component.hashCode();
-        }
+                if (!add(root)) {
+                    continue;
+                }
 
-        @Override
-        public boolean equals(final Object obj) {
-            if (this == obj) {
-                return true;
+                int top = 0;
+                stack[top++] = root;
+
+                while (top > 0) {
+                    final int item = stack[top - 1];
+
+                    if (nextUsing[item] < graph.getUsingCount(item)) {
+                        final int usingItem = graph.getUsing(item, nextUsing[item]++);
+
+                        if (add(usingItem)) {
+                            stack[top++] = usingItem;
+                        }
+                    }
+                    else {
+                        top--;
+                    }
+                }
             }
-            if (obj == null) {
+        }
+
+        /**
+         * Add the development component with the given id as item unless it already is one or does not belong to a compartment.
+         *
+         * @param id
+         *            id of development component.
+         * @return <code>true</code> when the development component was added, <code>false</code> otherwise.
+         */
+        private boolean add(final int id) {
+            if (id == -1 || position[id] != -1) {
                 return false;
             }
-            if (getClass() != obj.getClass()) {
+
+            final DevelopmentComponent component = graph.getComponent(id);
+
+            if (component.getCompartment() == null) {
                 return false;
             }
-            final ComponentWrapper other = (ComponentWrapper)obj;
-            if (component == null) {
-                if (other.component != null) {
-                    return false;
+
+            component.setNeedsRebuild(true);
+            position[id] = size;
+            ids[size++] = id;
+            pass[id] = 1;
+            wave[id] = 1;
+
+            return true;
+        }
+
+        /**
+         * Count the used DCs the given item has to wait for.
+         *
+         * @param item
+         *            id of item.
+         */
+        void countUsedItems(final int item) {
+            for (int i = 0; i < graph.getUsedCount(item); i++) {
+                if (isWaitedFor(graph.getUsed(item, i))) {
+                    remaining[item]++;
                 }
             }
+        }
+
+        /**
+         * Determine whether users of the given development component have to wait for it to be added to the result, i.e. it is in source
+         * state and needs rebuilding itself.
+         *
+         * @param id
+         *            id of development component.
+         * @return <code>true</code> when users of the development component have to wait for it, <code>false</code> otherwise.
+         */
+        boolean isWaitedFor(final int id) {
+            final DevelopmentComponent component = graph.getComponent(id);
+            final Compartment compartment = component.getCompartment();
 
-            return !component.equals(other.component);
+            return compartment != null && compartment.isSourceState() && component.isNeedsRebuild();
         }
 
         /**
-         * {@inheritDoc}
+         * Determine whether the given used development component is an item that could not be sorted either and blocks its users.
+         *
+         * @param usedItem
+         *            id of a used development component.
+         * @return <code>true</code> when the used development component is an unsorted item its users wait for.
          */
-        @Override
-        public String toString() {
-            return "Item [name=" + name + "]\n";
+        boolean isUnsortedUsedItem(final int usedItem) {
+            return position[usedItem] != -1 && remaining[usedItem] > 0 && isWaitedFor(usedItem);
         }
 
         /**
-         * {@inheritDoc}
+         * Update the pass and wave the given item will be added to the result in, after the given used item has been added. The item can
+         * be added in the same pass as the used item when it follows the used item in the list of items to sort, otherwise in the next
+         * pass.
+         *
+         * @param item
+         *            id of item.
+         * @param usedItem
+         *            id of an item used by the given one that was just added to the result.
          */
-        @Override
-        public int compareTo(final ComponentWrapper o) {
-            return getName().compareTo(o.getName());
+        void updatePassAndWave(final int item, final int usedItem) {
+            pass[item] = Math.max(pass[item], pass[usedItem] + (position[usedItem] > position[item] ? 1 : 0));
+            wave[item] = Math.max(wave[item], wave[usedItem] + 1);
         }
 
         /**
-         * @return the usedDCs
+         * Sort the given item ids by their position in the list of items to sort.
+         *
+         * @param members
+         *            ids of items.
          */
-        public Collection<DevelopmentComponent> getUsedDCs() {
-            return usedDCs;
+        void sortByPosition(final int[] members) {
+            for (int i = 0; i < members.length; i++) {
+                members[i] = position[members[i]];
+            }
+
+            Arrays.sort(members);
+
+            for (int i = 0; i < members.length; i++) {
+                members[i] = ids[members[i]];
+            }
         }
     }
 }
\ No newline at end of file
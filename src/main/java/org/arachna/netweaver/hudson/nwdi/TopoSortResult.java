@@ -3,9 +3,13 @@
  */
 package org.arachna.netweaver.hudson.nwdi;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 
@@ -25,6 +29,22 @@ public class TopoSortResult {
      */
     private final Collection<CircularDependency> circularDependencies = new LinkedList<CircularDependency>();
 
+    /**
+     * clusters of development components depending on each other (strongly connected components of the dependency graph).
+     */
+    private final Collection<DependencyCycle> dependencyCycles = new LinkedList<DependencyCycle>();
+
+    /**
+     * development components in build order grouped into waves. The development components of a wave depend only on development
+     * components of earlier waves.
+     */
+    private final List<List<DevelopmentComponent>> waves = new ArrayList<List<DevelopmentComponent>>();
+
+    /**
+     * development components recorded as having a circular dependency.
+     */
+    private final Set<DevelopmentComponent> componentsWithCircularDependencies = new HashSet<DevelopmentComponent>();
+
     /**
      * Add the given development component to list of development components in build order.
      *
@@ -44,6 +64,64 @@ public class TopoSortResult {
         return Collections.unmodifiableCollection(components);
     }
 
+    /**
+     * Add the given development component to the given wave. The development components of a wave depend only on development components
+     * of earlier waves and can thus be built concurrently.
+     *
+     * @param wave
+     *            number of wave (starting at 1) the development component belongs to.
+     * @param component
+     *            development component to add.
+     */
+    public void addToWave(final int wave, final DevelopmentComponent component) {
+        while (waves.size() < wave) {
+            waves.add(new ArrayList<DevelopmentComponent>());
+        }
+
+        waves.get(wave - 1).add(component);
+    }
+
+    /**
+     * Get the development components in build order grouped into waves. The development components of a wave depend only on development
+     * components of earlier waves.
+     *
+     * @return the development components in build order grouped into waves.
+     */
+    public List<List<DevelopmentComponent>> getWaves() {
+        final List<List<DevelopmentComponent>> result = new ArrayList<List<DevelopmentComponent>>(waves.size());
+
+        for (final List<DevelopmentComponent> wave : waves) {
+            result.add(Collections.unmodifiableList(wave));
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the number of development components in the largest wave, i.e. the maximum number of development components that could be
+     * built concurrently.
+     *
+     * @return number of development components in the largest wave.
+     */
+    public int getMaximumWaveWidth() {
+        int width = 0;
+
+        for (final List<DevelopmentComponent> wave : waves) {
+            width = Math.max(width, wave.size());
+        }
+
+        return width;
+    }
+
+    /**
+     * Returns the length of the longest chain of dependencies among the development components to build (i.e. the number of waves).
+     *
+     * @return length of the critical path.
+     */
+    public int getCriticalPathLength() {
+        return waves.size();
+    }
+
     /**
      * Add the given pair of development components as circular dependency to this <code>TopoSortResult</code>.
      *
@@ -54,6 +132,28 @@ public class TopoSortResult {
      */
     public void add(final DevelopmentComponent component, final DevelopmentComponent dependency) {
         circularDependencies.add(new CircularDependency(component, dependency));
+        componentsWithCircularDependencies.add(component);
+    }
+
+    /**
+     * Add the given cluster of development components depending on each other to this <code>TopoSortResult</code>.
+     *
+     * @param members
+     *            development components depending on each other (directly or transitively).
+     */
+    public void addDependencyCycle(final Collection<DevelopmentComponent> members) {
+        dependencyCycles.add(new DependencyCycle(members));
+        componentsWithCircularDependencies.addAll(members);
+    }
+
+    /**
+     * Get the clusters of development components depending on each other. Every development component is a member of at most one
+     * cluster.
+     *
+     * @return clusters of development components depending on each other.
+     */
+    public Collection<DependencyCycle> getDependencyCycles() {
+        return Collections.unmodifiableCollection(dependencyCycles);
     }
 
     /**
@@ -168,12 +268,43 @@ public class TopoSortResult {
      * @return <code>true</code>, when a circular dependency for the given component has already be recorded, <code>false</code> otherwise.
      */
     public boolean hasCircularDependency(final DevelopmentComponent component) {
-        for (final CircularDependency dependency : circularDependencies) {
-            if (dependency.component.equals(component)) {
-                return true;
-            }
+        return componentsWithCircularDependencies.contains(component);
+    }
+
+    /**
+     * A cluster of development components depending on each other (directly or transitively).
+     *
+     * @author Dirk Weigenand
+     */
+    public static class DependencyCycle {
+        /**
+         * members of this cluster.
+         */
+        private final List<DevelopmentComponent> components;
+
+        /**
+         * Create an instance of a <code>DependencyCycle</code>.
+         *
+         * @param components
+         *            members of the cluster.
+         */
+        public DependencyCycle(final Collection<DevelopmentComponent> components) {
+            this.components = new ArrayList<DevelopmentComponent>(components);
+        }
+
+        /**
+         * @return the members of this cluster.
+         */
+        public List<DevelopmentComponent> getComponents() {
+            return Collections.unmodifiableList(components);
         }
 
-        return false;
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "DependencyCycle [components=" + components + "]";
+        }
     }
 }
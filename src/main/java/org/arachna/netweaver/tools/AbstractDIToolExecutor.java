@@ -6,16 +6,19 @@ package org.arachna.netweaver.tools;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Launcher.ProcStarter;
+import hudson.Proc;
 import hudson.util.ArgumentListBuilder;
 import hudson.util.ForkOutputStream;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +33,11 @@ import org.arachna.netweaver.dc.types.JdkHomeAlias;
  * @author Dirk Weigenand
  */
 public abstract class AbstractDIToolExecutor {
+    /**
+     * Name of system property enabling spilling the complete output of the tool to a file in the output folder.
+     */
+    public static final String SPILL_PROPERTY = "nwdibuild.ditool.output.spill";
+
     /**
      *
      */
@@ -65,6 +73,11 @@ public abstract class AbstractDIToolExecutor {
      */
     private final PrintStream logger;
 
+    /**
+     * folder the output of the tool is spilled to (may be <code>null</code>).
+     */
+    private File outputFolder;
+
     /**
      * create DC tool executor with the given command line generator and given command build.
      *
@@ -96,11 +109,93 @@ public abstract class AbstractDIToolExecutor {
      *             might be thrown be the {@link ProcStarter} used to execute the DC tool commands.
      */
     public DIToolCommandExecutionResult execute(final DIToolCommandBuilder commandBuilder) throws IOException {
+        return execute(commandBuilder, launcher.getListener().getLogger(), null);
+    }
+
+    /**
+     * Execute dc tool with the given {@link DIToolCommandBuilder} pushing the tool's output line by line to the given consumer.
+     *
+     * @param commandBuilder
+     *            builder for dc tool commands
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return content of log file created by the executed dc tool.
+     * @throws IOException
+     *             might be thrown be the {@link ProcStarter} used to execute the DC tool commands.
+     */
+    protected final DIToolCommandExecutionResult execute(final DIToolCommandBuilder commandBuilder, final DIToolOutputConsumer consumer)
+        throws IOException {
+        return execute(commandBuilder, logger, consumer);
+    }
+
+    /**
+     * Execute dc tool with the given {@link DIToolCommandBuilder} copying the tool's output to the given stream.
+     *
+     * @param commandBuilder
+     *            builder for dc tool commands
+     * @param console
+     *            stream the output of the tool should be copied to (may be <code>null</code>).
+     * @return content of log file created by the executed dc tool.
+     * @throws IOException
+     *             might be thrown be the {@link ProcStarter} used to execute the DC tool commands.
+     */
+    protected final DIToolCommandExecutionResult execute(final DIToolCommandBuilder commandBuilder, final OutputStream console)
+        throws IOException {
+        return execute(commandBuilder, console, null);
+    }
+
+    /**
+     * Execute dc tool with the given {@link DIToolCommandBuilder} copying the tool's output to the given stream and pushing it line by line
+     * to the given consumer while the tool is running.
+     *
+     * Only the tail of the output is kept in the returned result, the complete output is spilled to a file in the output folder (when
+     * enabled, see {@link #createSpillFile()}).
+     *
+     * @param commandBuilder
+     *            builder for dc tool commands
+     * @param console
+     *            stream the output of the tool should be copied to (may be <code>null</code>).
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return content of log file created by the executed dc tool.
+     * @throws IOException
+     *             might be thrown be the {@link ProcStarter} used to execute the DC tool commands.
+     */
+    protected final DIToolCommandExecutionResult execute(final DIToolCommandBuilder commandBuilder, final OutputStream console,
+        final DIToolOutputConsumer consumer) throws IOException {
+        return execute(commandBuilder, console, consumer, true);
+    }
+
+    /**
+     * Execute dc tool with the given {@link DIToolCommandBuilder} copying the tool's output to the given stream and pushing it line by line
+     * to the given consumer while the tool is running.
+     *
+     * @param commandBuilder
+     *            builder for dc tool commands
+     * @param console
+     *            stream the output of the tool should be copied to (may be <code>null</code>).
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @param spill
+     *            <code>true</code> when the output should be spilled to a file in the output folder (when enabled, see
+     *            {@link #createSpillFile()}), <code>false</code> when the caller keeps the complete output itself.
+     * @return content of log file created by the executed dc tool.
+     * @throws IOException
+     *             might be thrown be the {@link ProcStarter} used to execute the DC tool commands.
+     */
+    protected final DIToolCommandExecutionResult execute(final DIToolCommandBuilder commandBuilder, final OutputStream console,
+        final DIToolOutputConsumer consumer, final boolean spill) throws IOException {
         final List<String> commands = commandBuilder.execute();
-        final ByteArrayOutputStream result = new ByteArrayOutputStream();
-        int exitCode = 0;
 
-        if (!commands.isEmpty()) {
+        if (commands.isEmpty()) {
+            return new DIToolCommandExecutionResult("", 0);
+        }
+
+        final DIToolOutputStream result = new DIToolOutputStream(spill ? createSpillFile() : null);
+        result.addConsumer(consumer);
+        int exitCode = -1;
+
+        try {
             final ProcStarter starter = launcher.launch();
             starter.pwd(workspace);
             starter.envs(createEnvironment());
@@ -108,10 +203,7 @@ public abstract class AbstractDIToolExecutor {
             starter.cmds(toolCommand);
             starter.stdin(createCommandInputStream(commands));
 
-            final ForkOutputStream tee = new ForkOutputStream(launcher.getListener().getLogger(), result);
-            starter.stdout(tee);
-
-            exitCode = -1;
+            starter.stdout(console == null ? result : new ForkOutputStream(console, result));
 
             try {
                 exitCode = starter.join();
@@ -120,8 +212,183 @@ public abstract class AbstractDIToolExecutor {
                 result.write("\nOperation has been interrupted!".getBytes(Charset.defaultCharset()));
             }
         }
+        finally {
+            result.close();
+        }
+
+        return result.toResult(exitCode);
+    }
+
+    /**
+     * Set the folder the output of the tool should be spilled to.
+     *
+     * @param outputFolder
+     *            folder the output of the tool should be spilled to (<code>null</code> to keep only the tail of the output in memory).
+     */
+    public final void setOutputFolder(final File outputFolder) {
+        this.outputFolder = outputFolder;
+    }
+
+    /**
+     * Returns the folder the output of the tool is spilled to.
+     *
+     * @return the folder the output of the tool is spilled to (may be <code>null</code>).
+     */
+    protected final File getOutputFolder() {
+        return outputFolder;
+    }
+
+    /**
+     * Create a file in the output folder to spill the output of the tool to. Spilling is enabled via the system property
+     * {@link #SPILL_PROPERTY} since the spilled files are kept with the build in addition to the console log.
+     *
+     * @return the created file or <code>null</code> when spilling is not enabled or no output folder has been set.
+     * @throws IOException
+     *             when the file could not be created.
+     */
+    protected final File createSpillFile() throws IOException {
+        if (outputFolder == null || !Boolean.getBoolean(SPILL_PROPERTY)) {
+            return null;
+        }
+
+        final String commandName = getCommandName();
 
-        return new DIToolCommandExecutionResult(result.toString(Charset.defaultCharset().name()), exitCode);
+        return File.createTempFile(commandName.substring(0, commandName.indexOf('.')) + '-', ".log", outputFolder);
+    }
+
+    /**
+     * Start the NWDI tool and keep it running for feeding it commands via the returned {@link DIToolSession}.
+     *
+     * The output of the tool is copied to the build log.
+     *
+     * @param prompt
+     *            prompt printed by the tool when it is ready to read the next command.
+     * @return session with the started tool.
+     * @throws IOException
+     *             might be thrown be the {@link ProcStarter} used to start the tool.
+     */
+    protected final DIToolSession openSession(final String prompt) throws IOException {
+        return openSession(prompt, logger);
+    }
+
+    /**
+     * Start the NWDI tool and keep it running for feeding it commands via the returned {@link DIToolSession}.
+     *
+     * @param prompt
+     *            prompt printed by the tool when it is ready to read the next command.
+     * @param console
+     *            stream the output of the tool should be copied to (may be <code>null</code>).
+     * @return session with the started tool.
+     * @throws IOException
+     *             might be thrown be the {@link ProcStarter} used to start the tool.
+     */
+    private DIToolSession openSession(final String prompt, final OutputStream console) throws IOException {
+        final ProcStarter starter = launcher.launch();
+        starter.pwd(workspace);
+        starter.envs(createEnvironment());
+        starter.cmds(createToolCommand());
+        starter.writeStdin();
+        starter.readStdout();
+        final Proc process = starter.start();
+
+        return new DIToolSession(process, prompt, getCommandSeparator(), console);
+    }
+
+    /**
+     * Execute the given commands in a tool session kept alive between builds when pooling is enabled (see
+     * {@link DIToolSessionPool#POOL_PROPERTY}). Otherwise (or when the pooled session could not be started) the tool is started for the
+     * given login, tool and exit commands.
+     *
+     * Sessions are pooled per tool, JDK alias, track, login commands and workspace. A new session executes the given login commands once after
+     * starting the tool. Since pooled sessions outlive the build that started them their output is logged line by line via the consumers of
+     * the current execution.
+     *
+     * @param prompt
+     *            prompt printed by the tool when it is ready to read the next command.
+     * @param login
+     *            commands to execute when the tool has been started.
+     * @param commands
+     *            commands to execute.
+     * @param exitCommand
+     *            command terminating the tool.
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return output and exit code of the tool executing the given commands.
+     * @throws IOException
+     *             re-thrown from tool execution
+     * @throws InterruptedException
+     *             re-thrown from tool execution
+     */
+    protected final DIToolCommandExecutionResult executePooled(final String prompt, final List<String> login, final List<String> commands,
+        final String exitCommand, final DIToolOutputConsumer consumer) throws IOException, InterruptedException {
+        DIToolCommandExecutionResult result = null;
+
+        if (DIToolSessionPool.isEnabled() && !commands.isEmpty()) {
+            result = DIToolSessionPool.getInstance().execute(getPoolKey(login), getWorkspaceKey(), new DIToolSessionPool.SessionFactory() {
+                @Override
+                public DIToolSession open() throws IOException, InterruptedException {
+                    final DIToolSession session = openSession(prompt, null);
+
+                    if (!login.isEmpty() && !session.execute(login).isExitCodeOk()) {
+                        session.close();
+
+                        return null;
+                    }
+
+                    return session;
+                }
+
+                @Override
+                public String getExitCommand() {
+                    return exitCommand;
+                }
+            }, commands, new LoggingOutputConsumer(logger, consumer));
+        }
+
+        if (result == null) {
+            final List<String> allCommands = new ArrayList<String>(login);
+            allCommands.addAll(commands);
+            allCommands.add(exitCommand);
+
+            result = execute(new DIToolCommandBuilder() {
+                @Override
+                public List<String> execute() {
+                    return commands.isEmpty() ? Collections.<String> emptyList() : allCommands;
+                }
+            }, logger, consumer);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the key of the sessions of this executor in the {@link DIToolSessionPool}.
+     *
+     * @param login
+     *            commands logging in the tool (only their hash code is part of the key so no credentials are kept in it).
+     * @return key made of tool, JDK alias, track, login commands and workspace.
+     */
+    private String getPoolKey(final List<String> login) {
+        return String.format("%s|%s|%s|%x|%s", getToolCommand().getAbsolutePath(), developmentConfiguration.getJdkHomeAlias(),
+            developmentConfiguration.getName(), login.hashCode(), getWorkspaceKey());
+    }
+
+    /**
+     * Returns the key identifying the workspace of this executor (on the node it is located on).
+     *
+     * @return key identifying the workspace of this executor.
+     */
+    private String getWorkspaceKey() {
+        return workspace.getChannel() + ":" + workspace.getRemote();
+    }
+
+    /**
+     * Returns the separator of NWDI tool commands fed to the tool via standard input.
+     *
+     * @return <code>\n</code> on Unix, <code>\r\n</code> otherwise.
+     */
+    private String getCommandSeparator() {
+        return isUnix() ? "\n" : "\r\n";
     }
 
     /**
@@ -132,9 +399,7 @@ public abstract class AbstractDIToolExecutor {
      * @return <code>InputStream</code> containing the given NWDI tool commands.
      */
     private InputStream createCommandInputStream(final List<String> commands) {
-        final String separator = isUnix() ? "\n" : "\r\n";
-
-        return new ByteArrayInputStream(StringUtils.join(commands, separator).getBytes(Charset.defaultCharset()));
+        return new ByteArrayInputStream(StringUtils.join(commands, getCommandSeparator()).getBytes(Charset.defaultCharset()));
     }
 
     /**
@@ -274,4 +539,47 @@ public abstract class AbstractDIToolExecutor {
     protected final FilePath getWorkspace() {
         return workspace;
     }
+
+    /**
+     * Consumer printing the lines of output of a pooled session to the build log and passing them on to the consumer of the current
+     * execution.
+     *
+     * @author Dirk Weigenand
+     */
+    private static final class LoggingOutputConsumer implements DIToolOutputConsumer {
+        /**
+         * the build log.
+         */
+        private final PrintStream logger;
+
+        /**
+         * consumer of the current execution (may be <code>null</code>).
+         */
+        private final DIToolOutputConsumer consumer;
+
+        /**
+         * Create a consumer printing lines to the given build log and passing them on to the given consumer.
+         *
+         * @param logger
+         *            the build log.
+         * @param consumer
+         *            consumer of the current execution (may be <code>null</code>).
+         */
+        LoggingOutputConsumer(final PrintStream logger, final DIToolOutputConsumer consumer) {
+            this.logger = logger;
+            this.consumer = consumer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void consume(final String line) {
+            logger.println(line);
+
+            if (consumer != null) {
+                consumer.consume(line);
+            }
+        }
+    }
 }
@@ -3,6 +3,8 @@
  */
 package org.arachna.netweaver.tools;
 
+import java.io.File;
+
 /**
  * Capture the result of dc tool execution.
  *
@@ -19,6 +21,11 @@ public final class DIToolCommandExecutionResult {
      */
     private final int exitCode;
 
+    /**
+     * file containing the complete output of the dc tool (may be <code>null</code>).
+     */
+    private final File outputFile;
+
     /**
      * Create an instance of <code>DcToolCommandExecutionResult</code> using the
      * given output and exit code.
@@ -29,13 +36,31 @@ public final class DIToolCommandExecutionResult {
      *            the exit code returned by dc tool
      */
     public DIToolCommandExecutionResult(final String output, final int exitCode) {
+        this(output, exitCode, null);
+    }
+
+    /**
+     * Create an instance of <code>DcToolCommandExecutionResult</code> using the
+     * given output, exit code and file containing the complete output.
+     *
+     * @param output
+     *            the output produced by dc tool (possibly only its tail)
+     * @param exitCode
+     *            the exit code returned by dc tool
+     * @param outputFile
+     *            file containing the complete output of the dc tool (may be
+     *            <code>null</code>)
+     */
+    public DIToolCommandExecutionResult(final String output, final int exitCode, final File outputFile) {
         this.output = output;
         this.exitCode = exitCode;
-
+        this.outputFile = outputFile;
     }
 
     /**
-     * Returns the captured output of a dc tool execution.
+     * Returns the captured output of a dc tool execution. Only the tail of
+     * the output is captured when it exceeds the configured size (see
+     * {@link DIToolOutputStream#TAIL_PROPERTY}).
      *
      * @return captured output of a dc tool execution.
      */
@@ -43,6 +68,17 @@ public final class DIToolCommandExecutionResult {
         return this.output;
     }
 
+    /**
+     * Returns the file containing the complete output of the dc tool
+     * execution.
+     *
+     * @return file containing the complete output or <code>null</code> when
+     *         the output was not spilled to disk.
+     */
+    public File getOutputFile() {
+        return this.outputFile;
+    }
+
     /**
      * Returns the exit code of the dc tool execution.
      *
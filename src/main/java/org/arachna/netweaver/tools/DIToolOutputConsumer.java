@@ -0,0 +1,20 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+/**
+ * Consumer of the output of an NWDI tool (e.g. a parser). The output is pushed line by line while the tool is running, so that it does
+ * not need to be kept in memory.
+ *
+ * @author Dirk Weigenand
+ */
+public interface DIToolOutputConsumer {
+    /**
+     * Consume the given line of output.
+     *
+     * @param line
+     *            line of output without line terminator.
+     */
+    void consume(String line);
+}
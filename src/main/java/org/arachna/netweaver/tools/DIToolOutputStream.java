@@ -0,0 +1,257 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stream receiving the output of an NWDI tool.
+ *
+ * The output is decoded into lines which are pushed to the registered {@link DIToolOutputConsumer}s as soon as they are complete. The raw
+ * output is spilled to a file (when one is given) and only a bounded tail of the output is kept in memory (see {@link #TAIL_PROPERTY}).
+ * This way the output of builds of whole tracks (hundreds of MB) can be processed without keeping it in memory.
+ *
+ * @author Dirk Weigenand
+ */
+public final class DIToolOutputStream extends OutputStream {
+    /**
+     * Name of system property configuring the number of characters of the output kept in memory.
+     */
+    public static final String TAIL_PROPERTY = "nwdibuild.ditool.output.tail";
+
+    /**
+     * default number of characters of the output kept in memory.
+     */
+    private static final int DEFAULT_TAIL_SIZE = 1024 * 1024;
+
+    /**
+     * maximum length of a line in bytes. Longer lines are pushed to the consumers in several parts.
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * charset to decode the output with.
+     */
+    private final Charset charset = Charset.defaultCharset();
+
+    /**
+     * consumers of the lines of output.
+     */
+    private final List<DIToolOutputConsumer> consumers = new ArrayList<DIToolOutputConsumer>();
+
+    /**
+     * file the raw output is spilled to (may be <code>null</code>).
+     */
+    private final File spillFile;
+
+    /**
+     * stream writing to {@link #spillFile} (may be <code>null</code>).
+     */
+    private final OutputStream spill;
+
+    /**
+     * bytes of the current (incomplete) line.
+     */
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    /**
+     * the tail of the output.
+     */
+    private final StringBuilder tail = new StringBuilder();
+
+    /**
+     * number of characters of the output kept in memory.
+     */
+    private final int tailSize;
+
+    /**
+     * Create a stream spilling the raw output to the given file and keeping the configured number of characters of the output in memory.
+     *
+     * @param spillFile
+     *            file to spill the raw output to (may be <code>null</code>).
+     * @throws IOException
+     *             when the spill file could not be created.
+     */
+    public DIToolOutputStream(final File spillFile) throws IOException {
+        this(spillFile, Integer.getInteger(TAIL_PROPERTY, DEFAULT_TAIL_SIZE));
+    }
+
+    /**
+     * Create a stream spilling the raw output to the given file and keeping the given number of characters of the output in memory.
+     *
+     * @param spillFile
+     *            file to spill the raw output to (may be <code>null</code>).
+     * @param tailSize
+     *            number of characters of the output kept in memory.
+     * @throws IOException
+     *             when the spill file could not be created.
+     */
+    public DIToolOutputStream(final File spillFile, final int tailSize) throws IOException {
+        this.spillFile = spillFile;
+        this.tailSize = tailSize;
+        spill = spillFile == null ? null : new BufferedOutputStream(new FileOutputStream(spillFile));
+    }
+
+    /**
+     * Register a consumer for the lines of output (ignored when <code>null</code>).
+     *
+     * @param consumer
+     *            consumer for the lines of output.
+     */
+    public synchronized void addConsumer(final DIToolOutputConsumer consumer) {
+        if (consumer != null) {
+            consumers.add(consumer);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void write(final int b) throws IOException {
+        if (spill != null) {
+            spill.write(b);
+        }
+
+        if (b == '\n') {
+            endLine(true);
+        }
+        else {
+            line.write(b);
+
+            if (line.size() >= MAX_LINE_LENGTH) {
+                endLine(false);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (spill != null) {
+            spill.write(bytes, offset, length);
+        }
+
+        int start = offset;
+        final int end = offset + length;
+
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] == '\n') {
+                line.write(bytes, start, i - start);
+                start = i + 1;
+                endLine(true);
+            }
+            else if (line.size() + i + 1 - start >= MAX_LINE_LENGTH) {
+                line.write(bytes, start, i + 1 - start);
+                start = i + 1;
+                endLine(false);
+            }
+        }
+
+        line.write(bytes, start, end - start);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (spill != null) {
+            spill.flush();
+        }
+    }
+
+    /**
+     * Push the last (unterminated) line to the consumers and close the spill file.
+     *
+     * @throws IOException
+     *             when closing the spill file fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (line.size() > 0) {
+            endLine(false);
+        }
+
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Returns the tail of the output kept in memory.
+     *
+     * @return the last characters of the output (at most the configured number).
+     */
+    public synchronized String getTail() {
+        final String partialLine = new String(line.toByteArray(), charset);
+        final int length = tail.length() + partialLine.length();
+
+        if (length <= tailSize) {
+            return tail + partialLine;
+        }
+
+        return (tail + partialLine).substring(length - tailSize);
+    }
+
+    /**
+     * Returns the file the raw output is spilled to.
+     *
+     * @return the file the raw output is spilled to (may be <code>null</code>).
+     */
+    public File getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Create a result object from the output received so far and the given exit code.
+     *
+     * @param exitCode
+     *            exit code of the tool.
+     * @return result object containing the tail of the output, the spill file and the given exit code.
+     */
+    public DIToolCommandExecutionResult toResult(final int exitCode) {
+        return new DIToolCommandExecutionResult(getTail(), exitCode, spillFile);
+    }
+
+    /**
+     * Push the current line to the consumers and append it to the tail.
+     *
+     * @param terminated
+     *            whether the line was terminated by a line feed.
+     */
+    private void endLine(final boolean terminated) {
+        String text = new String(line.toByteArray(), charset);
+        line.reset();
+
+        if (terminated && text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+
+        tail.append(text);
+
+        if (terminated) {
+            tail.append('\n');
+        }
+
+        // trim the tail only occasionally to avoid copying it for every line
+        if (tail.length() > 2 * tailSize) {
+            tail.delete(0, tail.length() - tailSize);
+        }
+
+        for (final DIToolOutputConsumer consumer : consumers) {
+            consumer.consume(text);
+        }
+    }
+}
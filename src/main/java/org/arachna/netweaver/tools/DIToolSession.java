@@ -0,0 +1,367 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import hudson.Proc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A running NWDI tool process (e.g. dctool) commands can be fed to incrementally.
+ *
+ * The tool prints a prompt (e.g. <code>dc&gt;</code>) at the beginning of a line whenever it is ready to read the next command. The
+ * output of the tool is divided into phases by counting these prompts: a phase started by sending commands to the tool is complete when
+ * the tool prompts for the command following the last command sent. This way the start up of the tool (JVM, loading the development
+ * configuration, logging into DTR/CBS) is paid only once for several phases (e.g. synchronizing and building development components).
+ *
+ * The tool reports an exit code only when it terminates. The results of the phases executed before carry the exit code <code>0</code>
+ * unless the tool terminated during the phase.
+ *
+ * @author Dirk Weigenand
+ */
+public final class DIToolSession implements Closeable {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DIToolSession.class.getName());
+
+    /**
+     * size of buffer for reading the tool's output.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * the running tool.
+     */
+    private final Proc process;
+
+    /**
+     * the tool's standard input.
+     */
+    private final OutputStream stdin;
+
+    /**
+     * separator of commands sent to the tool.
+     */
+    private final String separator;
+
+    /**
+     * stream the tool's output is copied to (may be <code>null</code>).
+     */
+    private final OutputStream console;
+
+    /**
+     * counts the prompts in the tool's output.
+     */
+    private final PromptCounter promptCounter;
+
+    /**
+     * thread reading the tool's output.
+     */
+    private final Thread reader;
+
+    /**
+     * output of the current phase.
+     */
+    private DIToolOutputStream output;
+
+    /**
+     * number of commands sent to the tool so far.
+     */
+    private int commandsSent;
+
+    /**
+     * whether the tool's output has been read completely (i.e. the tool terminated).
+     */
+    private boolean terminated;
+
+    /**
+     * Start a session reading the output of the given tool process.
+     *
+     * @param process
+     *            the running tool. Its standard input and output must be available via {@link Proc#getStdin()} and
+     *            {@link Proc#getStdout()}.
+     * @param prompt
+     *            prompt printed by the tool when it is ready to read the next command.
+     * @param separator
+     *            separator of commands sent to the tool.
+     * @param console
+     *            stream the output of the tool should be copied to (may be <code>null</code>).
+     * @throws IOException
+     *             when creating the buffer for the tool's output fails.
+     */
+    public DIToolSession(final Proc process, final String prompt, final String separator, final OutputStream console) throws IOException {
+        this.process = process;
+        this.separator = separator;
+        this.console = console;
+        stdin = process.getStdin();
+        output = new DIToolOutputStream(null);
+        promptCounter = new PromptCounter(prompt.getBytes(Charset.defaultCharset()));
+        reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readOutput(process.getStdout());
+            }
+        }, "DIToolSession output reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Send the given commands to the tool and wait until it prompts for the next command or terminates.
+     *
+     * @param commands
+     *            commands to execute.
+     * @return the output of the tool while executing the given commands and the exit code of the tool when it terminated,
+     *         <code>0</code> otherwise.
+     * @throws IOException
+     *             when the commands could not be sent to the tool
+     * @throws InterruptedException
+     *             when waiting for the tool was interrupted. The tool is terminated in this case.
+     */
+    public DIToolCommandExecutionResult execute(final List<String> commands) throws IOException, InterruptedException {
+        return execute(commands, null);
+    }
+
+    /**
+     * Send the given commands to the tool and wait until it prompts for the next command or terminates. The output is pushed line by line
+     * to the given consumer while the commands are executed.
+     *
+     * @param commands
+     *            commands to execute.
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return the output (its tail when exceeding {@link DIToolOutputStream#TAIL_PROPERTY}) of the tool while executing the given commands
+     *         and the exit code of the tool when it terminated, <code>0</code> otherwise.
+     * @throws IOException
+     *             when the commands could not be sent to the tool
+     * @throws InterruptedException
+     *             when waiting for the tool was interrupted. The tool is terminated in this case.
+     */
+    public synchronized DIToolCommandExecutionResult execute(final List<String> commands, final DIToolOutputConsumer consumer)
+        throws IOException, InterruptedException {
+        if (terminated) {
+            throw new IllegalStateException("The tool session has already terminated!");
+        }
+
+        final StringBuilder input = new StringBuilder();
+
+        for (final String command : commands) {
+            input.append(command).append(separator);
+        }
+
+        output.addConsumer(consumer);
+        commandsSent += commands.size();
+        stdin.write(input.toString().getBytes(Charset.defaultCharset()));
+        stdin.flush();
+
+        try {
+            // the tool prompts once on start up and once after each command.
+            while (!terminated && promptCounter.getPrompts() <= commandsSent) {
+                wait();
+            }
+        }
+        catch (final InterruptedException e) {
+            process.kill();
+            throw e;
+        }
+
+        final DIToolOutputStream phaseOutput = output;
+        phaseOutput.close();
+        output = new DIToolOutputStream(null);
+
+        return phaseOutput.toResult(terminated ? process.join() : 0);
+    }
+
+    /**
+     * Send the given command (i.e. the tool's exit command) and wait for the tool to terminate.
+     *
+     * @param exitCommand
+     *            command terminating the tool.
+     * @return the output of the tool after the last phase and its exit code.
+     * @throws IOException
+     *             when the command could not be sent to the tool
+     * @throws InterruptedException
+     *             when waiting for the tool was interrupted. The tool is terminated in this case.
+     */
+    public synchronized DIToolCommandExecutionResult exit(final String exitCommand) throws IOException, InterruptedException {
+        if (!terminated) {
+            stdin.write((exitCommand + separator).getBytes(Charset.defaultCharset()));
+            stdin.flush();
+            stdin.close();
+        }
+
+        try {
+            while (!terminated) {
+                wait();
+            }
+        }
+        catch (final InterruptedException e) {
+            process.kill();
+            throw e;
+        }
+
+        output.close();
+
+        return output.toResult(process.join());
+    }
+
+    /**
+     * Returns whether the tool terminated, i.e. no more commands can be executed in this session.
+     *
+     * @return <code>true</code> when the tool terminated, <code>false</code> otherwise.
+     */
+    public synchronized boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Checks whether the tool is still running and accepting commands.
+     *
+     * @return <code>true</code> when the tool is running, <code>false</code> otherwise.
+     * @throws IOException
+     *             when the state of the tool could not be determined.
+     * @throws InterruptedException
+     *             when determining the state of the tool was interrupted.
+     */
+    public boolean isAlive() throws IOException, InterruptedException {
+        return !isTerminated() && process.isAlive();
+    }
+
+    /**
+     * Terminate the tool unconditionally.
+     *
+     * @throws IOException
+     *             when the tool could not be terminated.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            process.kill();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read the output of the tool until it terminates.
+     *
+     * @param stdout
+     *            the tool's standard output.
+     */
+    private void readOutput(final InputStream stdout) {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        try {
+            int read;
+
+            while ((read = stdout.read(buffer)) != -1) {
+                if (console != null) {
+                    console.write(buffer, 0, read);
+                }
+
+                synchronized (this) {
+                    output.write(buffer, 0, read);
+
+                    if (promptCounter.count(buffer, read)) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Reading the output of the tool failed.", e);
+        }
+        finally {
+            synchronized (this) {
+                terminated = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Counts prompts at the beginning of lines (possibly several in a row) in a stream of bytes.
+     *
+     * @author Dirk Weigenand
+     */
+    static final class PromptCounter {
+        /**
+         * the prompt.
+         */
+        private final byte[] prompt;
+
+        /**
+         * number of bytes of the prompt matched at the current position.
+         */
+        private int matched;
+
+        /**
+         * whether the current position is at the beginning of a line or directly after a prompt.
+         */
+        private boolean lineStart = true;
+
+        /**
+         * number of prompts counted so far.
+         */
+        private int prompts;
+
+        /**
+         * Create a counter for the given prompt.
+         *
+         * @param prompt
+         *            the prompt to count.
+         */
+        PromptCounter(final byte[] prompt) {
+            this.prompt = prompt;
+        }
+
+        /**
+         * Count the prompts in the given bytes.
+         *
+         * @param bytes
+         *            bytes read from the tool.
+         * @param length
+         *            number of valid bytes.
+         * @return <code>true</code> when a prompt was found, <code>false</code> otherwise.
+         */
+        boolean count(final byte[] bytes, final int length) {
+            final int before = prompts;
+
+            for (int i = 0; i < length; i++) {
+                final byte b = bytes[i];
+
+                if (lineStart && b == prompt[matched]) {
+                    matched++;
+
+                    if (matched == prompt.length) {
+                        prompts++;
+                        matched = 0;
+                    }
+                }
+                else {
+                    matched = 0;
+                    lineStart = b == '\n';
+                }
+            }
+
+            return prompts > before;
+        }
+
+        /**
+         * @return number of prompts counted so far.
+         */
+        int getPrompts() {
+            return prompts;
+        }
+    }
+}
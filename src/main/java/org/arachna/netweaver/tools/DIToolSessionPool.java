@@ -0,0 +1,431 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of running NWDI tools (dctool, cbstool) kept alive between builds.
+ *
+ * Sessions are pooled by a key identifying the tool, JDK alias, track and workspace (see
+ * {@link AbstractDIToolExecutor#executePooled(String, List, List, String, DIToolOutputConsumer)}). Commands executed via the pool are sent to the pooled
+ * session, so that only the first execution pays for starting the JVM and logging in. Access to the sessions of a workspace is serialized.
+ * A session is recycled when it terminated, after the configured number of commands (see {@link #MAX_COMMANDS_PROPERTY}) or when
+ * executing commands failed. Sessions not used for the configured time (see {@link #IDLE_TIMEOUT_PROPERTY}) are terminated.
+ *
+ * @author Dirk Weigenand
+ */
+public final class DIToolSessionPool {
+    /**
+     * Name of system property enabling the pool.
+     */
+    public static final String POOL_PROPERTY = "nwdibuild.ditool.pool";
+
+    /**
+     * Name of system property configuring the number of commands after which a pooled session is recycled.
+     */
+    public static final String MAX_COMMANDS_PROPERTY = "nwdibuild.ditool.pool.max.commands";
+
+    /**
+     * Name of system property configuring the time in seconds after which an unused session is terminated.
+     */
+    public static final String IDLE_TIMEOUT_PROPERTY = "nwdibuild.ditool.pool.idle.timeout";
+
+    /**
+     * default number of commands after which a pooled session is recycled.
+     */
+    private static final int DEFAULT_MAX_COMMANDS = 1000;
+
+    /**
+     * default time in seconds after which an unused session is terminated.
+     */
+    private static final int DEFAULT_IDLE_TIMEOUT = 600;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DIToolSessionPool.class.getName());
+
+    /**
+     * the pool shared by all builds.
+     */
+    private static final DIToolSessionPool INSTANCE = new DIToolSessionPool(Integer.getInteger(MAX_COMMANDS_PROPERTY,
+        DEFAULT_MAX_COMMANDS), TimeUnit.SECONDS.toMillis(Integer.getInteger(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT)));
+
+    /**
+     * pooled sessions mapped by key.
+     */
+    private final Map<String, PooledSession> sessions = new HashMap<String, PooledSession>();
+
+    /**
+     * locks serializing access to workspaces mapped by workspace.
+     */
+    private final ConcurrentMap<String, ReentrantLock> workspaceLocks = new ConcurrentHashMap<String, ReentrantLock>();
+
+    /**
+     * number of commands after which a pooled session is recycled.
+     */
+    private final int maxCommands;
+
+    /**
+     * time in milliseconds after which an unused session is terminated.
+     */
+    private final long idleTimeout;
+
+    /**
+     * timer terminating unused sessions (created when the first session is pooled).
+     */
+    private Timer evictionTimer;
+
+    /**
+     * Create a pool using the given limits.
+     *
+     * @param maxCommands
+     *            number of commands after which a pooled session is recycled.
+     * @param idleTimeout
+     *            time in milliseconds after which an unused session is terminated.
+     */
+    DIToolSessionPool(final int maxCommands, final long idleTimeout) {
+        this.maxCommands = maxCommands;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the pool shared by all builds.
+     *
+     * @return the pool shared by all builds.
+     */
+    public static DIToolSessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Determines whether pooling has been enabled via the system property {@link #POOL_PROPERTY}.
+     *
+     * @return <code>true</code> when pooling is enabled, <code>false</code> otherwise.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(POOL_PROPERTY);
+    }
+
+    /**
+     * Execute the given commands in the session pooled under the given key. A new session is started using the given factory when there
+     * is no usable session.
+     *
+     * @param key
+     *            key identifying the tool, JDK alias, track and workspace.
+     * @param workspace
+     *            the workspace the tool runs in. Access to the sessions of a workspace is serialized.
+     * @param factory
+     *            factory to start and log in a new session.
+     * @param commands
+     *            commands to execute.
+     * @return the result of executing the given commands or <code>null</code> when no session could be started.
+     * @throws IOException
+     *             re-thrown from tool execution
+     * @throws InterruptedException
+     *             re-thrown from tool execution
+     */
+    public DIToolCommandExecutionResult execute(final String key, final String workspace, final SessionFactory factory,
+        final List<String> commands) throws IOException, InterruptedException {
+        return execute(key, workspace, factory, commands, null);
+    }
+
+    /**
+     * Execute the given commands in the session pooled under the given key. A new session is started using the given factory when there
+     * is no usable session.
+     *
+     * @param key
+     *            key identifying the tool, JDK alias, track and workspace.
+     * @param workspace
+     *            the workspace the tool runs in. Access to the sessions of a workspace is serialized.
+     * @param factory
+     *            factory to start and log in a new session.
+     * @param commands
+     *            commands to execute.
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return the result of executing the given commands or <code>null</code> when no session could be started.
+     * @throws IOException
+     *             re-thrown from tool execution
+     * @throws InterruptedException
+     *             re-thrown from tool execution
+     */
+    public DIToolCommandExecutionResult execute(final String key, final String workspace, final SessionFactory factory,
+        final List<String> commands, final DIToolOutputConsumer consumer) throws IOException, InterruptedException {
+        final ReentrantLock lock = getWorkspaceLock(workspace);
+        lock.lockInterruptibly();
+
+        try {
+            PooledSession pooled = take(key);
+
+            if (pooled == null) {
+                final DIToolSession session = factory.open();
+
+                if (session == null) {
+                    return null;
+                }
+
+                LOGGER.log(Level.FINE, "Started pooled session {0}.", key);
+                pooled = new PooledSession(workspace, session, factory.getExitCommand());
+            }
+
+            boolean healthy = false;
+
+            try {
+                final DIToolCommandExecutionResult result = pooled.session.execute(commands, consumer);
+                pooled.commands += commands.size();
+                healthy = result.isExitCodeOk() && !pooled.session.isTerminated() && pooled.commands < maxCommands;
+
+                return result;
+            }
+            finally {
+                if (healthy) {
+                    put(key, pooled);
+                }
+                else {
+                    LOGGER.log(Level.FINE, "Recycling pooled session {0} after {1} commands.", new Object[] { key, pooled.commands });
+                    pooled.close();
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Terminate all pooled sessions.
+     */
+    public void clear() {
+        final List<PooledSession> removed;
+
+        synchronized (this) {
+            removed = new ArrayList<PooledSession>(sessions.values());
+            sessions.clear();
+        }
+
+        for (final PooledSession pooled : removed) {
+            pooled.close();
+        }
+    }
+
+    /**
+     * Returns the number of pooled sessions.
+     *
+     * @return number of pooled sessions.
+     */
+    synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Terminate sessions not used for longer than the idle timeout. Sessions of workspaces currently in use are left alone.
+     */
+    void evictIdleSessions() {
+        final long now = System.currentTimeMillis();
+        final List<PooledSession> evicted = new ArrayList<PooledSession>();
+
+        synchronized (this) {
+            for (final Iterator<PooledSession> i = sessions.values().iterator(); i.hasNext();) {
+                final PooledSession pooled = i.next();
+                final ReentrantLock lock = getWorkspaceLock(pooled.workspace);
+
+                if (now - pooled.lastUsed >= idleTimeout && !lock.isLocked()) {
+                    i.remove();
+                    evicted.add(pooled);
+                }
+            }
+        }
+
+        for (final PooledSession pooled : evicted) {
+            pooled.close();
+        }
+    }
+
+    /**
+     * Remove the usable session pooled under the given key from the pool.
+     *
+     * @param key
+     *            key of session.
+     * @return the pooled session or <code>null</code> when there is no usable session.
+     * @throws IOException
+     *             when the state of the tool could not be determined.
+     * @throws InterruptedException
+     *             when determining the state of the tool was interrupted.
+     */
+    private PooledSession take(final String key) throws IOException, InterruptedException {
+        final PooledSession pooled;
+
+        synchronized (this) {
+            pooled = sessions.remove(key);
+        }
+
+        // health check: the tool may have terminated while it was pooled.
+        if (pooled != null && !pooled.session.isAlive()) {
+            pooled.close();
+
+            return null;
+        }
+
+        return pooled;
+    }
+
+    /**
+     * Return the given session to the pool.
+     *
+     * @param key
+     *            key of session.
+     * @param pooled
+     *            session to return.
+     */
+    private synchronized void put(final String key, final PooledSession pooled) {
+        pooled.lastUsed = System.currentTimeMillis();
+        sessions.put(key, pooled);
+
+        if (evictionTimer == null) {
+            evictionTimer = new Timer("DIToolSessionPool eviction", true);
+            final long period = Math.max(1, idleTimeout / 2);
+            evictionTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    evictIdleSessions();
+                }
+            }, period, period);
+        }
+    }
+
+    /**
+     * Returns the lock serializing access to the given workspace.
+     *
+     * @param workspace
+     *            the workspace.
+     * @return lock serializing access to the given workspace.
+     */
+    private ReentrantLock getWorkspaceLock(final String workspace) {
+        ReentrantLock lock = workspaceLocks.get(workspace);
+
+        if (lock == null) {
+            final ReentrantLock created = new ReentrantLock();
+            lock = workspaceLocks.putIfAbsent(workspace, created);
+
+            if (lock == null) {
+                lock = created;
+            }
+        }
+
+        return lock;
+    }
+
+    /**
+     * Factory for sessions of a tool.
+     *
+     * @author Dirk Weigenand
+     */
+    public interface SessionFactory {
+        /**
+         * Start the tool and log in.
+         *
+         * @return the started session or <code>null</code> when the tool could not be started or logging in failed.
+         * @throws IOException
+         *             re-thrown from tool execution
+         * @throws InterruptedException
+         *             re-thrown from tool execution
+         */
+        DIToolSession open() throws IOException, InterruptedException;
+
+        /**
+         * Returns the command terminating the tool.
+         *
+         * @return the command terminating the tool.
+         */
+        String getExitCommand();
+    }
+
+    /**
+     * A pooled session.
+     *
+     * @author Dirk Weigenand
+     */
+    private static final class PooledSession {
+        /**
+         * the workspace the tool runs in.
+         */
+        private final String workspace;
+
+        /**
+         * the session.
+         */
+        private final DIToolSession session;
+
+        /**
+         * command terminating the tool.
+         */
+        private final String exitCommand;
+
+        /**
+         * number of commands executed in the session.
+         */
+        private int commands;
+
+        /**
+         * time the session was last used.
+         */
+        private long lastUsed;
+
+        /**
+         * Create a pooled session.
+         *
+         * @param workspace
+         *            the workspace the tool runs in.
+         * @param session
+         *            the session.
+         * @param exitCommand
+         *            command terminating the tool.
+         */
+        PooledSession(final String workspace, final DIToolSession session, final String exitCommand) {
+            this.workspace = workspace;
+            this.session = session;
+            this.exitCommand = exitCommand;
+        }
+
+        /**
+         * Terminate the tool.
+         */
+        void close() {
+            try {
+                if (!session.isTerminated()) {
+                    session.exit(exitCommand);
+                }
+            }
+            catch (final IOException e) {
+                LOGGER.log(Level.FINE, "Terminating the tool failed.", e);
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                try {
+                    session.close();
+                }
+                catch (final IOException e) {
+                    LOGGER.log(Level.FINE, "Killing the tool failed.", e);
+                }
+            }
+        }
+    }
+}
@@ -15,6 +15,11 @@ import org.arachna.netweaver.tools.DIToolDescriptor;
  * @author Dirk Weigenand
  */
 abstract class AbstractCBSToolCommandExecutor implements DIToolCommandBuilder {
+    /**
+     * command terminating the CBS tool.
+     */
+    static final String EXIT_COMMAND = "exit";
+
     /**
      * URL to connect to CBS.
      */
@@ -54,11 +59,19 @@ abstract class AbstractCBSToolCommandExecutor implements DIToolCommandBuilder {
     public List<String> execute() {
         final List<String> commands = new ArrayList<String>();
 
-        commands.add(String.format("connect -c %s -u %s -p %s", cbsUrl, diToolDescriptor.getUser(),
-            diToolDescriptor.getPassword()));
+        commands.add(getConnectCommand());
         commands.addAll(executeInternal());
-        commands.add("exit");
+        commands.add(EXIT_COMMAND);
 
         return commands;
     }
+
+    /**
+     * Returns the command connecting the CBS tool to the CBS.
+     * 
+     * @return the command connecting the CBS tool to the CBS.
+     */
+    final String getConnectCommand() {
+        return String.format("connect -c %s -u %s -p %s", cbsUrl, diToolDescriptor.getUser(), diToolDescriptor.getPassword());
+    }
 }
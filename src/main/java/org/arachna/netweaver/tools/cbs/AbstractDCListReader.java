@@ -11,13 +11,14 @@ import org.arachna.netweaver.dc.types.Compartment;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.arachna.netweaver.tools.DIToolOutputConsumer;
 
 /**
  * Abstract base class for parsers of output of a cbstool's 'listdcs' command.
  * 
  * @author Dirk Weigenand
  */
-abstract class AbstractDCListReader {
+abstract class AbstractDCListReader implements DIToolOutputConsumer {
     /**
      * development configuration to add read compartments to.
      */
@@ -64,6 +65,14 @@ abstract class AbstractDCListReader {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void consume(final String line) {
+        process(line);
+    }
+
     /**
      * Process a line of output from the CBS tool 'listdcs' command.
      * 
@@ -10,15 +10,17 @@ import hudson.Util;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Collection;
+import java.util.Collections;
 
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.tools.AbstractDIToolExecutor;
+import org.arachna.netweaver.tools.DIToolCommandBuilder;
 import org.arachna.netweaver.tools.DIToolCommandExecutionResult;
 import org.arachna.netweaver.tools.DIToolDescriptor;
+import org.arachna.netweaver.tools.DIToolOutputConsumer;
 
 /**
  * Execute a CBS Tool.
@@ -26,6 +28,11 @@ import org.arachna.netweaver.tools.DIToolDescriptor;
  * @author Dirk Weigenand
  */
 public final class CBSToolCommandExecutor extends AbstractDIToolExecutor {
+    /**
+     * prompt printed by the CBS tool when it is ready to read the next command.
+     */
+    private static final String PROMPT = "cbs>";
+
     /**
      * create DC tool executor with the given command line generator and given command build.
      * 
@@ -66,15 +73,13 @@ public final class CBSToolCommandExecutor extends AbstractDIToolExecutor {
         DIToolCommandExecutionResult result = null;
 
         if (CbsToolVersion.CE.equals(cbsToolVersion)) {
-            result = execute(new DCLister(config, getDiToolDescriptor()));
-            new DCListReader(config, dcFactory).execute(new StringReader(result.getOutput()));
+            result = execute(new DCLister(config, getDiToolDescriptor()), new DCListReader(config, dcFactory));
         }
         else if (CbsToolVersion.PRE_CE.equals(cbsToolVersion)) {
             result = execute(new ListCompartments(config.getCmsUrl(), config.getName(), getDiToolDescriptor()));
 
             if (result.isExitCodeOk()) {
-                result = execute(new PreCeDCLister(config, getDiToolDescriptor()));
-                new PreCeDCListReader(config, dcFactory).execute(new StringReader(result.getOutput()));
+                result = execute(new PreCeDCLister(config, getDiToolDescriptor()), new PreCeDCListReader(config, dcFactory));
             }
         }
 
@@ -137,6 +142,46 @@ public final class CBSToolCommandExecutor extends AbstractDIToolExecutor {
         return execute(new DownloadConfig(config.getCmsUrl(), getDiToolDescriptor(), buildSpace, path));
     }
 
+    /**
+     * Execute the commands of the given builder (see {@link #execute(AbstractCBSToolCommandExecutor, DIToolOutputConsumer)}).
+     * 
+     * @param builder
+     *            builder for CBS tool commands.
+     * @return result object with return code and output of the CBS tool commands.
+     * @throws IOException
+     *             re-thrown from executing the CBS tool via the launcher.
+     * @throws InterruptedException
+     *             when the command execution was interrupted.
+     */
+    private DIToolCommandExecutionResult execute(final AbstractCBSToolCommandExecutor builder) throws IOException, InterruptedException {
+        return execute(builder, (DIToolOutputConsumer)null);
+    }
+
+    /**
+     * Execute the commands of the given builder. The CE version of the CBS tool is kept running in a session connected to the CBS between
+     * builds when pooling is enabled (see {@link org.arachna.netweaver.tools.DIToolSessionPool}). The output of earlier versions does not
+     * start the prompt on a line of its own, their commands are always executed in a CBS tool started for them.
+     * 
+     * @param builder
+     *            builder for CBS tool commands.
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return result object with return code and output of the CBS tool commands.
+     * @throws IOException
+     *             re-thrown from executing the CBS tool via the launcher.
+     * @throws InterruptedException
+     *             when the command execution was interrupted.
+     */
+    private DIToolCommandExecutionResult execute(final AbstractCBSToolCommandExecutor builder, final DIToolOutputConsumer consumer)
+        throws IOException, InterruptedException {
+        if (CbsToolVersion.CE.equals(getCbsToolVersion())) {
+            return executePooled(PROMPT, Collections.singletonList(builder.getConnectCommand()), builder.executeInternal(),
+                AbstractCBSToolCommandExecutor.EXIT_COMMAND, consumer);
+        }
+
+        return execute((DIToolCommandBuilder)builder, consumer);
+    }
+
     /**
      * Generate the fully qualified command to be used to execute the cbstool.
      * 
@@ -0,0 +1,26 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools.dc;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Filter determining the development components of a wave that still have to be built. The filter is applied right before the wave is
+ * built, i.e. after all development components of the previous waves have been built.
+ *
+ * @author Dirk Weigenand
+ */
+public interface BuildWaveFilter {
+    /**
+     * Determine the development components of the given wave that have to be built.
+     *
+     * @param wave
+     *            wave of development components to build next.
+     * @return development components of the given wave that have to be built.
+     */
+    List<DevelopmentComponent> filter(Collection<DevelopmentComponent> wave);
+}
@@ -0,0 +1,22 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools.dc;
+
+import java.util.Collection;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+
+/**
+ * Monitor of the results of building development components while the dctool is running (e.g. a parser of the build log).
+ *
+ * @author Dirk Weigenand
+ */
+public interface DCBuildMonitor {
+    /**
+     * Returns the development components whose build failed so far.
+     *
+     * @return development components whose build failed so far.
+     */
+    Collection<DevelopmentComponent> getFailedBuilds();
+}
@@ -5,12 +5,29 @@ package org.arachna.netweaver.tools.dc;
 
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.arachna.ant.AntHelper;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
@@ -20,6 +37,10 @@ import org.arachna.netweaver.tools.AbstractDIToolExecutor;
 import org.arachna.netweaver.tools.DIToolCommandBuilder;
 import org.arachna.netweaver.tools.DIToolCommandExecutionResult;
 import org.arachna.netweaver.tools.DIToolDescriptor;
+import org.arachna.netweaver.tools.DIToolOutputConsumer;
+import org.arachna.netweaver.tools.DIToolOutputStream;
+import org.arachna.netweaver.tools.DIToolSession;
+import org.arachna.netweaver.tools.DIToolSessionPool;
 
 /**
  * Execute a DC Tool.
@@ -27,6 +48,27 @@ import org.arachna.netweaver.tools.DIToolDescriptor;
  * @author Dirk Weigenand
  */
 public final class DCToolCommandExecutor extends AbstractDIToolExecutor {
+    /**
+     * 1000 milliseconds.
+     */
+    private static final float A_THOUSAND_MSECS = 1000f;
+
+    /**
+     * Name of system property configuring the number of concurrent dctool sessions used to build development components.
+     */
+    public static final String SESSIONS_PROPERTY = "nwdibuild.dctool.sessions";
+
+    /**
+     * Name of system property enabling a dctool session kept open from synchronizing development components until the end of the build
+     * (see {@link #startSession()}).
+     */
+    public static final String SESSION_PROPERTY = "nwdibuild.dctool.session";
+
+    /**
+     * prompt printed by the dctool when it is ready to read the next command.
+     */
+    private static final String PROMPT = "dc>";
+
     /**
      * Factory for creating DC tool commands.
      */
@@ -37,6 +79,11 @@ public final class DCToolCommandExecutor extends AbstractDIToolExecutor {
      */
     private final LoadConfigCommandBuilder loadConfigCommandBuilder;
 
+    /**
+     * the running dctool session or <code>null</code> when every operation starts a dctool of its own.
+     */
+    private DIToolSession session;
+
     /**
      * create DC tool executor with the given command line generator and given command build.
      *
@@ -57,6 +104,74 @@ public final class DCToolCommandExecutor extends AbstractDIToolExecutor {
             new LoadConfigCommandBuilder(diToolDescriptor, LoadConfigTemplate.fromJdkHomeAlias(developmentConfiguration.getJdkHomeAlias()));
     }
 
+    /**
+     * Start a dctool session when enabled via the system property {@link #SESSION_PROPERTY}.
+     *
+     * The dctool is started and loads the development configuration once. The following synchronize and build operations (except
+     * building in concurrent sessions) are executed in this session until {@link #endSession()} is called. This saves starting the JVM,
+     * loading the development configuration and logging into DTR/CBS for each operation. Since the dctool reports an exit code only when
+     * it terminates, operations executed in the session report the exit code <code>0</code> unless the dctool terminated unexpectedly.
+     *
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public synchronized void startSession() throws IOException, InterruptedException {
+        if (session == null && Boolean.getBoolean(SESSION_PROPERTY)) {
+            final long start = System.currentTimeMillis();
+            final DIToolSession opened = openSession(PROMPT);
+            boolean started = false;
+
+            try {
+                started = opened.execute(loadConfigCommandBuilder.execute()).isExitCodeOk() && !opened.isTerminated();
+            }
+            finally {
+                if (started) {
+                    session = opened;
+                    duration(start, Messages.DCToolCommandExecutor_session_started());
+                }
+                else {
+                    // do not leave a dctool running that failed to load the development configuration
+                    opened.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * End the dctool session started via {@link #startSession()} (if any).
+     *
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public synchronized void endSession() throws IOException, InterruptedException {
+        if (session != null) {
+            final DIToolSession current = session;
+            session = null;
+
+            try {
+                log(Messages.DCToolCommandExecutor_session_ended(current.exit(loadConfigCommandBuilder.getExitCommand()).getExitCode()));
+            }
+            finally {
+                current.close();
+            }
+        }
+    }
+
+    /**
+     * Determines whether {@link #buildDevelopmentComponents(List, Map, DIToolOutputConsumer, BuildWaveFilter...)} applies the given
+     * filters, i.e. builds the waves one after another. This requires a dctool session (see {@link #startSession()}), the pooled dctool
+     * or concurrent sessions (see {@link #SESSIONS_PROPERTY}).
+     *
+     * @return <code>true</code> when build wave filters are applied, <code>false</code> when they are ignored.
+     */
+    public synchronized boolean canFilterBuildWaves() {
+        return session != null || DIToolSessionPool.isEnabled() || Integer.getInteger(SESSIONS_PROPERTY, 1) > 1;
+    }
+
     /**
      * Synchronize development components in archive mode in the development configuration.
      *
@@ -117,17 +232,468 @@ public final class DCToolCommandExecutor extends AbstractDIToolExecutor {
      */
     public DIToolCommandExecutionResult buildDevelopmentComponents(final Collection<DevelopmentComponent> affectedComponents)
         throws IOException, InterruptedException {
+        return buildDevelopmentComponents(affectedComponents, (DIToolOutputConsumer)null);
+    }
+
+    /**
+     * Build the given development components pushing the output of the dctool line by line to the given consumer.
+     *
+     * @param affectedComponents
+     *            development components to build.
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return the result of the builddc operation.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public DIToolCommandExecutionResult buildDevelopmentComponents(final Collection<DevelopmentComponent> affectedComponents,
+        final DIToolOutputConsumer consumer) throws IOException, InterruptedException {
         final long start = System.currentTimeMillis();
         final DIToolCommandExecutionResult result =
-            wrapAndExecute(commandFactory.createBuildDevelopmentComponentsCommandBuilder(affectedComponents));
+            wrapAndExecute(commandFactory.createBuildDevelopmentComponentsCommandBuilder(affectedComponents), consumer);
         duration(start, Messages.DCToolCommandExecutor_done_building_development_components());
 
         return result;
     }
 
     /**
-     * Wrap the given builder with a {@link DCToolCommandBuilderWrapper} to supply 'loadconfig' and 'exit' commands and execute the
-     * resulting command list with the dctool.
+     * Build the given waves of development components.
+     *
+     * The development components of a wave do not depend on each other. When more than one dctool session has been configured (see
+     * {@link #SESSIONS_PROPERTY}) the components of each wave are distributed across concurrently running dctool sessions writing to
+     * spool and trace files of their own. A wave is started when all sessions of the previous wave are finished. The output of the
+     * sessions is appended to the result in session order so that the build results of every development component can be parsed from
+     * it. Otherwise all components are built in one session in the order of the waves.
+     *
+     * @param waves
+     *            waves of development components to build in the order they should be built.
+     * @return the combined result of the builddc operations.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public DIToolCommandExecutionResult buildDevelopmentComponents(final List<? extends Collection<DevelopmentComponent>> waves)
+        throws IOException, InterruptedException {
+        return buildDevelopmentComponents(waves, Collections.<DevelopmentComponent, Long> emptyMap());
+    }
+
+    /**
+     * Build the given waves of development components (see {@link #buildDevelopmentComponents(List)}) using the given estimated build
+     * durations to distribute the components of a wave across the dctool sessions. The components of a wave are assigned in the given
+     * order, each to the session with the least estimated work so far. When estimates are given the predicted and the actual duration of
+     * the build are logged.
+     *
+     * @param waves
+     *            waves of development components to build in the order they should be built.
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component (may be empty).
+     * @return the combined result of the builddc operations.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public DIToolCommandExecutionResult buildDevelopmentComponents(final List<? extends Collection<DevelopmentComponent>> waves,
+        final Map<DevelopmentComponent, Long> estimatedDurations) throws IOException, InterruptedException {
+        return buildDevelopmentComponents(waves, estimatedDurations, null);
+    }
+
+    /**
+     * Build the given waves of development components (see {@link #buildDevelopmentComponents(List, Map)}) pushing the output of the dctool
+     * line by line to the given consumer. The output of concurrent sessions is pushed in session order when all sessions of a wave are
+     * finished.
+     *
+     * @param waves
+     *            waves of development components to build in the order they should be built.
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component (may be empty).
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return the combined result of the builddc operations.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public DIToolCommandExecutionResult buildDevelopmentComponents(final List<? extends Collection<DevelopmentComponent>> waves,
+        final Map<DevelopmentComponent, Long> estimatedDurations, final DIToolOutputConsumer consumer) throws IOException,
+        InterruptedException {
+        return buildDevelopmentComponents(waves, estimatedDurations, consumer, new BuildWaveFilter[0]);
+    }
+
+    /**
+     * Build the given waves of development components (see {@link #buildDevelopmentComponents(List, Map, DIToolOutputConsumer)}) skipping
+     * development components as determined by the given filters (e.g. {@link DependentBuildSkipper}). The filters are applied in the given
+     * order right before a wave is built, so the build results of the previous waves are available to them. Thus the waves are built one
+     * after another in phases of the dctool session (see {@link #startSession()}) or the pooled dctool when filters are given. Without a
+     * session a dctool would have to be started and the configuration loaded for every wave which costs more than skipping saves, so the
+     * filters are ignored and all waves are built in one dctool run. The output of the waves is combined into one result. The skipped
+     * development components and the estimated build time saved are logged.
+     *
+     * @param waves
+     *            waves of development components to build in the order they should be built.
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component (may be empty).
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @param filters
+     *            filters determining the development components of a wave to build (<code>null</code> elements are ignored).
+     * @return the combined result of the builddc operations.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    public DIToolCommandExecutionResult buildDevelopmentComponents(final List<? extends Collection<DevelopmentComponent>> waves,
+        final Map<DevelopmentComponent, Long> estimatedDurations, final DIToolOutputConsumer consumer,
+        final BuildWaveFilter... filters) throws IOException, InterruptedException {
+        final int sessions = Integer.getInteger(SESSIONS_PROPERTY, 1);
+        final long start = System.currentTimeMillis();
+        final List<DevelopmentComponent> skipped = new ArrayList<DevelopmentComponent>();
+        long predicted = 0;
+        DIToolCommandExecutionResult result;
+
+        final List<BuildWaveFilter> activeFilters = new ArrayList<BuildWaveFilter>();
+
+        for (final BuildWaveFilter filter : filters) {
+            if (filter != null) {
+                activeFilters.add(filter);
+            }
+        }
+
+        if (sessions <= 1 && activeFilters.isEmpty() || !canFilterBuildWaves()) {
+            if (!activeFilters.isEmpty()) {
+                log(Messages.DCToolCommandExecutor_filters_ignored());
+            }
+
+            final Collection<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>();
+
+            for (final Collection<DevelopmentComponent> wave : waves) {
+                components.addAll(wave);
+            }
+
+            predicted = getEstimatedDuration(components, estimatedDurations);
+            result = buildDevelopmentComponents(components, consumer);
+        }
+        else if (sessions <= 1) {
+            final DIToolOutputStream output = new DIToolOutputStream(createSpillFile());
+            output.addConsumer(consumer);
+            final DIToolOutputConsumer waveConsumer = new DIToolOutputConsumer() {
+                @Override
+                public void consume(final String line) {
+                    try {
+                        output.write((line + '\n').getBytes(Charset.defaultCharset()));
+                    }
+                    catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            int exitCode = 0;
+
+            try {
+                for (final Collection<DevelopmentComponent> wave : waves) {
+                    final List<DevelopmentComponent> components = filter(wave, activeFilters, skipped);
+
+                    if (!components.isEmpty()) {
+                        predicted += getEstimatedDuration(components, estimatedDurations);
+                        final int waveExitCode =
+                            wrapAndExecute(commandFactory.createBuildDevelopmentComponentsCommandBuilder(components), waveConsumer)
+                                .getExitCode();
+
+                        if (exitCode == 0) {
+                            exitCode = waveExitCode;
+                        }
+                    }
+                }
+            }
+            finally {
+                output.close();
+            }
+
+            duration(start, Messages.DCToolCommandExecutor_done_building_development_components());
+            result = output.toResult(exitCode);
+        }
+        else {
+            final DIToolOutputStream output = new DIToolOutputStream(createSpillFile());
+            output.addConsumer(new DIToolOutputConsumer() {
+                @Override
+                public void consume(final String line) {
+                    log(line);
+                }
+            });
+            output.addConsumer(consumer);
+            int exitCode = 0;
+            final ExecutorService executor = Executors.newFixedThreadPool(sessions);
+
+            try {
+                int waveNumber = 0;
+
+                for (final Collection<DevelopmentComponent> waveComponents : waves) {
+                    final Collection<DevelopmentComponent> wave = filter(waveComponents, activeFilters, skipped);
+                    waveNumber++;
+
+                    if (wave.isEmpty()) {
+                        continue;
+                    }
+
+                    final List<List<DevelopmentComponent>> partitions = distribute(wave, sessions, estimatedDurations);
+                    log(Messages.DCToolCommandExecutor_building_wave(waveNumber, waves.size(), wave.size(), partitions.size()));
+                    long longestPartition = 0;
+
+                    for (final List<DevelopmentComponent> partition : partitions) {
+                        longestPartition = Math.max(longestPartition, getEstimatedDuration(partition, estimatedDurations));
+                    }
+
+                    predicted += longestPartition;
+
+                    final int sessionExitCode = buildConcurrently(executor, partitions, output);
+
+                    if (exitCode == 0) {
+                        exitCode = sessionExitCode;
+                    }
+                }
+            }
+            finally {
+                executor.shutdownNow();
+                output.close();
+            }
+
+            duration(start, Messages.DCToolCommandExecutor_done_building_development_components());
+            result = output.toResult(exitCode);
+        }
+
+        if (!skipped.isEmpty()) {
+            logSkipped(skipped, estimatedDurations);
+        }
+
+        if (!estimatedDurations.isEmpty()) {
+            log(Messages.DCToolCommandExecutor_predicted_build_time(String.format("%f", predicted / A_THOUSAND_MSECS),
+                String.format("%f", (System.currentTimeMillis() - start) / A_THOUSAND_MSECS)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Apply the given filters to the given wave of development components.
+     *
+     * @param wave
+     *            wave of development components to build next.
+     * @param filters
+     *            filters determining the development components of a wave to build.
+     * @param skipped
+     *            collection the development components of the wave not to be built are added to.
+     * @return the development components of the given wave to build.
+     */
+    private static List<DevelopmentComponent> filter(final Collection<DevelopmentComponent> wave, final List<BuildWaveFilter> filters,
+        final Collection<DevelopmentComponent> skipped) {
+        List<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>(wave);
+
+        for (final BuildWaveFilter filter : filters) {
+            if (!components.isEmpty()) {
+                components = filter.filter(components);
+            }
+        }
+
+        final Set<DevelopmentComponent> remaining = new HashSet<DevelopmentComponent>(components);
+
+        for (final DevelopmentComponent component : wave) {
+            if (!remaining.contains(component)) {
+                skipped.add(component);
+            }
+        }
+
+        return components;
+    }
+
+    /**
+     * Log the given skipped development components and the estimated build time saved by skipping them.
+     *
+     * @param skipped
+     *            the skipped development components.
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component (may be empty).
+     */
+    private void logSkipped(final List<DevelopmentComponent> skipped, final Map<DevelopmentComponent, Long> estimatedDurations) {
+        log(Messages.DCToolCommandExecutor_skipped_development_components(skipped.size(),
+            String.format("%f", getEstimatedDuration(skipped, estimatedDurations) / A_THOUSAND_MSECS)));
+
+        for (final DevelopmentComponent component : skipped) {
+            log(String.format("%s/%s", component.getVendor(), component.getName()));
+        }
+    }
+
+    /**
+     * Build the given partitions of development components in concurrent dctool sessions (one per partition). The output of each session
+     * is written to a temporary file of its own and copied to the given stream in the order of the given partitions when all sessions
+     * are finished.
+     *
+     * @param executor
+     *            executor to run the dctool sessions.
+     * @param partitions
+     *            partitions of development components to build.
+     * @param output
+     *            stream to copy the output of the sessions to.
+     * @return the first exit code of the dctool sessions indicating an error or <code>0</code>.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             when waiting for the dctool sessions was interrupted
+     */
+    private int buildConcurrently(final ExecutorService executor, final List<List<DevelopmentComponent>> partitions,
+        final OutputStream output) throws IOException, InterruptedException {
+        final List<Future<DIToolCommandExecutionResult>> futures = new ArrayList<Future<DIToolCommandExecutionResult>>();
+        final List<File> sessionOutputs = new ArrayList<File>();
+        int exitCode = 0;
+
+        try {
+            for (int i = 0; i < partitions.size(); i++) {
+                final DIToolCommandBuilder builder =
+                    new DCToolCommandBuilderWrapper(loadConfigCommandBuilder.forSession(i + 1),
+                        commandFactory.createBuildDevelopmentComponentsCommandBuilder(partitions.get(i)));
+                final File sessionOutput = File.createTempFile("dctool-session-" + (i + 1) + '-', ".log", getOutputFolder());
+                sessionOutputs.add(sessionOutput);
+                futures.add(executor.submit(new Callable<DIToolCommandExecutionResult>() {
+                    @Override
+                    public DIToolCommandExecutionResult call() throws IOException {
+                        final OutputStream console = new BufferedOutputStream(new FileOutputStream(sessionOutput));
+
+                        try {
+                            return execute(builder, console, null, false);
+                        }
+                        finally {
+                            console.close();
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<DIToolCommandExecutionResult> future : futures) {
+                final int sessionExitCode = future.get().getExitCode();
+
+                if (exitCode == 0) {
+                    exitCode = sessionExitCode;
+                }
+            }
+
+            for (final File sessionOutput : sessionOutputs) {
+                final InputStream input = new FileInputStream(sessionOutput);
+
+                try {
+                    Util.copyStream(input, output);
+                }
+                finally {
+                    input.close();
+                }
+            }
+        }
+        catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            for (final Future<DIToolCommandExecutionResult> future : futures) {
+                future.cancel(true);
+            }
+
+            for (final File sessionOutput : sessionOutputs) {
+                if (!sessionOutput.delete()) {
+                    sessionOutput.deleteOnExit();
+                }
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Distribute the given development components round robin across at most the given number of partitions.
+     *
+     * @param components
+     *            development components to distribute.
+     * @param sessions
+     *            maximum number of partitions.
+     * @return non empty partitions of the given development components.
+     */
+    static List<List<DevelopmentComponent>> distribute(final Collection<DevelopmentComponent> components, final int sessions) {
+        return distribute(components, sessions, Collections.<DevelopmentComponent, Long> emptyMap());
+    }
+
+    /**
+     * Distribute the given development components across at most the given number of partitions. Each component is added to the partition
+     * with the least estimated build duration so far. Without estimates every component counts the same, i.e. the components are
+     * distributed round robin.
+     *
+     * @param components
+     *            development components to distribute.
+     * @param sessions
+     *            maximum number of partitions.
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component.
+     * @return non empty partitions of the given development components.
+     */
+    static List<List<DevelopmentComponent>> distribute(final Collection<DevelopmentComponent> components, final int sessions,
+        final Map<DevelopmentComponent, Long> estimatedDurations) {
+        final List<List<DevelopmentComponent>> partitions = new ArrayList<List<DevelopmentComponent>>();
+        final int count = Math.max(1, Math.min(sessions, components.size()));
+        final long[] loads = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            partitions.add(new ArrayList<DevelopmentComponent>());
+        }
+
+        for (final DevelopmentComponent component : components) {
+            int leastLoaded = 0;
+
+            for (int i = 1; i < count; i++) {
+                if (loads[i] < loads[leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+
+            final Long duration = estimatedDurations.get(component);
+            loads[leastLoaded] += duration == null ? 1 : Math.max(1, duration.longValue());
+            partitions.get(leastLoaded).add(component);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Sum up the estimated build durations of the given development components.
+     *
+     * @param components
+     *            development components.
+     * @param estimatedDurations
+     *            estimated build durations in milliseconds mapped by development component.
+     * @return the estimated build duration of the given development components in milliseconds.
+     */
+    private static long getEstimatedDuration(final Collection<DevelopmentComponent> components,
+        final Map<DevelopmentComponent, Long> estimatedDurations) {
+        long duration = 0;
+
+        for (final DevelopmentComponent component : components) {
+            final Long estimate = estimatedDurations.get(component);
+
+            if (estimate != null) {
+                duration += estimate.longValue();
+            }
+        }
+
+        return duration;
+    }
+
+    /**
+     * Execute the commands of the given builder with the dctool supplying 'loadconfig' and 'exit' commands. When a session has been started
+     * the commands of the given builder are executed in the session instead. Otherwise a pooled dctool is used when pooling is enabled (see
+     * {@link org.arachna.netweaver.tools.DIToolSessionPool}).
      *
      * @param builder
      *            builder for dctool commands.
@@ -138,7 +704,47 @@ public final class DCToolCommandExecutor extends AbstractDIToolExecutor {
      *             re-thrown from dctool execution
      */
     private DIToolCommandExecutionResult wrapAndExecute(final DIToolCommandBuilder builder) throws IOException, InterruptedException {
-        return execute(new DCToolCommandBuilderWrapper(loadConfigCommandBuilder, builder));
+        return wrapAndExecute(builder, null);
+    }
+
+    /**
+     * Execute the commands of the given builder (see {@link #wrapAndExecute(DIToolCommandBuilder)}) pushing the output of the dctool line
+     * by line to the given consumer.
+     *
+     * @param builder
+     *            builder for dctool commands.
+     * @param consumer
+     *            consumer of the lines of output (may be <code>null</code>).
+     * @return result object with return code and output of dctool commands.
+     * @throws IOException
+     *             re-thrown from dctool execution
+     * @throws InterruptedException
+     *             re-thrown from dctool execution
+     */
+    private synchronized DIToolCommandExecutionResult wrapAndExecute(final DIToolCommandBuilder builder,
+        final DIToolOutputConsumer consumer) throws IOException, InterruptedException {
+        final List<String> commands = builder.execute();
+
+        if (commands.isEmpty()) {
+            return new DIToolCommandExecutionResult("", 0);
+        }
+
+        if (session == null) {
+            // a pooled dctool may outlive changes to the development configuration, so it is loaded again.
+            final List<String> pooledCommands = new ArrayList<String>(loadConfigCommandBuilder.execute());
+            pooledCommands.addAll(commands);
+
+            return executePooled(PROMPT, Collections.<String> emptyList(), pooledCommands, loadConfigCommandBuilder.getExitCommand(),
+                consumer);
+        }
+
+        final DIToolCommandExecutionResult result = session.execute(commands, consumer);
+
+        if (session.isTerminated()) {
+            session = null;
+        }
+
+        return result;
     }
 
     /**
@@ -0,0 +1,148 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools.dc;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentGraph;
+
+/**
+ * Removes development components from the waves of a build that need not be built anymore because the build of a development component
+ * failed.
+ *
+ * When the build of a development component fails, the development components using it directly or transitively would fail to build
+ * too (or would be built against outdated public parts). They are skipped when enabled via the system property
+ * {@link #SKIP_DEPENDENTS_PROPERTY}. All remaining development components are skipped when enabled via the system property
+ * {@link #STOP_ON_FAILURE_PROPERTY}. Since the development components of a wave do not depend on each other, failures are checked between
+ * waves. This requires building in a dctool session (see {@link DCToolCommandExecutor#buildDevelopmentComponents(java.util.List,
+ * java.util.Map, org.arachna.netweaver.tools.DIToolOutputConsumer, BuildWaveFilter...)}).
+ *
+ * @author Dirk Weigenand
+ */
+public final class DependentBuildSkipper implements BuildWaveFilter {
+    /**
+     * Name of system property enabling skipping the development components using a development component whose build failed.
+     */
+    public static final String SKIP_DEPENDENTS_PROPERTY = "nwdibuild.dctool.skip.dependents";
+
+    /**
+     * Name of system property enabling skipping all remaining development components when the build of a development component failed.
+     */
+    public static final String STOP_ON_FAILURE_PROPERTY = "nwdibuild.dctool.stop.on.failure";
+
+    /**
+     * dependency graph of the development components to build.
+     */
+    private final DevelopmentComponentGraph graph;
+
+    /**
+     * monitor reporting the development components whose build failed.
+     */
+    private final DCBuildMonitor monitor;
+
+    /**
+     * whether all remaining development components should be skipped after a failed build.
+     */
+    private final boolean stopOnFailure;
+
+    /**
+     * ids of development components to skip.
+     */
+    private final BitSet skippedIds;
+
+    /**
+     * the development components skipped so far.
+     */
+    private final List<DevelopmentComponent> skipped = new ArrayList<DevelopmentComponent>();
+
+    /**
+     * number of failed builds already taken into account.
+     */
+    private int failures;
+
+    /**
+     * Create a skipper using the given dependency graph and monitor.
+     *
+     * @param graph
+     *            dependency graph of the development components to build.
+     * @param monitor
+     *            monitor reporting the development components whose build failed.
+     * @param stopOnFailure
+     *            <code>true</code> when all remaining development components should be skipped after a failed build,
+     *            <code>false</code> when only the development components using the failed ones should be skipped.
+     */
+    public DependentBuildSkipper(final DevelopmentComponentGraph graph, final DCBuildMonitor monitor, final boolean stopOnFailure) {
+        this.graph = graph;
+        this.monitor = monitor;
+        this.stopOnFailure = stopOnFailure;
+        skippedIds = new BitSet(graph.size());
+    }
+
+    /**
+     * Create a skipper configured via the system properties {@link #SKIP_DEPENDENTS_PROPERTY} and {@link #STOP_ON_FAILURE_PROPERTY}.
+     *
+     * @param dcFactory
+     *            registry of the development components to build.
+     * @param monitor
+     *            monitor reporting the development components whose build failed.
+     * @return the skipper or <code>null</code> when skipping development components has not been enabled.
+     */
+    public static DependentBuildSkipper create(final DevelopmentComponentFactory dcFactory, final DCBuildMonitor monitor) {
+        final boolean stopOnFailure = Boolean.getBoolean(STOP_ON_FAILURE_PROPERTY);
+
+        if (stopOnFailure || Boolean.getBoolean(SKIP_DEPENDENTS_PROPERTY)) {
+            return new DependentBuildSkipper(dcFactory.createGraph(), monitor, stopOnFailure);
+        }
+
+        return null;
+    }
+
+    /**
+     * Determine the development components of the given wave that should still be built. The other development components of the wave
+     * are added to the skipped ones.
+     *
+     * @param wave
+     *            wave of development components to build next.
+     * @return development components of the given wave that should be built.
+     */
+    @Override
+    public List<DevelopmentComponent> filter(final Collection<DevelopmentComponent> wave) {
+        final Collection<DevelopmentComponent> failed = monitor.getFailedBuilds();
+
+        if (failed.size() > failures) {
+            failures = failed.size();
+            skippedIds.or(graph.getUsingClosure(failed));
+        }
+
+        final List<DevelopmentComponent> remaining = new ArrayList<DevelopmentComponent>(wave.size());
+
+        for (final DevelopmentComponent component : wave) {
+            final int id = graph.getId(component);
+
+            if (stopOnFailure && failures > 0 || id != -1 && skippedIds.get(id)) {
+                skipped.add(component);
+            }
+            else {
+                remaining.add(component);
+            }
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Returns the development components skipped so far.
+     *
+     * @return the development components skipped so far.
+     */
+    public List<DevelopmentComponent> getSkipped() {
+        return Collections.unmodifiableList(skipped);
+    }
+}
@@ -26,14 +26,46 @@ class LoadConfigCommandBuilder implements DIToolCommandBuilder {
      */
     private final LoadConfigTemplate template;
 
+    /**
+     * number of the dctool session the commands are generated for (<code>0</code> when only one session is used).
+     */
+    private final int session;
+
     /**
      *
      * @param dcToolDescriptor
      * @param template
      */
     LoadConfigCommandBuilder(final DIToolDescriptor dcToolDescriptor, final LoadConfigTemplate template) {
+        this(dcToolDescriptor, template, 0);
+    }
+
+    /**
+     * Create a builder for the given dctool session. Sessions other than <code>0</code> write to their own spool and trace files so that
+     * several dctool processes can run concurrently in the same workspace.
+     *
+     * @param dcToolDescriptor
+     *            descriptor for DC tool configuration.
+     * @param template
+     *            Template for the different versions of NetWeaver dctool.
+     * @param session
+     *            number of the dctool session.
+     */
+    LoadConfigCommandBuilder(final DIToolDescriptor dcToolDescriptor, final LoadConfigTemplate template, final int session) {
         this.dcToolDescriptor = dcToolDescriptor;
         this.template = template;
+        this.session = session;
+    }
+
+    /**
+     * Create a builder for the given dctool session using the configuration of this builder.
+     *
+     * @param session
+     *            number of the dctool session.
+     * @return builder for the given dctool session.
+     */
+    LoadConfigCommandBuilder forSession(final int session) {
+        return new LoadConfigCommandBuilder(dcToolDescriptor, template, session);
     }
 
     /**
@@ -42,14 +74,25 @@ class LoadConfigCommandBuilder implements DIToolCommandBuilder {
     @Override
     public final List<String> execute() {
         final List<String> commands = new ArrayList<String>();
-        commands.add(template.getSpoolCommand());
-        commands.add(template.getTracefileCommand());
+        commands.add(isolate(template.getSpoolCommand()));
+        commands.add(isolate(template.getTracefileCommand()));
         commands.add(template.getTimingCommand());
         commands.add(getLoadConfigCommand());
 
         return commands;
     }
 
+    /**
+     * Append the session number to the name of the file used in the given spool or tracefile command.
+     *
+     * @param command
+     *            spool or tracefile command.
+     * @return command writing to a file of its own for sessions other than <code>0</code>.
+     */
+    private String isolate(final String command) {
+        return session == 0 ? command : command.replaceFirst("(\\w+)\\.txt", "$1-" + session + ".txt");
+    }
+
     /**
      * Get the command for loading a development configuration.
      *
@@ -8,7 +8,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,6 +19,7 @@ import org.arachna.ant.AntHelper;
 import org.arachna.netweaver.dc.types.Compartment;
 import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentComponentGraph;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.dc.types.PublicPartReference;
 
@@ -235,7 +235,7 @@ final class SyncDevelopmentComponentsInArchiveStateCommandBuilder extends Abstra
     private List<DevelopmentComponent> getUsedDCsToSynchronize(final Collection<DevelopmentComponent> components) {
         final List<DevelopmentComponent> dcsToSynchronize = new ArrayList<DevelopmentComponent>();
 
-        for (final DevelopmentComponent usedDC : getUsedDCs(getUniquePublicPartReferences(components))) {
+        for (final DevelopmentComponent usedDC : getUsedDCs(components)) {
             // development components provided by SAP
             if (isSAPComponent(usedDC)) {
                 // should only be synchronized when not already on disk.
@@ -252,42 +252,20 @@ final class SyncDevelopmentComponentsInArchiveStateCommandBuilder extends Abstra
     }
 
     /**
-     * Loop through the given development components and determine which development components they depend on.
+     * Determine the set of development components in archive state the given development components depend on.
      *
-     * There may be several public parts for one development component depended on returned here.
+     * The used DCs are looked up in a {@link DevelopmentComponentGraph} snapshot of the registered development components, so several
+     * public part references to the same development component resolve to it only once.
      *
      * @param components
-     *            collection of development components for which to determine dependencies (i.e. references to public parts of other
-     *            development components).
-     * @return collection of references to public parts of development components the given development components depend on.
+     *            collection of development components for which to determine dependencies.
+     * @return a collection of development components in archive state the given development components depend on.
      */
-    private Collection<PublicPartReference> getUniquePublicPartReferences(final Collection<DevelopmentComponent> components) {
-        final Collection<PublicPartReference> references = new HashSet<PublicPartReference>();
-
-        for (final DevelopmentComponent component : components) {
-            for (final PublicPartReference reference : component.getUsedDevelopmentComponents()) {
-                references.add(reference);
-            }
-        }
-
-        return references;
-    }
-
-    /**
-     * Determine the set of development components referenced by the given collection of public part references.
-     *
-     * The collection of returned development components does not contain duplicates.
-     *
-     * @param references
-     *            references to public parts of development components.
-     * @return a collection of development components referenced by the given collection of public part references.
-     */
-    private Collection<DevelopmentComponent> getUsedDCs(final Collection<PublicPartReference> references) {
-        final Collection<DevelopmentComponent> usedDCs = new HashSet<DevelopmentComponent>();
-
-        for (final PublicPartReference reference : references) {
-            final DevelopmentComponent usedDC = dcFactory.get(reference);
+    private Collection<DevelopmentComponent> getUsedDCs(final Collection<DevelopmentComponent> components) {
+        final DevelopmentComponentGraph graph = dcFactory.createGraph();
+        final Collection<DevelopmentComponent> usedDCs = new ArrayList<DevelopmentComponent>();
 
+        for (final DevelopmentComponent usedDC : graph.getComponents(graph.getUsed(components))) {
             if (isUsedDCinArchiveState(usedDC)) {
                 usedDCs.add(usedDC);
             }
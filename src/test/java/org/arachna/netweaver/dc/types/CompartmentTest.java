@@ -4,8 +4,12 @@
 package org.arachna.netweaver.dc.types;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 import org.junit.After;
 import org.junit.Before;
@@ -120,4 +124,55 @@ public class CompartmentTest {
         assertThat(compartment.getVendor(), equalTo("sap.com"));
         assertThat(compartment.getSoftwareComponent(), equalTo("SAP_BUILDT"));
     }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.dc.types.Compartment#getDevelopmentComponent(java.lang.String)} .
+     */
+    @Test
+    public void testGetDevelopmentComponentByNameFollowsAddAndRemove() {
+        final DevelopmentComponent component = new DevelopmentComponent("dc1", "example.com", DevelopmentComponentType.Java);
+        firstCompartment.add(component);
+
+        assertThat(firstCompartment.getDevelopmentComponent("dc1"), sameInstance(component));
+
+        firstCompartment.remove(component);
+
+        assertThat(firstCompartment.getDevelopmentComponent("dc1"), nullValue());
+        assertThat(component.getCompartment(), nullValue());
+    }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.dc.types.Compartment#getDevelopmentComponents(IDevelopmentComponentFilter)} .
+     */
+    @Test
+    public void testGetDevelopmentComponentsByTypeKeepsOrderOfAddition() {
+        final DevelopmentComponent first = new DevelopmentComponent("dc1", "example.com", DevelopmentComponentType.Java);
+        final DevelopmentComponent second = new DevelopmentComponent("dc2", "example.com", DevelopmentComponentType.WebDynpro);
+        final DevelopmentComponent third = new DevelopmentComponent("dc3", "example.com", DevelopmentComponentType.Java);
+        firstCompartment.add(first);
+        firstCompartment.add(second);
+        firstCompartment.add(third);
+
+        assertThat(firstCompartment.getDevelopmentComponents(new DevelopmentComponentByTypeFilter(DevelopmentComponentType.Java)),
+            contains(first, third));
+        assertThat(
+            firstCompartment.getDevelopmentComponents(new DevelopmentComponentByTypeFilter(DevelopmentComponentType.WebDynpro,
+                DevelopmentComponentType.Java)), contains(first, second, third));
+    }
+
+    /**
+     * Changing the type of a development component updates the type index of its compartment.
+     */
+    @Test
+    public void testTypeIndexFollowsTypeChange() {
+        final DevelopmentComponent component = new DevelopmentComponent("dc1", "example.com", DevelopmentComponentType.unknown);
+        firstCompartment.add(component);
+
+        component.setType(DevelopmentComponentType.Java);
+
+        assertThat(firstCompartment.getDevelopmentComponents(new DevelopmentComponentByTypeFilter(DevelopmentComponentType.Java)),
+            contains(component));
+        assertThat(firstCompartment.getDevelopmentComponents(new DevelopmentComponentByTypeFilter(DevelopmentComponentType.unknown)),
+            empty());
+    }
 }
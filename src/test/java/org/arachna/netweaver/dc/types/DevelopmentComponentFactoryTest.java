@@ -0,0 +1,190 @@
+/**
+ *
+ */
+package org.arachna.netweaver.dc.types;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DevelopmentComponentFactory}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DevelopmentComponentFactoryTest {
+    /**
+     * vendor used throughout the test.
+     */
+    private static final String EXAMPLE_ORG = "example.org";
+
+    /**
+     * Instance under test.
+     */
+    private DevelopmentComponentFactory dcFactory;
+
+    /**
+     * Set up fixture.
+     */
+    @Before
+    public void setUp() {
+        dcFactory = new DevelopmentComponentFactory();
+    }
+
+    /**
+     * Development components are found by vendor and name and by references to their public parts, only when vendor and name match.
+     */
+    @Test
+    public void testGetByVendorAndName() {
+        final List<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>();
+
+        for (int i = 0; i < 100; i++) {
+            components.add(dcFactory.create("vendor" + i % 5 + ".com", "dc/number/" + i));
+        }
+
+        for (final DevelopmentComponent component : components) {
+            assertThat(dcFactory.get(component.getVendor(), component.getName()), sameInstance(component));
+            assertThat(dcFactory.get(new PublicPartReference(component.getVendor(), component.getName(), "api")),
+                sameInstance(component));
+        }
+
+        assertThat(dcFactory.get("vendor1.com", "dc/number/0"), nullValue());
+        assertThat(dcFactory.get("unknown.com", "dc/number/0"), nullValue());
+        assertThat(dcFactory.get("vendor0.com", "dc/number/1"), nullValue());
+        assertThat(dcFactory.getAll(), hasSize(components.size()));
+    }
+
+    /**
+     * Adding a reference to a registered development component updates the using DCs of the referenced one.
+     */
+    @Test
+    public void testUsingDCsAreUpdatedWhenReferenceIsAdded() {
+        final DevelopmentComponent used = dcFactory.create(EXAMPLE_ORG, "used");
+        final DevelopmentComponent user = dcFactory.create(EXAMPLE_ORG, "user");
+
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+
+        assertThat(used.getUsingDevelopmentComponents(), contains(user));
+    }
+
+    /**
+     * References to development components created later are resolved when the referenced development component is created.
+     */
+    @Test
+    public void testUsingDCsAreResolvedWhenReferencedDCIsCreated() {
+        final DevelopmentComponent user = dcFactory.create(EXAMPLE_ORG, "user");
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+
+        assertThat(dcFactory.create(EXAMPLE_ORG, "used").getUsingDevelopmentComponents(), contains(user));
+    }
+
+    /**
+     * Removing a development component removes it from the using DCs of the development components it references.
+     */
+    @Test
+    public void testRemovedDCIsNoLongerUsing() {
+        final DevelopmentComponent used = dcFactory.create(EXAMPLE_ORG, "used");
+        final DevelopmentComponent user = dcFactory.create(EXAMPLE_ORG, "user");
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+
+        dcFactory.remove(user);
+
+        assertThat(used.getUsingDevelopmentComponents(), empty());
+    }
+
+    /**
+     * A development component removed and created again is used by the development components referencing it.
+     */
+    @Test
+    public void testRecreatedDCKeepsUsingDCs() {
+        final DevelopmentComponent user = dcFactory.create(EXAMPLE_ORG, "user");
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+        dcFactory.remove(dcFactory.create(EXAMPLE_ORG, "used"));
+
+        assertThat(dcFactory.create(EXAMPLE_ORG, "used").getUsingDevelopmentComponents(), contains(user));
+    }
+
+    /**
+     * Replacing the references of a development component updates the using DCs of the formerly and newly referenced ones.
+     */
+    @Test
+    public void testSetUsedComponentsUpdatesUsingDCs() {
+        final DevelopmentComponent first = dcFactory.create(EXAMPLE_ORG, "first");
+        final DevelopmentComponent second = dcFactory.create(EXAMPLE_ORG, "second");
+        final DevelopmentComponent user = dcFactory.create(EXAMPLE_ORG, "user");
+        user.add(new PublicPartReference(EXAMPLE_ORG, "first", "api"));
+
+        user.setUsedComponents(Arrays.asList(new PublicPartReference(EXAMPLE_ORG, "second", "api")));
+
+        assertThat(first.getUsingDevelopmentComponents(), empty());
+        assertThat(second.getUsingDevelopmentComponents(), contains(user));
+    }
+
+    /**
+     * Development components created and referenced concurrently are registered once and used by all development components
+     * referencing them.
+     *
+     * @throws Exception
+     *             when a thread populating the registry fails.
+     */
+    @Test
+    public void testConcurrentCreateAndAddReferences() throws Exception {
+        final int threads = 8;
+        final int components = 200;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<DevelopmentComponent>> users = new ArrayList<Future<DevelopmentComponent>>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                final String userName = "user" + i;
+
+                users.add(executor.submit(new Callable<DevelopmentComponent>() {
+                    @Override
+                    public DevelopmentComponent call() {
+                        final DevelopmentComponent user = dcFactory.create(EXAMPLE_ORG, userName);
+
+                        for (int j = 0; j < components; j++) {
+                            user.add(new PublicPartReference(EXAMPLE_ORG, "used" + j, "api"));
+                            dcFactory.create(EXAMPLE_ORG, "used" + j);
+                        }
+
+                        return user;
+                    }
+                }));
+            }
+
+            final Set<DevelopmentComponent> expected = new HashSet<DevelopmentComponent>();
+
+            for (final Future<DevelopmentComponent> user : users) {
+                expected.add(user.get());
+            }
+
+            assertThat(dcFactory.getAll(), hasSize(threads + components));
+
+            for (int j = 0; j < components; j++) {
+                assertThat(new HashSet<DevelopmentComponent>(dcFactory.get(EXAMPLE_ORG, "used" + j).getUsingDevelopmentComponents()),
+                    equalTo(expected));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package org.arachna.netweaver.dc.types;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DevelopmentComponentGraph}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DevelopmentComponentGraphTest {
+    /**
+     * vendor used throughout the test.
+     */
+    private static final String EXAMPLE_ORG = "example.org";
+
+    /**
+     * Registry for development components.
+     */
+    private DevelopmentComponentFactory dcFactory;
+
+    /**
+     * development component used by {@link #user} and {@link #otherUser}.
+     */
+    private DevelopmentComponent used;
+
+    /**
+     * development component using {@link #used}.
+     */
+    private DevelopmentComponent user;
+
+    /**
+     * development component using {@link #used} and {@link #user}.
+     */
+    private DevelopmentComponent otherUser;
+
+    /**
+     * Set up fixture.
+     */
+    @Before
+    public void setUp() {
+        dcFactory = new DevelopmentComponentFactory();
+        used = dcFactory.create(EXAMPLE_ORG, "used");
+        user = dcFactory.create(EXAMPLE_ORG, "user");
+        otherUser = dcFactory.create(EXAMPLE_ORG, "other/user");
+
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+        otherUser.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+        otherUser.add(new PublicPartReference(EXAMPLE_ORG, "used", "assembly"));
+        otherUser.add(new PublicPartReference(EXAMPLE_ORG, "user", "api"));
+        otherUser.add(new PublicPartReference(EXAMPLE_ORG, "unknown", "api"));
+    }
+
+    /**
+     * Several references to public parts of the same development component result in one used relation, references to unknown
+     * development components are ignored.
+     */
+    @Test
+    public void testUsedAndUsingRelations() {
+        final DevelopmentComponentGraph graph = dcFactory.createGraph();
+        final int usedId = graph.getId(used);
+        final int otherUserId = graph.getId(otherUser);
+
+        assertThat(graph.size(), equalTo(3));
+        assertThat(graph.getComponent(usedId), equalTo(used));
+        assertThat(graph.getUsedCount(otherUserId), equalTo(2));
+        assertThat(graph.getUsedCount(usedId), equalTo(0));
+        assertThat(graph.getUsingCount(usedId), equalTo(2));
+        assertThat(graph.getComponents(graph.getUsed(Arrays.asList(otherUser))), containsInAnyOrder(used, user));
+    }
+
+    /**
+     * The using closure contains the given development components and all development components using them transitively.
+     */
+    @Test
+    public void testUsingClosure() {
+        final DevelopmentComponentGraph graph = dcFactory.createGraph();
+
+        assertThat(graph.getComponents(graph.getUsingClosure(Collections.singletonList(used))),
+            containsInAnyOrder(used, user, otherUser));
+        assertThat(graph.getComponents(graph.getUsingClosure(Collections.singletonList(user))), containsInAnyOrder(user, otherUser));
+    }
+
+    /**
+     * Development components not registered when the graph was created are not part of it.
+     */
+    @Test
+    public void testComponentsCreatedLaterAreNotPartOfGraph() {
+        final DevelopmentComponentGraph graph = dcFactory.createGraph();
+
+        assertThat(graph.getId(dcFactory.create(EXAMPLE_ORG, "unknown")), equalTo(-1));
+    }
+}
@@ -55,4 +55,16 @@ public class ActivityDetailParserTest {
     public final void testParseLongDescription() {
         assertThat(this.activity.getDescription(), is(equalTo("LongDescription")));
     }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.hudson.dtr.browser.ActivityDetailParser#parse(java.io.InputStream)}
+     * .
+     */
+    @Test
+    public final void testParseIntegrationSequenceNumbers() {
+        assertThat(this.activity.getIntegrationSequenceNumber("ws/Example/example.com_EXAMPLE_SC1/dev/inactive/"),
+            is(equalTo(Integer.valueOf(30))));
+        assertThat(this.activity.getIntegrationSequenceNumber("/ws/Example/example.com_EXAMPLE_SC1/dev/active"),
+            is(equalTo(Integer.valueOf(29))));
+    }
 }
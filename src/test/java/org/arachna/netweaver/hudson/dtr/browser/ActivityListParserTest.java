@@ -57,4 +57,35 @@ public class ActivityListParserTest {
             fail(e.getMessage());
         }
     }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.hudson.dtr.browser.ActivityListParser#parse(java.io.InputStream)} reading only
+     * activities newer than already known ones.
+     */
+    @Test
+    public final void testStopAtFirstKnownActivity() {
+        final ActivityListParser browser = new ActivityListParser();
+        browser.parse(this.getClass().getResourceAsStream("ExampleTrackActivityQuery.html"));
+        final List<Activity> activities = browser.getActivities();
+        assertThat(activities.size(), is(greaterThan(1)));
+
+        final ActivityListParser deltaBrowser =
+            new ActivityListParser(new ActivityCheckinDateFilter(), activities.subList(1, activities.size()));
+        deltaBrowser.parse(this.getClass().getResourceAsStream("ExampleTrackActivityQuery.html"));
+
+        assertThat(deltaBrowser.getActivities(), is(equalTo(activities.subList(0, 1))));
+    }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.hudson.dtr.browser.ActivityListParser#parse(java.io.InputStream)} reading only the
+     * first activity.
+     */
+    @Test
+    public final void testStopAtFirstActivity() {
+        final ActivityListParser browser = new ActivityListParser(new ActivityCheckinDateFilter(), true);
+        browser.parse(this.getClass().getResourceAsStream("ExampleTrackActivityQuery.html"));
+
+        assertThat(browser.getActivities().size(), is(equalTo(1)));
+        assertThat(ACTIVITY_QUERY_URL, is(equalTo(browser.getActivities().get(0).getActivityUrl())));
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link ActivityQueryCache}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class ActivityQueryCacheTest {
+    /**
+     * URL of activity query.
+     */
+    private static final String QUERY_URL = "http://dtr:50000/dtr/system-tools/reports/ActivityQuery?isn=";
+
+    /**
+     * template for URLs of activities.
+     */
+    private static final String ACTIVITY_URL = "/dtr/system-tools/reports/ActivityDetails?path=/act/%d";
+
+    /**
+     * Remove cached entries and configured time to live.
+     */
+    @After
+    public void tearDown() {
+        ActivityQueryCache.clear();
+        System.clearProperty(ActivityQueryCache.TTL_PROPERTY);
+    }
+
+    /**
+     * Create an activity checked in at the given time.
+     *
+     * @param number
+     *            number of activity.
+     * @param checkInTime
+     *            check in time in milliseconds.
+     * @return the created activity.
+     */
+    private Activity createActivity(final int number, final long checkInTime) {
+        return new Activity(String.format(ACTIVITY_URL, number), new Principal("user"), "", new Date(checkInTime));
+    }
+
+    /**
+     * Queries for activities checked in after the same or a later date share the cached activities, queries for an earlier date do not.
+     */
+    @Test
+    public void testEntryIsSharedByQueriesForLaterDates() {
+        ActivityQueryCache.put(QUERY_URL, new Date(1000), Arrays.asList(createActivity(2, 3000), createActivity(1, 2000)));
+
+        assertThat(ActivityQueryCache.get(QUERY_URL, new Date(1000)), hasSize(2));
+        assertThat(ActivityQueryCache.get(QUERY_URL, new Date(2500)), hasSize(1));
+        assertThat(ActivityQueryCache.get(QUERY_URL, new Date(500)), nullValue());
+        assertThat(ActivityQueryCache.get(QUERY_URL, null), nullValue());
+    }
+
+    /**
+     * Activities read without date are shared by queries for any date.
+     */
+    @Test
+    public void testEntryWithoutDateIsShared() {
+        ActivityQueryCache.put(QUERY_URL, null, Arrays.asList(createActivity(1, 2000)));
+
+        assertThat(ActivityQueryCache.get(QUERY_URL, null), hasSize(1));
+        assertThat(ActivityQueryCache.get(QUERY_URL, new Date(3000)), hasSize(0));
+    }
+
+    /**
+     * Cached activities keep their integration sequence numbers.
+     */
+    @Test
+    public void testIntegrationSequenceNumbersAreCached() {
+        final Activity activity = createActivity(1, 2000);
+        activity.addIntegration("/ws/Example/example.com_EXAMPLE_SC1/dev/inactive/", Integer.valueOf(30));
+        ActivityQueryCache.put(QUERY_URL, null, Arrays.asList(activity));
+
+        assertThat(ActivityQueryCache.get(QUERY_URL, null).get(0).getIntegrationSequenceNumber(
+            "ws/Example/example.com_EXAMPLE_SC1/dev/inactive"), is(equalTo(Integer.valueOf(30))));
+    }
+
+    /**
+     * Refreshing an entry keeps its time of creation, so it expires nevertheless.
+     *
+     * @throws InterruptedException
+     *             when the test is interrupted while waiting
+     */
+    @Test
+    public void testRefreshedEntryExpires() throws InterruptedException {
+        System.setProperty(ActivityQueryCache.TTL_PROPERTY, "1");
+        ActivityQueryCache.put(QUERY_URL, null, Arrays.asList(createActivity(1, 2000)));
+        Thread.sleep(600);
+
+        ActivityQueryCache.put(QUERY_URL, null, ActivityQueryCache.get(QUERY_URL, null));
+        assertThat(ActivityQueryCache.get(QUERY_URL, null), hasSize(1));
+        Thread.sleep(600);
+
+        assertThat(ActivityQueryCache.get(QUERY_URL, null), nullValue());
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * JUnit tests for {@link DtrBrowser} reading the reports of a simulated DTR.
+ *
+ * @author Dirk Weigenand
+ */
+public class DtrBrowserTest {
+    /**
+     * name of the compartment queried.
+     */
+    private static final String COMPARTMENT = "example.com_EXAMPLE_SC1_1";
+
+    /**
+     * path of the first (most recent) activity listed in <code>ExampleTrackActivityQuery.html</code>.
+     */
+    private static final String FIRST_ACTIVITY = "/act/act_w_Example_example_2e_com_EXAMPLE_2d_SC1_dev_inactive_u_developer00_t_"
+        + "2010_05_17_14_29_57_GMT_50220574-193f-45a9-82bc-eb730df05ccc";
+
+    /**
+     * simulated DTR.
+     */
+    private HttpServer server;
+
+    /**
+     * paths of activities whose details cannot be read from the simulated DTR.
+     */
+    private final Set<String> unreadableActivities = new HashSet<String>();
+
+    /**
+     * queries for activity lists received by the simulated DTR.
+     */
+    private final List<String> activityQueries = new ArrayList<String>();
+
+    /**
+     * development configuration stored in the simulated DTR.
+     */
+    private DevelopmentConfiguration config;
+
+    /**
+     * the browser under test.
+     */
+    private DtrBrowser browser;
+
+    /**
+     * Start the simulated DTR and create a browser for a development configuration containing one source compartment stored in it.
+     *
+     * @throws IOException
+     *             when starting the simulated DTR fails.
+     */
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/dtr/system-tools/reports/ActivityQuery", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                activityQueries.add(exchange.getRequestURI().getQuery());
+                new ResourceHandler("ExampleTrackActivityQuery.html", 200).handle(exchange);
+            }
+        });
+        server.createContext("/dtr/system-tools/reports/ResourceSetDetails", new ResourceHandler(null, 200));
+        server.createContext("/dtr/system-tools/reports/ResourceDetails", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final String query = exchange.getRequestURI().getQuery();
+                final String path = query.substring(query.indexOf("path=") + "path=".length());
+                final ResourceHandler handler =
+                    unreadableActivities.contains(path) ? new ResourceHandler(null, 500) : new ResourceHandler(
+                        "ResourceDetails.htm", 200);
+
+                handler.handle(exchange);
+            }
+        });
+        server.start();
+
+        final String dtrUrl = String.format("http://localhost:%d", server.getAddress().getPort());
+        final Compartment compartment = new Compartment(COMPARTMENT, CompartmentState.Source, "example.com", "", "EXAMPLE_SC1");
+        compartment.setDtrUrl(dtrUrl + "/dtr");
+        compartment.setInactiveLocation("ws/Example/example.com_EXAMPLE_SC1/dev/inactive");
+
+        config = new DevelopmentConfiguration("Example");
+        config.setCmsUrl(dtrUrl);
+        config.add(compartment);
+        browser = new DtrBrowser(config, "developer", "secret");
+    }
+
+    /**
+     * Stop the simulated DTR and remove cached activity lists.
+     */
+    @After
+    public void tearDown() {
+        server.stop(0);
+        ActivityQueryCache.clear();
+    }
+
+    /**
+     * Polling detects new activities but does not record integration sequence numbers, since the activity lists do not contain them.
+     */
+    @Test
+    public void testHasActivitiesRecordsNoIntegrationSequenceNumbers() {
+        assertThat(browser.hasActivities(new Date(0), Collections.<String, Integer> emptyMap()), is(equalTo(true)));
+        assertThat(browser.getIntegrationSequenceNumbers(), is(equalTo(Collections.<String, Integer> emptyMap())));
+    }
+
+    /**
+     * The highest integration sequence number of the activities of a compartment is recorded when all of them could be resolved.
+     */
+    @Test
+    public void testIntegrationSequenceNumberOfResolvedActivities() {
+        assertThat(browser.getActivitiesWithResourcesAndDevelopmentComponents(new DevelopmentComponentFactory(), new Date(0)),
+            hasSize(2));
+        assertThat(browser.getIntegrationSequenceNumbers(), is(equalTo(Collections.singletonMap(COMPARTMENT, Integer.valueOf(30)))));
+    }
+
+    /**
+     * A checkout reusing the activities cached by a previous checkout reads only the activities integrated after the cached ones.
+     */
+    @Test
+    public void testCachedCheckoutReadsActivitiesIntegratedAfterCachedOnes() {
+        browser.getActivitiesWithResourcesAndDevelopmentComponents(new DevelopmentComponentFactory(), new Date(0));
+
+        assertThat(new DtrBrowser(config, "developer", "secret").getActivitiesWithResourcesAndDevelopmentComponents(
+            new DevelopmentComponentFactory(), new Date(0)), hasSize(2));
+        assertThat(activityQueries, hasSize(2));
+        assertThat(activityQueries.get(1), containsString("isnFrom=31&"));
+    }
+
+    /**
+     * The integration sequence number of a compartment is not advanced when the details of one of its activities could not be read, so
+     * the activity is read again by the next query.
+     */
+    @Test
+    public void testIntegrationSequenceNumberNotAdvancedPastUnresolvedActivity() {
+        unreadableActivities.add(FIRST_ACTIVITY);
+
+        final Map<String, Integer> integrationSequenceNumbers = Collections.singletonMap(COMPARTMENT, Integer.valueOf(20));
+        browser.getActivitiesWithResourcesAndDevelopmentComponents(new DevelopmentComponentFactory(), new Date(0),
+            integrationSequenceNumbers);
+
+        assertThat(browser.getIntegrationSequenceNumbers(), is(equalTo(Collections.<String, Integer> emptyMap())));
+    }
+
+    /**
+     * Answers requests with the content of a test resource.
+     *
+     * @author Dirk Weigenand
+     */
+    private final class ResourceHandler implements HttpHandler {
+        /**
+         * name of test resource to answer with (<code>null</code> to answer with an empty page).
+         */
+        private final String resource;
+
+        /**
+         * HTTP status code to answer with.
+         */
+        private final int status;
+
+        /**
+         * Create a handler answering with the given test resource.
+         *
+         * @param resource
+         *            name of test resource to answer with (<code>null</code> to answer with an empty page).
+         * @param status
+         *            HTTP status code to answer with.
+         */
+        ResourceHandler(final String resource, final int status) {
+            this.resource = resource;
+            this.status = status;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            final byte[] content =
+                resource == null ? "<html><body></body></html>".getBytes(Charset.forName("UTF-8")) : read(resource);
+            exchange.sendResponseHeaders(status, content.length);
+
+            final OutputStream body = exchange.getResponseBody();
+
+            try {
+                body.write(content);
+            }
+            finally {
+                body.close();
+            }
+        }
+
+        /**
+         * Read the given test resource.
+         *
+         * @param name
+         *            name of test resource.
+         * @return content of the test resource.
+         * @throws IOException
+         *             when reading the test resource fails.
+         */
+        private byte[] read(final String name) throws IOException {
+            final InputStream input = DtrBrowserTest.class.getResourceAsStream(name);
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+            try {
+                final byte[] buffer = new byte[1024];
+                int read;
+
+                while ((read = input.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+            }
+            finally {
+                input.close();
+            }
+
+            return content.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.HttpGet;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link DtrConnectionPool}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class DtrConnectionPoolTest {
+    /**
+     * Test method for {@link DtrConnectionPool#createKey(String, String)}.
+     */
+    @Test
+    public void testCreateKeyIgnoresPathAndCase() {
+        assertThat(DtrConnectionPool.createKey("http://DTRHOST:50000/dtr", "user"),
+            equalTo(DtrConnectionPool.createKey("http://dtrhost:50000", "user")));
+    }
+
+    /**
+     * Test method for {@link DtrConnectionPool#createKey(String, String)}.
+     */
+    @Test
+    public void testCreateKeyUsesDefaultPort() {
+        assertThat(DtrConnectionPool.createKey("http://dtrhost/dtr", "user"), equalTo("http://dtrhost:80|user"));
+    }
+
+    /**
+     * Test method for {@link DtrConnectionPool#get(String, String, String)}.
+     */
+    @Test
+    public void testPoolIsSharedForSameServerAndUser() {
+        final DtrConnectionPool pool = DtrConnectionPool.get("http://pooltest:50000/dtr", "user", "secret");
+
+        assertThat(DtrConnectionPool.get("http://pooltest:50000/dtr/ws", "user", "secret"), sameInstance(pool));
+    }
+
+    /**
+     * Test method for {@link DtrConnectionPool#get(String, String, String)}.
+     */
+    @Test
+    public void testPoolIsNotSharedBetweenUsers() {
+        final DtrConnectionPool pool = DtrConnectionPool.get("http://pooltest:50000/dtr", "user", "secret");
+
+        assertThat(DtrConnectionPool.get("http://pooltest:50000/dtr", "other", "secret"), not(sameInstance(pool)));
+    }
+
+    /**
+     * Test method for {@link DtrConnectionPool#get(String, String, String)}.
+     */
+    @Test
+    public void testChangedPasswordReplacesPool() {
+        final DtrConnectionPool pool = DtrConnectionPool.get("http://pooltest:50000/dtr", "changing", "secret");
+        final DtrConnectionPool replacement = DtrConnectionPool.get("http://pooltest:50000/dtr", "changing", "changed");
+
+        assertThat(replacement, not(sameInstance(pool)));
+        assertThat(DtrConnectionPool.get("http://pooltest:50000/dtr", "changing", "changed"), sameInstance(replacement));
+    }
+
+    /**
+     * Test method for {@link DtrConnectionPool#get(String, String, String)}.
+     *
+     * @throws IOException
+     *             not expected, the replaced pool refuses to lease connections
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testReplacedPoolIsShutDown() throws IOException {
+        final DtrConnectionPool pool = DtrConnectionPool.get("http://pooltest:50000/dtr", "replaced", "secret");
+        DtrConnectionPool.get("http://pooltest:50000/dtr", "replaced", "changed");
+
+        pool.getHttpClient().execute(new HttpGet("http://pooltest:50000/dtr"));
+    }
+
+    /**
+     * Test method for {@link DtrConnectionPool#shutdownAll()}.
+     *
+     * @throws IOException
+     *             not expected, the shut down pool refuses to lease connections
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testShutdownAllShutsDownPools() throws IOException {
+        final DtrConnectionPool pool = DtrConnectionPool.get("http://pooltest:50000/dtr", "terminating", "secret");
+        DtrConnectionPool.shutdownAll();
+
+        assertThat(DtrConnectionPool.get("http://pooltest:50000/dtr", "terminating", "secret"), not(sameInstance(pool)));
+        pool.getHttpClient().execute(new HttpGet("http://pooltest:50000/dtr"));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link DtrResponseStream}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class DtrResponseStreamTest {
+    /**
+     * Closing the stream releases the response exactly once.
+     *
+     * @throws IOException
+     *             should not happen when reading from a byte array.
+     */
+    @Test
+    public void testCloseReleasesResponse() throws IOException {
+        final int[] released = new int[1];
+        final DtrResponseStream stream = new DtrResponseStream(new ByteArrayInputStream(new byte[] { 'a' }), new Closeable() {
+            public void close() {
+                released[0]++;
+            }
+        });
+
+        assertThat(stream.read(), is(equalTo((int)'a')));
+        stream.close();
+        stream.close();
+
+        assertThat(released[0], is(equalTo(1)));
+    }
+
+    /**
+     * Closing the stream aborts the response without reading its remainder when the reader stopped early.
+     *
+     * @throws IOException
+     *             should not happen when reading from a byte array.
+     */
+    @Test
+    public void testCloseAbortsResponse() throws IOException {
+        final ByteArrayInputStream content = new ByteArrayInputStream(new byte[] { 'a', 'b', 'c' });
+        final int[] remaining = new int[] { -1 };
+        final DtrResponseStream stream = new DtrResponseStream(content, new Closeable() {
+            public void close() {
+                remaining[0] = content.available();
+            }
+        });
+
+        assertThat(stream.read(), is(equalTo((int)'a')));
+        stream.close();
+
+        assertThat(remaining[0], is(equalTo(2)));
+    }
+
+    /**
+     * Closing the stream deletes the spooled content.
+     *
+     * @throws IOException
+     *             when the temporary file could not be written.
+     */
+    @Test
+    public void testCloseDeletesSpoolFile() throws IOException {
+        final File spoolFile = File.createTempFile("dtr", ".htm");
+        final FileOutputStream out = new FileOutputStream(spoolFile);
+        out.write('a');
+        out.close();
+
+        final DtrResponseStream stream = new DtrResponseStream(new FileInputStream(spoolFile), spoolFile);
+
+        assertThat(stream.read(), is(equalTo((int)'a')));
+        stream.close();
+
+        assertThat(spoolFile.exists(), is(false));
+    }
+}
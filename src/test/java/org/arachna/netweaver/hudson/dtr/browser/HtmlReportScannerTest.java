@@ -0,0 +1,127 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link HtmlReportScanner}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class HtmlReportScannerTest {
+    /**
+     * rows reported by the scanner.
+     */
+    private List<HtmlTableRow> rows;
+
+    /**
+     * link texts reported by the scanner.
+     */
+    private List<String> links;
+
+    /**
+     * Set up handler state.
+     */
+    @Before
+    public void setUp() {
+        rows = new ArrayList<HtmlTableRow>();
+        links = new ArrayList<String>();
+    }
+
+    /**
+     * Scan the given HTML.
+     *
+     * @param html
+     *            the HTML to scan.
+     * @throws IOException
+     *             should not happen when reading from a string.
+     */
+    private void scan(final String html) throws IOException {
+        new HtmlReportScanner(new HtmlReportHandler() {
+            public void link(final String href, final String text) {
+                links.add(href + "|" + text);
+            }
+
+            public void row(final HtmlTableRow row) {
+                rows.add(row);
+            }
+        }).scan(new StringReader(html));
+    }
+
+    /**
+     * Header cells are skipped and white space inside cells is collapsed.
+     *
+     * @throws IOException
+     *             should not happen when reading from a string.
+     */
+    @Test
+    public void testHeaderCellsAreSkippedAndWhitespaceIsCollapsed() throws IOException {
+        scan("<table><tr><th>Name</th><th>Value</th></tr><tr><td>  a\n\t b </td><td>c</td></tr></table>");
+
+        assertThat(rows, hasSize(2));
+        assertThat(rows.get(0).size(), is(equalTo(0)));
+        assertThat(rows.get(1).getCell(0).getText(), is(equalTo("a b")));
+        assertThat(rows.get(1).getCell(1).getText(), is(equalTo("c")));
+    }
+
+    /**
+     * Rows of nested tables are reported separately and their text is not part of the enclosing cell.
+     *
+     * @throws IOException
+     *             should not happen when reading from a string.
+     */
+    @Test
+    public void testNestedTables() throws IOException {
+        scan("<hr><table><tr><td>outer<table><tr><td>inner</td></tr></table></td></tr></table>");
+
+        assertThat(rows, hasSize(2));
+        assertThat(rows.get(0).getTableDepth(), is(equalTo(2)));
+        assertThat(rows.get(0).getCell(0).getText(), is(equalTo("inner")));
+        assertThat(rows.get(1).getTableDepth(), is(equalTo(1)));
+        assertThat(rows.get(1).isAfterRule(), is(true));
+        assertThat(rows.get(1).getCell(0).getText(), is(equalTo("outer")));
+    }
+
+    /**
+     * Unclosed cells and rows are closed implicitly.
+     *
+     * @throws IOException
+     *             should not happen when reading from a string.
+     */
+    @Test
+    public void testUnclosedCellsAndRows() throws IOException {
+        scan("<TABLE><TR><TD>1<TD>2<TR><TD>3</TABLE>");
+
+        assertThat(rows, hasSize(2));
+        assertThat(rows.get(0).size(), is(equalTo(2)));
+        assertThat(rows.get(1).getCell(0).getText(), is(equalTo("3")));
+    }
+
+    /**
+     * Links are reported with decoded targets; entities in text are replaced and unknown ones left alone.
+     *
+     * @throws IOException
+     *             should not happen when reading from a string.
+     */
+    @Test
+    public void testLinksAndEntities() throws IOException {
+        scan("<!-- <a href='x'>comment</a> --><p><a\n href=\"/a?x=1&amp;y=2&path=/vh/1\">&lt;Empty&gt; &unknown;</a>"
+            + "<script>document.write('<a href=\"y\">script</a>');</script>");
+
+        assertThat(links, contains("/a?x=1&y=2&path=/vh/1|<Empty> &unknown;"));
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.dtr.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link ResourceDetailsCache}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class ResourceDetailsCacheTest {
+    /**
+     * URL of DTR server the resources are read from.
+     */
+    private static final String DTR_URL = "http://dtr:50000";
+
+    /**
+     * file backing the cache under test.
+     */
+    private File cacheFile;
+
+    /**
+     * Create a temporary file for the cache.
+     *
+     * @throws IOException
+     *             when the temporary file could not be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        cacheFile = File.createTempFile("resource-details", ".cache");
+        cacheFile.delete();
+    }
+
+    /**
+     * Remove the temporary file.
+     */
+    @After
+    public void tearDown() {
+        cacheFile.delete();
+        cacheFile = null;
+    }
+
+    /**
+     * Create a resource with the given id.
+     *
+     * @param id
+     *            id of resource.
+     * @return the created resource.
+     */
+    private ActivityResource createResource(final String id) {
+        return new ActivityResource(new Activity("", new Principal(""), "", new Date()), new DevelopmentComponent("", ""), "", id);
+    }
+
+    /**
+     * Cached details are restored from the cache file by a new cache instance.
+     */
+    @Test
+    public void testDetailsArePersisted() {
+        final ActivityResource resource = createResource("a/b");
+        resource.setCreationDate(new Date(1000));
+        resource.setLastModified(new Date(2000));
+        resource.setSequenceNumber(Integer.valueOf(3));
+        resource.setDeleted(Boolean.TRUE);
+
+        final ResourceDetailsCache cache = new ResourceDetailsCache(cacheFile, 10);
+        cache.put(DTR_URL, resource);
+        cache.flush();
+
+        final ActivityResource cached = createResource("a/b");
+        assertThat(new ResourceDetailsCache(cacheFile, 10).update(DTR_URL, cached), is(true));
+        assertThat(cached.getCreationDate(), is(equalTo(new Date(1000))));
+        assertThat(cached.getLastModified(), is(equalTo(new Date(2000))));
+        assertThat(cached.getSequenceNumber(), is(equalTo(Integer.valueOf(3))));
+        assertThat(cached.isDeleted(), is(Boolean.TRUE));
+    }
+
+    /**
+     * Unknown resources are not found in the cache.
+     */
+    @Test
+    public void testUnknownResourceIsNotFound() {
+        assertThat(new ResourceDetailsCache(cacheFile, 10).update(DTR_URL, createResource("unknown")), is(false));
+    }
+
+    /**
+     * The least recently used entries are evicted when the cache is full and the file is compacted accordingly.
+     */
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        final ResourceDetailsCache cache = new ResourceDetailsCache(cacheFile, 2);
+
+        for (int i = 0; i < 6; i++) {
+            cache.put(DTR_URL, createResource(String.valueOf(i)));
+            cache.update(DTR_URL, createResource("0"));
+            cache.flush();
+        }
+
+        final ResourceDetailsCache reloaded = new ResourceDetailsCache(cacheFile, 2);
+        assertThat(reloaded.size(), is(equalTo(2)));
+        assertThat(reloaded.update(DTR_URL, createResource("0")), is(true));
+        assertThat(reloaded.update(DTR_URL, createResource("5")), is(true));
+    }
+
+    /**
+     * Resources with the same id read from different DTR servers do not share cached details.
+     */
+    @Test
+    public void testResourcesOfDifferentServersDoNotCollide() {
+        final ResourceDetailsCache cache = new ResourceDetailsCache(cacheFile, 10);
+        cache.put(DTR_URL, createResource("a/b"));
+        cache.flush();
+
+        final ResourceDetailsCache reloaded = new ResourceDetailsCache(cacheFile, 10);
+        assertThat(reloaded.update(DTR_URL + "/", createResource("a/b")), is(true));
+        assertThat(reloaded.update("http://other:50000", createResource("a/b")), is(false));
+    }
+}
@@ -7,6 +7,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -116,4 +119,55 @@ public final class ResourceDetailsParserTest {
 
         assertThat(this.resource.getSequenceNumber(), is(equalTo(Integer.valueOf(1))));
     }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.hudson.dtr.browser.ResourceDetailsParser#isParsed()} .
+     */
+    @Test
+    public void testIsParsed() {
+        this.parser.parse(this.getResourceDetailsPage("ResourceDetails1.html"));
+
+        assertThat(this.parser.isParsed(), is(true));
+    }
+
+    /**
+     * Test method for {@link org.arachna.netweaver.hudson.dtr.browser.ResourceDetailsParser#isParsed()} .
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testIsNotParsedWithMalformedDate() throws IOException {
+        final String page = readPage("ResourceDetails1.html").replace("12.01.2011 11:58:31 GMT", "not a date");
+        this.parser.parse(new ByteArrayInputStream(page.getBytes("ISO-8859-1")));
+
+        assertThat(this.parser.isParsed(), is(false));
+    }
+
+    /**
+     * Read the given resource details page.
+     * 
+     * @param pageName
+     *            name of page.
+     * @return content of page.
+     * @throws IOException
+     *             when reading the page fails
+     */
+    private String readPage(final String pageName) throws IOException {
+        final InputStream page = getResourceDetailsPage(pageName);
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        try {
+            final byte[] buffer = new byte[4096];
+            int read;
+
+            while ((read = page.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        }
+        finally {
+            page.close();
+        }
+
+        return content.toString("ISO-8859-1");
+    }
 }
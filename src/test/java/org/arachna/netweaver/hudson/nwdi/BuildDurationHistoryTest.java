@@ -0,0 +1,151 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import hudson.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link BuildDurationHistory}.
+ *
+ * @author Dirk Weigenand
+ */
+public class BuildDurationHistoryTest {
+    /**
+     * vendor of development components.
+     */
+    private static final String EXAMPLE_ORG = "example.org";
+
+    /**
+     * the folder containing the history file.
+     */
+    private File testDirectory;
+
+    /**
+     * the history file.
+     */
+    private File file;
+
+    /**
+     * a development component.
+     */
+    private DevelopmentComponent first;
+
+    /**
+     * another development component.
+     */
+    private DevelopmentComponent second;
+
+    /**
+     * a development component without recorded build duration.
+     */
+    private DevelopmentComponent unknown;
+
+    /**
+     * Set up fixture.
+     *
+     * @throws IOException
+     *             when creating the test folder fails.
+     */
+    @Before
+    public void setUp() throws IOException {
+        testDirectory = Util.createTempDir();
+        file = new File(testDirectory, BuildDurationHistory.FILE_NAME);
+
+        final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+        first = dcFactory.create(EXAMPLE_ORG, "first");
+        second = dcFactory.create(EXAMPLE_ORG, "second");
+        unknown = dcFactory.create(EXAMPLE_ORG, "unknown");
+    }
+
+    /**
+     * Clean up fixture.
+     *
+     * @throws IOException
+     *             when deleting the test folder fails.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Util.deleteRecursive(testDirectory);
+    }
+
+    /**
+     * A reported duration is smoothed with the recorded one.
+     */
+    @Test
+    public void testRecordSmoothesDurations() {
+        final BuildDurationHistory history = new BuildDurationHistory(file);
+        history.record(durations(1000L, 3000L));
+        history.record(durations(3000L, 3000L));
+
+        assertThat(history.getDuration(first), equalTo(Long.valueOf(2000L)));
+        assertThat(history.getDuration(second), equalTo(Long.valueOf(3000L)));
+        assertThat(history.getDuration(unknown), nullValue());
+    }
+
+    /**
+     * Development components without a recorded duration are estimated using the mean of the recorded durations.
+     */
+    @Test
+    public void testEstimateUsesMeanForUnknownComponents() {
+        final BuildDurationHistory history = new BuildDurationHistory(file);
+
+        assertThat(history.estimate(Arrays.asList(first, unknown)).isEmpty(), equalTo(true));
+
+        history.record(durations(1000L, 3000L));
+        final Map<DevelopmentComponent, Long> estimates = history.estimate(Arrays.asList(first, second, unknown));
+
+        assertThat(estimates.get(first), equalTo(Long.valueOf(1000L)));
+        assertThat(estimates.get(unknown), equalTo(Long.valueOf(2000L)));
+    }
+
+    /**
+     * A saved history is read by a new instance, no temporary files are left behind.
+     */
+    @Test
+    public void testSavedHistoryIsLoaded() {
+        final BuildDurationHistory history = new BuildDurationHistory(file);
+        history.record(durations(1000L, 3000L));
+        history.save();
+        history.record(durations(3000L, 3000L));
+        history.save();
+
+        final BuildDurationHistory loaded = new BuildDurationHistory(file);
+        assertThat(loaded.getDuration(first), equalTo(Long.valueOf(2000L)));
+        assertThat(loaded.getDuration(second), equalTo(Long.valueOf(3000L)));
+        assertThat(Arrays.asList(testDirectory.list()), contains(BuildDurationHistory.FILE_NAME));
+    }
+
+    /**
+     * Create build durations for {@link #first} and {@link #second}.
+     *
+     * @param firstDuration
+     *            build duration of {@link #first}.
+     * @param secondDuration
+     *            build duration of {@link #second}.
+     * @return build durations mapped by development component.
+     */
+    private Map<DevelopmentComponent, Long> durations(final long firstDuration, final long secondDuration) {
+        final Map<DevelopmentComponent, Long> durations = new HashMap<DevelopmentComponent, Long>();
+        durations.put(first, Long.valueOf(firstDuration));
+        durations.put(second, Long.valueOf(secondDuration));
+
+        return durations;
+    }
+}
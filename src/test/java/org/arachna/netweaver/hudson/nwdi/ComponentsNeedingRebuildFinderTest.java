@@ -103,4 +103,23 @@ public class ComponentsNeedingRebuildFinderTest {
         assertThat(result, hasItems(expected));
         assertThat(result, hasSize(expected.length));
     }
+
+    /**
+     * Test method for {@link ComponentsNeedingRebuildFinder#calculateDevelopmentComponentsThatNeedRebuilding(java.util.Collection)} using
+     * a {@link org.arachna.netweaver.dc.types.DevelopmentComponentGraph}.
+     */
+    @Test
+    public final void testCalculateDevelopmentComponentsThatNeedRebuildingUsingGraph() {
+        final DevelopmentComponent libJunit =
+            this.dcFactory.get(ExampleDevelopmentComponentFactory.EXAMPLE_COM, ExampleDevelopmentComponentFactory.LIB_JUNIT);
+        final DevelopmentComponent libJetm =
+            this.dcFactory.get(ExampleDevelopmentComponentFactory.EXAMPLE_COM, ExampleDevelopmentComponentFactory.LIB_JETM);
+        final Collection<DevelopmentComponent> expected =
+            this.finder.calculateDevelopmentComponentsThatNeedRebuilding(Arrays.asList(new DevelopmentComponent[] { libJunit, libJetm }));
+        final Collection<DevelopmentComponent> result =
+            new ComponentsNeedingRebuildFinder(this.dcFactory.createGraph())
+                .calculateDevelopmentComponentsThatNeedRebuilding(Arrays.asList(new DevelopmentComponent[] { libJunit, libJetm }));
+
+        assertThat(result, equalTo(expected));
+    }
 }
@@ -0,0 +1,215 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.arachna.ant.AntHelper;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link ContentHashNeedsRebuildCalculator} and {@link BuildOutputStore}.
+ *
+ * @author Dirk Weigenand
+ */
+public class ContentHashNeedsRebuildCalculatorTest {
+    /**
+     * vendor of development components.
+     */
+    private static final String EXAMPLE_ORG = "example.org";
+
+    /**
+     * the folder used for testing.
+     */
+    private File testDirectory;
+
+    /**
+     * development component used by {@link #user}.
+     */
+    private DevelopmentComponent used;
+
+    /**
+     * development component using {@link #used}.
+     */
+    private DevelopmentComponent user;
+
+    /**
+     * the calculator under test.
+     */
+    private ContentHashNeedsRebuildCalculator calculator;
+
+    /**
+     * Create a workspace containing the development components {@link #used} and {@link #user}.
+     *
+     * @throws IOException
+     *             when creating the workspace fails.
+     */
+    @Before
+    public void setUp() throws IOException {
+        testDirectory = Util.createTempDir();
+
+        final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+        used = dcFactory.create(EXAMPLE_ORG, "used");
+        user = dcFactory.create(EXAMPLE_ORG, "user");
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+
+        write("used/_comp/.dcdef", "<development-component/>");
+        writeJar("used/_comp/gen/default/public/api/lib/java/api.jar", "Api.class", "api", 1000L);
+        write("user/_comp/.dcdef", "<development-component/>");
+        write("user/_comp/src/packages/User.java", "class User {}");
+        write("user/_comp/gen/default/logs/build.xml", "<project name=\"DC Build\"/>");
+
+        calculator =
+            new ContentHashNeedsRebuildCalculator(new AntHelper(testDirectory.getAbsolutePath(), dcFactory), dcFactory,
+                new BuildOutputStore(new File(testDirectory, BuildOutputStore.FOLDER_NAME)));
+    }
+
+    /**
+     * Clean up fixture.
+     *
+     * @throws IOException
+     *             when deleting the workspace fails.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Util.deleteRecursive(testDirectory);
+    }
+
+    /**
+     * The build outputs of a development component whose build inputs did not change are restored instead of building it.
+     *
+     * @throws IOException
+     *             when accessing the workspace fails.
+     */
+    @Test
+    public void testUnchangedComponentIsRestored() throws IOException {
+        assertThat(calculator.filter(Arrays.asList(user)), contains(user));
+        calculator.store(Arrays.asList(user));
+
+        final File buildXml = file("user/_comp/gen/default/logs/build.xml");
+        Util.deleteRecursive(buildXml.getParentFile());
+
+        assertThat(calculator.filter(Arrays.asList(user)), empty());
+        assertThat(buildXml.isFile(), equalTo(true));
+        assertThat(calculator.getRestored(), contains(user));
+    }
+
+    /**
+     * Changes to sources and the contents of used public parts change the hash, time stamps of archive entries and build outputs do not.
+     *
+     * @throws IOException
+     *             when accessing the workspace fails.
+     */
+    @Test
+    public void testHashOfBuildInputs() throws IOException {
+        final String hash = calculator.calculateHash(user);
+
+        write("user/_comp/gen/default/logs/build.xml", "<project name=\"example.org~user\"/>");
+        writeJar("used/_comp/gen/default/public/api/lib/java/api.jar", "Api.class", "api", 2000L);
+        assertThat(calculator.calculateHash(user), equalTo(hash));
+
+        writeJar("used/_comp/gen/default/public/api/lib/java/api.jar", "Api.class", "changed api", 2000L);
+        final String changedApi = calculator.calculateHash(user);
+        assertThat(changedApi, not(equalTo(hash)));
+
+        write("user/_comp/src/packages/User.java", "class User { }");
+        assertThat(calculator.calculateHash(user), not(equalTo(changedApi)));
+    }
+
+    /**
+     * Returns the file with the given path in the workspace.
+     *
+     * @param path
+     *            path relative to the <code>DCs/example.org</code> folder in the workspace.
+     * @return the file with the given path.
+     */
+    private File file(final String path) {
+        return new File(testDirectory, ".dtc/DCs/" + EXAMPLE_ORG + '/' + path);
+    }
+
+    /**
+     * Write the given content to the file with the given path.
+     *
+     * @param path
+     *            path relative to the <code>DCs/example.org</code> folder in the workspace.
+     * @param content
+     *            content to write.
+     * @throws IOException
+     *             when writing the file fails.
+     */
+    private void write(final String path, final String content) throws IOException {
+        final OutputStream output = open(path);
+
+        try {
+            output.write(content.getBytes(Charset.forName("UTF-8")));
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Write a jar file containing one entry to the file with the given path.
+     *
+     * @param path
+     *            path relative to the <code>DCs/example.org</code> folder in the workspace.
+     * @param entryName
+     *            name of the entry.
+     * @param content
+     *            content of the entry.
+     * @param time
+     *            time stamp of the entry.
+     * @throws IOException
+     *             when writing the file fails.
+     */
+    private void writeJar(final String path, final String entryName, final String content, final long time) throws IOException {
+        final ZipOutputStream jar = new ZipOutputStream(open(path));
+
+        try {
+            final ZipEntry entry = new ZipEntry(entryName);
+            entry.setTime(time);
+            jar.putNextEntry(entry);
+            jar.write(content.getBytes(Charset.forName("UTF-8")));
+            jar.closeEntry();
+        }
+        finally {
+            jar.close();
+        }
+    }
+
+    /**
+     * Open the file with the given path for writing, creating its parent folders.
+     *
+     * @param path
+     *            path relative to the <code>DCs/example.org</code> folder in the workspace.
+     * @return stream writing to the file.
+     * @throws IOException
+     *             when opening the file fails.
+     */
+    private OutputStream open(final String path) throws IOException {
+        final File file = file(path);
+        file.getParentFile().mkdirs();
+
+        return new FileOutputStream(file);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CriticalPathScheduler}.
+ *
+ * @author Dirk Weigenand
+ */
+public class CriticalPathSchedulerTest {
+    /**
+     * A development component starting a long chain of dependent builds is scheduled before a development component taking longer to
+     * build on its own.
+     */
+    @Test
+    public void longestRemainingPathFirst() {
+        final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+        final DevelopmentComponent single = dcFactory.create("example.org", "single");
+        final DevelopmentComponent first = dcFactory.create("example.org", "first");
+        final DevelopmentComponent second = dcFactory.create("example.org", "second");
+        final DevelopmentComponent third = dcFactory.create("example.org", "third");
+        first.addUsingDC(second);
+        second.addUsingDC(third);
+
+        final Map<DevelopmentComponent, Long> durations = new HashMap<DevelopmentComponent, Long>();
+        durations.put(single, 5L);
+        durations.put(first, 2L);
+        durations.put(second, 2L);
+        durations.put(third, 2L);
+
+        final CriticalPathScheduler scheduler = new CriticalPathScheduler(durations);
+        @SuppressWarnings("unchecked")
+        final List<List<DevelopmentComponent>> waves =
+            scheduler.schedule(Arrays.asList(Arrays.asList(single, first), Arrays.asList(second), Arrays.asList(third)));
+
+        assertThat(waves.get(0), is(equalTo(Arrays.asList(first, single))));
+        assertThat(scheduler.getRemainingPath(first), is(equalTo(6L)));
+        assertThat(scheduler.getRemainingPath(single), is(equalTo(5L)));
+    }
+
+    /**
+     * Without estimated durations the order of the development components is kept.
+     */
+    @Test
+    public void orderIsKeptWithoutEstimates() {
+        final DevelopmentComponentFactory dcFactory = new DevelopmentComponentFactory();
+        final DevelopmentComponent first = dcFactory.create("example.org", "first");
+        final DevelopmentComponent second = dcFactory.create("example.org", "second");
+
+        @SuppressWarnings("unchecked")
+        final List<List<DevelopmentComponent>> waves =
+            new CriticalPathScheduler(new HashMap<DevelopmentComponent, Long>()).schedule(Arrays.asList(Arrays.asList(first, second)));
+
+        assertThat(waves.get(0), is(equalTo(Arrays.asList(first, second))));
+    }
+}
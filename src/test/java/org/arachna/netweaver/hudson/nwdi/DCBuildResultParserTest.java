@@ -5,7 +5,10 @@ package org.arachna.netweaver.hudson.nwdi;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import hudson.Util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 
@@ -14,6 +17,7 @@ import org.arachna.netweaver.dc.types.CompartmentState;
 import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.hudson.nwdi.DCBuildResultParser.BuildResults;
+import org.arachna.netweaver.tools.DIToolOutputStream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -68,6 +72,48 @@ public class DCBuildResultParserTest {
         assertThat(results.hasBuildErrors(), equalTo(true));
     }
 
+    /**
+     * The execution time reported after a DC build is recorded as build duration of the DC.
+     */
+    @Test
+    public void testBuildDurations() {
+        final BuildResults results = buildResultParser.parse(getBuildResultText("DCBuildResultWithBuildErrors.txt"));
+        final Compartment compartment = config.getCompartment("example.org_EXAMPLE_SC_1");
+
+        assertThat(results.getBuildDurations().size(), equalTo(3));
+        assertThat(results.getBuildDurations().get(compartment.getDevelopmentComponent("sc/example_sc_description")), equalTo(752L));
+        assertThat(results.getBuildDurations().get(compartment.getDevelopmentComponent("example/dc1")), equalTo(528L));
+        assertThat(results.getBuildDurations().get(compartment.getDevelopmentComponent("example/dc2")), equalTo(1357L));
+    }
+
+    /**
+     * Build results are the same when the build log is pushed line by line while the DC tool is running and only a short tail of it is
+     * kept in memory.
+     * 
+     * @throws IOException
+     *             when reading the build log fails.
+     */
+    @Test
+    public void testStreamingBuildLog() throws IOException {
+        final DIToolOutputStream output = new DIToolOutputStream(null, 100);
+        output.addConsumer(buildResultParser);
+        final InputStream buildLog =
+            this.getClass().getResourceAsStream("/org/arachna/netweaver/hudson/nwdi/DCBuildResultWithBuildErrors.txt");
+
+        try {
+            Util.copyStream(buildLog, output);
+        }
+        finally {
+            buildLog.close();
+            output.close();
+        }
+
+        final BuildResults results = buildResultParser.getBuildResults();
+        assertThat(results.hasBuildErrors(), equalTo(true));
+        assertThat(results.getBuildDurations().size(), equalTo(3));
+        assertThat(output.getTail().length(), equalTo(100));
+    }
+
     /**
      * @return
      */
@@ -0,0 +1,51 @@
+/**
+ *
+ */
+package org.arachna.netweaver.hudson.nwdi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link NWDIRevisionState}.
+ *
+ * @author Dirk Weigenand
+ */
+public class NWDIRevisionStateTest {
+    /**
+     * name of a compartment.
+     */
+    private static final String COMPARTMENT = "example.org_EXAMPLE_1";
+
+    /**
+     * name of another compartment.
+     */
+    private static final String OTHER_COMPARTMENT = "example.org_OTHER_1";
+
+    /**
+     * The integration sequence numbers of the previous state are carried forward into the state of a checkout, newer integration sequence
+     * numbers determined by the checkout are added.
+     */
+    @Test
+    public void testMergeKeepsHighestIntegrationSequenceNumbers() {
+        final NWDIRevisionState previous = new NWDIRevisionState(Collections.singletonMap(COMPARTMENT, Integer.valueOf(5)));
+
+        assertThat(previous.merge(Collections.<String, Integer> emptyMap()).getIntegrationSequenceNumbers(),
+            equalTo(previous.getIntegrationSequenceNumbers()));
+
+        final Map<String, Integer> determined = new HashMap<String, Integer>();
+        determined.put(COMPARTMENT, Integer.valueOf(3));
+        determined.put(OTHER_COMPARTMENT, Integer.valueOf(7));
+
+        final Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put(COMPARTMENT, Integer.valueOf(5));
+        expected.put(OTHER_COMPARTMENT, Integer.valueOf(7));
+        assertThat(previous.merge(determined).getIntegrationSequenceNumbers(), equalTo(expected));
+    }
+}
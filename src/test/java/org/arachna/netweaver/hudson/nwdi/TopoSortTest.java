@@ -2,11 +2,15 @@ package org.arachna.netweaver.hudson.nwdi;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.arachna.netweaver.dc.config.DevelopmentConfigurationReader;
 import org.arachna.netweaver.dc.types.Compartment;
@@ -160,6 +164,89 @@ public class TopoSortTest {
         assertThat(result.getCircularDependencies(), empty());
     }
 
+    /**
+     * A long chain of dependencies is sorted in order of its dependencies.
+     */
+    @Test
+    public void longChainOfDCs() {
+        final List<DevelopmentComponent> chain = new ArrayList<DevelopmentComponent>();
+
+        for (int i = 0; i < 5000; i++) {
+            final DevelopmentComponent component = dcFactory.create("example.org", "dc" + i, DevelopmentComponentType.Java);
+            sourceCompartment.add(component);
+
+            if (i > 0) {
+                component.add(new PublicPartReference("example.org", "dc" + (i - 1)));
+            }
+
+            chain.add(component);
+        }
+
+        final TopoSortResult result = sort(chain.get(0));
+        assertThat(new ArrayList<DevelopmentComponent>(result.getDevelopmentComponents()), is(equalTo(chain)));
+        assertThat(result.getCircularDependencies(), empty());
+    }
+
+    /**
+     * Independent DCs are grouped into the same wave, DCs using others into later waves.
+     */
+    @Test
+    public void wavesOfFourDCs() {
+        final DevelopmentComponent one = dcFactory.create("example.org", "one", DevelopmentComponentType.Java);
+        sourceCompartment.add(one);
+
+        final DevelopmentComponent two = dcFactory.create("example.org", "two", DevelopmentComponentType.Java);
+        sourceCompartment.add(two);
+
+        final DevelopmentComponent three = dcFactory.create("example.org", "three", DevelopmentComponentType.Java);
+        sourceCompartment.add(three);
+        three.add(new PublicPartReference("example.org", "one"));
+        three.add(new PublicPartReference("example.org", "two"));
+
+        final DevelopmentComponent four = dcFactory.create("example.org", "four", DevelopmentComponentType.Java);
+        sourceCompartment.add(four);
+        four.add(new PublicPartReference("example.org", "three"));
+        four.add(new PublicPartReference("example.org", "one"));
+
+        final TopoSortResult result = sort(one, two);
+        assertThat(result.getCriticalPathLength(), is(equalTo(3)));
+        assertThat(result.getMaximumWaveWidth(), is(equalTo(2)));
+        assertThat(result.getWaves().get(0), hasItems(one, two));
+        assertThat(result.getWaves().get(1), hasItem(three));
+        assertThat(result.getWaves().get(2), hasItem(four));
+    }
+
+    /**
+     * A cluster of DCs depending on each other is reported once with all its members.
+     */
+    @Test
+    public void cycleOfThreeDCs() {
+        final DevelopmentComponent one = dcFactory.create("example.org", "one", DevelopmentComponentType.Java);
+        sourceCompartment.add(one);
+        one.add(new PublicPartReference("example.org", "three"));
+
+        final DevelopmentComponent two = dcFactory.create("example.org", "two", DevelopmentComponentType.Java);
+        sourceCompartment.add(two);
+        two.add(new PublicPartReference("example.org", "one"));
+
+        final DevelopmentComponent three = dcFactory.create("example.org", "three", DevelopmentComponentType.Java);
+        sourceCompartment.add(three);
+        three.add(new PublicPartReference("example.org", "two"));
+
+        final DevelopmentComponent four = dcFactory.create("example.org", "four", DevelopmentComponentType.Java);
+        sourceCompartment.add(four);
+        four.add(new PublicPartReference("example.org", "one"));
+
+        final TopoSortResult result = sort(one);
+        assertThat(result.getDevelopmentComponents(), empty());
+        assertThat(result.getDependencyCycles().size(), is(equalTo(1)));
+        assertThat(result.getDependencyCycles().iterator().next().getComponents(), hasItems(one, two, three));
+        assertThat(result.getDependencyCycles().iterator().next().getComponents().size(), is(equalTo(3)));
+        assertThat(result.getCircularDependencies(),
+            hasItems(new CircularDependency(one, two), new CircularDependency(two, three), new CircularDependency(three, one)));
+        assertThat(result.hasCircularDependency(four), is(equalTo(false)));
+    }
+
     /*@Test
     public void testXXX() {
         DevelopmentConfigurationReader reader = new DevelopmentConfigurationReader(this.dcFactory);
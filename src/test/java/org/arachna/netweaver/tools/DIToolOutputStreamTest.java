@@ -0,0 +1,167 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link DIToolOutputStream}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DIToolOutputStreamTest {
+    /**
+     * lines pushed by the stream under test.
+     */
+    private final List<String> lines = new ArrayList<String>();
+
+    /**
+     * file the output is spilled to.
+     */
+    private File spillFile;
+
+    /**
+     * Create the spill file.
+     *
+     * @throws IOException
+     *             when the spill file could not be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        spillFile = File.createTempFile("dctool-", ".log");
+    }
+
+    /**
+     * Delete the spill file.
+     */
+    @After
+    public void tearDown() {
+        spillFile.delete();
+    }
+
+    /**
+     * Lines split across writes are pushed when complete, line terminators are removed and the last unterminated line is pushed on close.
+     *
+     * @throws IOException
+     *             when writing to the stream fails.
+     */
+    @Test
+    public void testLinesArePushedToConsumers() throws IOException {
+        final DIToolOutputStream output = createOutputStream(1024);
+
+        write(output, "dc>Build of DC ");
+        assertThat(lines, hasSize(0));
+
+        write(output, "\"example/dc1\"\r\nExecution time: 528 [ms]\ndc>");
+        assertThat(lines, contains("dc>Build of DC \"example/dc1\"", "Execution time: 528 [ms]"));
+
+        output.close();
+        assertThat(lines, hasSize(3));
+        assertThat(lines.get(2), equalTo("dc>"));
+    }
+
+    /**
+     * Only the tail of the output is kept in memory while the complete raw output is spilled to disk.
+     *
+     * @throws IOException
+     *             when writing to the stream fails.
+     */
+    @Test
+    public void testTailIsBoundedAndOutputIsSpilled() throws IOException {
+        final DIToolOutputStream output = createOutputStream(10);
+        final StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            final String line = String.format("line %d\n", i);
+            expected.append(line);
+            write(output, line);
+        }
+
+        output.close();
+
+        assertThat(lines, hasSize(100));
+        assertThat(output.getTail(), equalTo("8\nline 99\n"));
+
+        final DIToolCommandExecutionResult result = output.toResult(0);
+        assertThat(result.getOutput(), equalTo("8\nline 99\n"));
+        assertThat(read(result.getOutputFile()), equalTo(expected.toString()));
+    }
+
+    /**
+     * Create a stream spilling to {@link #spillFile} and pushing lines to {@link #lines}.
+     *
+     * @param tailSize
+     *            number of characters kept in memory.
+     * @return the stream.
+     * @throws IOException
+     *             when the spill file could not be opened.
+     */
+    private DIToolOutputStream createOutputStream(final int tailSize) throws IOException {
+        final DIToolOutputStream output = new DIToolOutputStream(spillFile, tailSize);
+        output.addConsumer(new DIToolOutputConsumer() {
+            @Override
+            public void consume(final String line) {
+                lines.add(line);
+            }
+        });
+
+        return output;
+    }
+
+    /**
+     * Write the given text to the given stream.
+     *
+     * @param output
+     *            stream to write to.
+     * @param text
+     *            text to write.
+     * @throws IOException
+     *             when writing fails.
+     */
+    private void write(final DIToolOutputStream output, final String text) throws IOException {
+        output.write(text.getBytes(Charset.defaultCharset()));
+    }
+
+    /**
+     * Read the content of the given file.
+     *
+     * @param file
+     *            file to read.
+     * @return content of the given file.
+     * @throws IOException
+     *             when reading fails.
+     */
+    private String read(final File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            final byte[] content = new byte[(int)file.length()];
+            int read = 0;
+
+            while (read < content.length) {
+                read += input.read(content, read, content.length - read);
+            }
+
+            return new String(content, Charset.defaultCharset());
+        }
+        finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link DIToolSessionPool}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DIToolSessionPoolTest {
+    /**
+     * prompt of the simulated tool.
+     */
+    private static final String PROMPT = "cbs>";
+
+    /**
+     * key of pooled sessions.
+     */
+    private static final String KEY = "cbstool|JDK1.6.0_Home|DI0_XMPL_D";
+
+    /**
+     * workspace of pooled sessions.
+     */
+    private static final String WORKSPACE = "/workspace";
+
+    /**
+     * the pool under test.
+     */
+    private DIToolSessionPool pool;
+
+    /**
+     * factory for simulated tools keeping track of the started tools.
+     */
+    private final FakeDIToolFactory factory = new FakeDIToolFactory();
+
+    /**
+     * Terminate pooled sessions.
+     */
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.clear();
+        }
+    }
+
+    /**
+     * The tool is started and logged in once for several executions.
+     *
+     * @throws Exception
+     *             when communicating with the simulated tool fails.
+     */
+    @Test
+    public void testSessionIsReused() throws Exception {
+        pool = new DIToolSessionPool(100, 60000);
+
+        assertThat(execute("listbuildspaces").getOutput(), equalTo("listbuildspaces done\ncbs>"));
+        assertThat(execute("listdcs").getOutput(), equalTo("listdcs done\ncbs>"));
+        assertThat(factory.tools.size(), equalTo(1));
+        assertThat(pool.size(), equalTo(1));
+    }
+
+    /**
+     * A session is recycled after the configured number of commands.
+     *
+     * @throws Exception
+     *             when communicating with the simulated tool fails.
+     */
+    @Test
+    public void testSessionIsRecycledAfterMaxCommands() throws Exception {
+        pool = new DIToolSessionPool(2, 60000);
+
+        execute("listdcs");
+        execute("listdcs");
+        assertThat(pool.size(), equalTo(0));
+
+        execute("listdcs");
+        assertThat(factory.tools.size(), equalTo(2));
+    }
+
+    /**
+     * A terminated tool is replaced with a new one.
+     *
+     * @throws Exception
+     *             when communicating with the simulated tool fails.
+     */
+    @Test
+    public void testTerminatedSessionIsReplaced() throws Exception {
+        pool = new DIToolSessionPool(100, 60000);
+
+        execute("listdcs");
+        factory.tools.get(0).kill();
+
+        assertThat(execute("listdcs").getOutput(), equalTo("listdcs done\ncbs>"));
+        assertThat(factory.tools.size(), equalTo(2));
+    }
+
+    /**
+     * Idle sessions are terminated.
+     *
+     * @throws Exception
+     *             when communicating with the simulated tool fails.
+     */
+    @Test
+    public void testIdleSessionsAreEvicted() throws Exception {
+        pool = new DIToolSessionPool(100, 0);
+
+        execute("listdcs");
+        pool.evictIdleSessions();
+
+        assertThat(pool.size(), equalTo(0));
+        assertThat(factory.tools.get(0).isAlive(), equalTo(false));
+    }
+
+    /**
+     * Execute the given command in the pool under test.
+     *
+     * @param command
+     *            command to execute.
+     * @return result of the command.
+     * @throws IOException
+     *             when communicating with the simulated tool fails.
+     * @throws InterruptedException
+     *             when the test was interrupted.
+     */
+    private DIToolCommandExecutionResult execute(final String command) throws IOException, InterruptedException {
+        return pool.execute(KEY, WORKSPACE, factory, Collections.singletonList(command));
+    }
+
+    /**
+     * Factory for simulated tools.
+     *
+     * @author Dirk Weigenand
+     */
+    private static final class FakeDIToolFactory implements DIToolSessionPool.SessionFactory {
+        /**
+         * the started tools.
+         */
+        private final List<FakeDITool> tools = new ArrayList<FakeDITool>();
+
+        @Override
+        public DIToolSession open() throws IOException, InterruptedException {
+            final FakeDITool tool = new FakeDITool(PROMPT);
+            tools.add(tool);
+            final DIToolSession session = new DIToolSession(tool, PROMPT, "\n", null);
+            session.execute(Collections.singletonList("connect"));
+
+            return session;
+        }
+
+        @Override
+        public String getExitCommand() {
+            return "exit";
+        }
+    }
+}
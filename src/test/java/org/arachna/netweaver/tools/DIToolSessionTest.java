@@ -0,0 +1,112 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link DIToolSession}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DIToolSessionTest {
+    /**
+     * prompt of the simulated tool.
+     */
+    private static final String PROMPT = "dc>";
+
+    /**
+     * the simulated tool.
+     */
+    private FakeDITool tool;
+
+    /**
+     * the session under test.
+     */
+    private DIToolSession session;
+
+    /**
+     * Start a simulated tool and a session reading its output.
+     *
+     * @throws IOException
+     *             when connecting to the simulated tool fails.
+     */
+    @Before
+    public void setUp() throws IOException {
+        tool = new FakeDITool(PROMPT);
+        session = new DIToolSession(tool, PROMPT, "\n", null);
+    }
+
+    /**
+     * Terminate the simulated tool.
+     *
+     * @throws IOException
+     *             when terminating the simulated tool fails.
+     */
+    @After
+    public void tearDown() throws IOException {
+        session.close();
+    }
+
+    /**
+     * Each call to execute returns the output of the commands sent until the tool prompts for the next command.
+     *
+     * @throws Exception
+     *             when communicating with the simulated tool fails.
+     */
+    @Test
+    public void testOutputIsDelimitedByPrompts() throws Exception {
+        DIToolCommandExecutionResult result = session.execute(Arrays.asList("loadconfig", "timing on"));
+        assertThat(result.getOutput(), equalTo("dc>loadconfig done\ndc>timing on done\ndc>"));
+        assertThat(result.getExitCode(), equalTo(0));
+
+        result = session.execute(Collections.singletonList("builddc"));
+        assertThat(result.getOutput(), equalTo("builddc done\ndc>"));
+        assertThat(session.isTerminated(), equalTo(false));
+
+        result = session.exit("exit");
+        assertThat(result.getExitCode(), equalTo(FakeDITool.EXIT_CODE));
+        assertThat(session.isTerminated(), equalTo(true));
+    }
+
+    /**
+     * Prompts are counted at the beginning of lines only, several prompts may follow each other and prompts may be split across reads.
+     */
+    @Test
+    public void testPromptCounter() {
+        final DIToolSession.PromptCounter counter = new DIToolSession.PromptCounter(PROMPT.getBytes(Charset.defaultCharset()));
+
+        count(counter, "dc>dc>Execution time 12 ms\n");
+        assertThat(counter.getPrompts(), equalTo(2));
+
+        count(counter, "source dc>\nd");
+        assertThat(counter.getPrompts(), equalTo(2));
+
+        count(counter, "c>");
+        assertThat(counter.getPrompts(), equalTo(3));
+    }
+
+    /**
+     * Feed the given text into the given counter.
+     *
+     * @param counter
+     *            prompt counter.
+     * @param text
+     *            text read from the tool.
+     */
+    private void count(final DIToolSession.PromptCounter counter, final String text) {
+        final byte[] bytes = text.getBytes(Charset.defaultCharset());
+        counter.count(bytes, bytes.length);
+    }
+}
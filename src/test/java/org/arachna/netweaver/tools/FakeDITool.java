@@ -0,0 +1,111 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools;
+
+import hudson.Proc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * Simulated NWDI tool answering every command with '&lt;command&gt; done' and a prompt.
+ *
+ * @author Dirk Weigenand
+ */
+final class FakeDITool extends Proc {
+    /**
+     * exit code of the simulated tool.
+     */
+    static final int EXIT_CODE = 3;
+
+    /**
+     * stream the commands are written to.
+     */
+    private final PipedOutputStream stdin = new PipedOutputStream();
+
+    /**
+     * stream the output is read from.
+     */
+    private final PipedInputStream stdout = new PipedInputStream();
+
+    /**
+     * thread simulating the tool.
+     */
+    private final Thread thread;
+
+    /**
+     * Start the simulated tool.
+     *
+     * @param prompt
+     *            prompt to print when ready to read the next command.
+     * @throws IOException
+     *             when connecting the pipes fails.
+     */
+    FakeDITool(final String prompt) throws IOException {
+        final BufferedReader commands = new BufferedReader(new InputStreamReader(new PipedInputStream(stdin), Charset.defaultCharset()));
+        final PrintStream output = new PrintStream(new PipedOutputStream(stdout), true);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    output.print(prompt);
+                    String command;
+
+                    while ((command = commands.readLine()) != null && !"exit".equals(command)) {
+                        output.print(command + " done\n" + prompt);
+                    }
+                }
+                catch (final IOException e) {
+                    // terminate
+                }
+                finally {
+                    output.close();
+                }
+            }
+        });
+        thread.start();
+    }
+
+    @Override
+    public boolean isAlive() {
+        return thread.isAlive();
+    }
+
+    @Override
+    public void kill() throws IOException, InterruptedException {
+        thread.interrupt();
+        stdin.close();
+        thread.join();
+    }
+
+    @Override
+    public int join() throws InterruptedException {
+        thread.join();
+
+        return EXIT_CODE;
+    }
+
+    @Override
+    public InputStream getStdout() {
+        return stdout;
+    }
+
+    @Override
+    public InputStream getStderr() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public OutputStream getStdin() {
+        return stdin;
+    }
+}
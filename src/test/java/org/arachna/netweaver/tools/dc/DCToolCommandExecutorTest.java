@@ -3,6 +3,10 @@
  */
 package org.arachna.netweaver.tools.dc;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Util;
@@ -13,9 +17,13 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.arachna.netweaver.dc.types.BuildVariant;
+import org.arachna.netweaver.dc.types.Compartment;
+import org.arachna.netweaver.dc.types.CompartmentState;
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
 import org.arachna.netweaver.dc.types.DevelopmentConfiguration;
 import org.arachna.netweaver.dc.types.JdkHomeAlias;
 import org.arachna.netweaver.dc.types.JdkHomePaths;
@@ -141,6 +149,57 @@ public class DCToolCommandExecutorTest {
         }
     }
 
+    /**
+     * Development components of a wave are distributed round robin across at most the given number of sessions.
+     */
+    @Test
+    public final void testDistribute() {
+        final List<DevelopmentComponent> components = new ArrayList<DevelopmentComponent>();
+
+        for (int i = 0; i < 5; i++) {
+            components.add(new DevelopmentComponent("dc" + i, "example.com"));
+        }
+
+        final List<List<DevelopmentComponent>> partitions = DCToolCommandExecutor.distribute(components, 3);
+        assertThat(partitions, hasSize(3));
+        assertThat(partitions.get(0), contains(components.get(0), components.get(3)));
+        assertThat(partitions.get(1), contains(components.get(1), components.get(4)));
+        assertThat(partitions.get(2), contains(components.get(2)));
+
+        assertThat(DCToolCommandExecutor.distribute(components.subList(0, 2), 3), hasSize(2));
+    }
+
+    /**
+     * Waves are built in one dctool run when no filters are given, even when the filters passed are <code>null</code>.
+     *
+     * @throws IOException
+     *             when executing the dctool fails.
+     * @throws InterruptedException
+     *             when executing the dctool was interrupted.
+     */
+    @Test
+    public final void testBuildWavesWithNullFiltersInOneRun() throws IOException, InterruptedException {
+        final FilePath dctoolSh = new FilePath(testDirectory).child("dc/dctool.sh");
+        dctoolSh.write("#!/bin/sh\necho run >> runs.out", UTF_8);
+        dctoolSh.chmod(Integer.parseInt("0700", OCTAL));
+
+        final Compartment compartment =
+            new Compartment("example.com_EXAMPLE_SC_1", CompartmentState.Source, "example.com", "", "EXAMPLE_SC");
+        final List<List<DevelopmentComponent>> waves = new ArrayList<List<DevelopmentComponent>>();
+
+        for (int i = 0; i < 2; i++) {
+            final DevelopmentComponent component = new DevelopmentComponent("dc" + i, "example.com");
+            compartment.add(component);
+            final List<DevelopmentComponent> wave = new ArrayList<DevelopmentComponent>();
+            wave.add(component);
+            waves.add(wave);
+        }
+
+        executor.buildDevelopmentComponents(waves, Collections.<DevelopmentComponent, Long> emptyMap(), null, null, null);
+
+        assertThat(new FilePath(testDirectory).child("runs.out").readToString(), equalTo("run\n"));
+    }
+
     /**
      * dummy DCToolCommandBuild used for testing.
      * 
@@ -0,0 +1,116 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools.dc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.arachna.netweaver.dc.types.DevelopmentComponent;
+import org.arachna.netweaver.dc.types.DevelopmentComponentFactory;
+import org.arachna.netweaver.dc.types.PublicPartReference;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit tests for {@link DependentBuildSkipper}.
+ *
+ * @author Dirk Weigenand
+ */
+public class DependentBuildSkipperTest {
+    /**
+     * vendor of development components.
+     */
+    private static final String EXAMPLE_ORG = "example.org";
+
+    /**
+     * registry for development components.
+     */
+    private DevelopmentComponentFactory dcFactory;
+
+    /**
+     * development component used by {@link #user}.
+     */
+    private DevelopmentComponent used;
+
+    /**
+     * development component using {@link #used}.
+     */
+    private DevelopmentComponent user;
+
+    /**
+     * development component using {@link #user}.
+     */
+    private DevelopmentComponent transitiveUser;
+
+    /**
+     * development component not using any other development component.
+     */
+    private DevelopmentComponent standAlone;
+
+    /**
+     * development components whose build failed.
+     */
+    private final List<DevelopmentComponent> failedBuilds = new ArrayList<DevelopmentComponent>();
+
+    /**
+     * monitor reporting {@link #failedBuilds}.
+     */
+    private final DCBuildMonitor monitor = new DCBuildMonitor() {
+        @Override
+        public Collection<DevelopmentComponent> getFailedBuilds() {
+            return failedBuilds;
+        }
+    };
+
+    /**
+     * Set up fixture.
+     */
+    @Before
+    public void setUp() {
+        dcFactory = new DevelopmentComponentFactory();
+        used = dcFactory.create(EXAMPLE_ORG, "used");
+        user = dcFactory.create(EXAMPLE_ORG, "user");
+        transitiveUser = dcFactory.create(EXAMPLE_ORG, "transitive/user");
+        standAlone = dcFactory.create(EXAMPLE_ORG, "stand/alone");
+
+        user.add(new PublicPartReference(EXAMPLE_ORG, "used", "api"));
+        transitiveUser.add(new PublicPartReference(EXAMPLE_ORG, "user", "api"));
+    }
+
+    /**
+     * Development components using a development component whose build failed directly or transitively are skipped, other development
+     * components are built.
+     */
+    @Test
+    public void testUsingDevelopmentComponentsAreSkipped() {
+        final DependentBuildSkipper skipper = new DependentBuildSkipper(dcFactory.createGraph(), monitor, false);
+
+        assertThat(skipper.filter(Arrays.asList(used, standAlone)), contains(used, standAlone));
+        failedBuilds.add(used);
+
+        assertThat(skipper.filter(Arrays.asList(user)), empty());
+        assertThat(skipper.filter(Arrays.asList(transitiveUser, standAlone)), contains(standAlone));
+        assertThat(skipper.getSkipped(), contains(user, transitiveUser));
+    }
+
+    /**
+     * All remaining development components are skipped after a failed build when configured to stop on failure.
+     */
+    @Test
+    public void testAllDevelopmentComponentsAreSkippedOnFailure() {
+        final DependentBuildSkipper skipper = new DependentBuildSkipper(dcFactory.createGraph(), monitor, true);
+
+        assertThat(skipper.filter(Arrays.asList(used)), contains(used));
+        failedBuilds.add(used);
+
+        assertThat(skipper.filter(Arrays.asList(user, standAlone)), empty());
+        assertThat(skipper.getSkipped(), contains(user, standAlone));
+    }
+}
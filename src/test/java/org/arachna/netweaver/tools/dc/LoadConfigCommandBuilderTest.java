@@ -0,0 +1,62 @@
+/**
+ *
+ */
+package org.arachna.netweaver.tools.dc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.arachna.netweaver.dc.types.JdkHomePaths;
+import org.arachna.netweaver.tools.DIToolDescriptor;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LoadConfigCommandBuilder}.
+ *
+ * @author Dirk Weigenand
+ */
+public final class LoadConfigCommandBuilderTest {
+    /**
+     * builder for the default session.
+     */
+    private final LoadConfigCommandBuilder builder = new LoadConfigCommandBuilder(new DIToolDescriptor("developer", "secret", "", "",
+        new JdkHomePaths()), LoadConfigTemplate.V71);
+
+    /**
+     * The default session uses the spool and trace files known from a single dctool session.
+     */
+    @Test
+    public void testDefaultSessionUsesDefaultFiles() {
+        final List<String> commands = builder.execute();
+
+        assertThat(commands.get(0), is(equalTo("spool spool.txt")));
+        assertThat(commands.get(1), is(equalTo("tracefile tracefile.txt")));
+    }
+
+    /**
+     * Concurrent sessions use spool and trace files of their own.
+     */
+    @Test
+    public void testSessionsUseIsolatedFiles() {
+        final List<String> commands = builder.forSession(2).execute();
+
+        assertThat(commands.get(0), is(equalTo("spool spool-2.txt")));
+        assertThat(commands.get(1), is(equalTo("tracefile tracefile-2.txt")));
+    }
+
+    /**
+     * The V70 templates terminate commands with a semicolon.
+     */
+    @Test
+    public void testSessionsUseIsolatedFilesWithV70Template() {
+        final List<String> commands =
+            new LoadConfigCommandBuilder(new DIToolDescriptor("developer", "secret", "", "", new JdkHomePaths()), LoadConfigTemplate.V70, 3)
+                .execute();
+
+        assertThat(commands.get(0), is(equalTo("spool spool-3.txt;")));
+        assertThat(commands.get(1), is(equalTo("tracefile tracefile-3.txt;")));
+    }
+}